@@ -0,0 +1,107 @@
+package com.alphawallet.attestation;
+
+import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.SignatureUtility;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.devcon.ticket.Ticket;
+import org.devcon.ticket.TicketDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks decoding and verifying an attested ticket, which is what happens when a ticket is
+ * redeemed. The split benchmarks compare the structural part of decoding, slicing the encoding
+ * into its components and the unsigned encoding, using ASN1InputStream and using DERView.
+ * The decodeUnverified benchmark measures the PARSE stage of staged validation, which only slices
+ * the components and leaves decoding the attestation, the proof and the ticket encodings until
+ * they are used. The decode benchmark measures the full decoding constructor, which also verifies
+ * the object. Run with -prof gc to compare the bytes allocated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttestedObjectBenchmark {
+  private static final String MAIL = "test@test.ts";
+  private static final BigInteger TICKET_ID = new BigInteger("417541561855");
+  private static final int TICKET_CLASS = 0;
+  private static final String CONFERENCE_ID = "6";
+  private static final BigInteger TICKET_SECRET = new BigInteger("48646");
+  private static final BigInteger ATTESTATION_SECRET = new BigInteger("8408464");
+
+  private AsymmetricCipherKeyPair attestorKeys;
+  private TicketDecoder ticketDecoder;
+  private byte[] encoding;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    AttestationCrypto crypto = new AttestationCrypto(rand);
+    AsymmetricCipherKeyPair subjectKeys = SignatureUtility.constructECKeysWithSmallestY(rand);
+    attestorKeys = SignatureUtility.constructECKeys(rand);
+    AsymmetricCipherKeyPair ticketIssuerKeys = SignatureUtility.constructECKeys(rand);
+    IdentifierAttestation att = BenchmarkFixtures.makeUnsignedAttestation(subjectKeys.getPublic(), ATTESTATION_SECRET, MAIL);
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, attestorKeys);
+    Ticket ticket = new Ticket(MAIL, CONFERENCE_ID, TICKET_ID, TICKET_CLASS, ticketIssuerKeys, TICKET_SECRET);
+    AttestedObject<Ticket> attestedTicket = new AttestedObject<>(ticket, signed, subjectKeys, ATTESTATION_SECRET, TICKET_SECRET, crypto);
+    encoding = attestedTicket.getDerEncodingWithSignature();
+    ticketDecoder = new TicketDecoder(ticketIssuerKeys.getPublic());
+  }
+
+  @Benchmark
+  public void splitWithBouncyCastle(Blackhole bh) throws IOException {
+    ASN1Sequence asn1 = ASN1Sequence.getInstance(new ASN1InputStream(encoding).readObject());
+    bh.consume(asn1.getObjectAt(0).toASN1Primitive().getEncoded());
+    bh.consume(asn1.getObjectAt(1).toASN1Primitive().getEncoded());
+    bh.consume(asn1.getObjectAt(2).toASN1Primitive().getEncoded());
+    bh.consume(new DERSequence(Arrays.copyOfRange(asn1.toArray(), 0, 3)).getEncoded());
+    bh.consume(DERBitString.getInstance(asn1.getObjectAt(3)).getBytes());
+  }
+
+  @Benchmark
+  public void splitWithView(Blackhole bh) throws IOException {
+    DERView asn1 = DERView.parse(encoding);
+    bh.consume(asn1.getElement(0).getEncoded());
+    bh.consume(asn1.getElement(1).getEncoded());
+    bh.consume(asn1.getElement(2).getEncoded());
+    bh.consume(DERView.encodeSequence(asn1.getElement(0), asn1.getElement(2)));
+    bh.consume(asn1.getElement(3).getBitStringBytes());
+  }
+
+  @Benchmark
+  public AttestedObject<Ticket> decode() {
+    return new AttestedObject<>(encoding, ticketDecoder, attestorKeys.getPublic());
+  }
+
+  @Benchmark
+  public AttestedObject<Ticket> decodeUnverified() {
+    return AttestedObject.decodeUnverified(encoding, ticketDecoder, attestorKeys.getPublic());
+  }
+
+  @Benchmark
+  public boolean decodeAndVerify() {
+    AttestedObject<Ticket> decoded = new AttestedObject<>(encoding, ticketDecoder, attestorKeys.getPublic());
+    return decoded.verify() && decoded.checkValidity();
+  }
+}
@@ -0,0 +1,50 @@
+package com.alphawallet.attestation;
+
+import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
+import com.alphawallet.attestation.core.ExceptionUtil;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Date;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+
+/**
+ * Shared fixtures for the benchmarks. All randomness is derived from a fixed seed such that every
+ * run benchmarks the same keys, proofs and encodings and results stay comparable to the baseline.
+ */
+public class BenchmarkFixtures {
+  private static final Logger logger = LogManager.getLogger(BenchmarkFixtures.class);
+
+  public static final long VALIDITY = 1000L*60L*60L*24L*365L*10L; // 10 years
+
+  /**
+   * Returns a deterministic SecureRandom. Note that the seed of a default SecureRandom only
+   * supplements its internal entropy, hence SHA1PRNG is needed to get reproducible fixtures.
+   */
+  public static SecureRandom makeRandom() {
+    try {
+      SecureRandom rand = SecureRandom.getInstance("SHA1PRNG", "SUN");
+      rand.setSeed("seed".getBytes());
+      return rand;
+    } catch (Exception e) {
+      throw ExceptionUtil.makeRuntimeException(logger, "Could not construct random generator", e);
+    }
+  }
+
+  /**
+   * Constructs an unsigned email attestation to subjectPublicKey, valid for the next 10 years
+   */
+  public static IdentifierAttestation makeUnsignedAttestation(AsymmetricKeyParameter subjectPublicKey,
+      BigInteger secret, String mail) {
+    IdentifierAttestation att = new IdentifierAttestation(mail, AttestationType.EMAIL,
+        subjectPublicKey, secret);
+    att.setIssuer("CN=ALX");
+    att.setSerialNumber(1);
+    att.setNotValidBefore(new Date());
+    att.setNotValidAfter(new Date(System.currentTimeMillis() + VALIDITY));
+    att.setSmartcontracts(Arrays.asList(42L, 1337L));
+    return att;
+  }
+}
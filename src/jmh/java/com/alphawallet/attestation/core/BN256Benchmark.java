@@ -0,0 +1,93 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the limb based BN256 engine against the BouncyCastle implementation of the same
+ * operations, i.e. the fixed-base multiplication of commitments and proofs, the variable-base
+ * multiplication and addition of proof verification and point decoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BN256Benchmark {
+  private final ECMultiplier combMultiplier = new FixedPointCombMultiplier();
+  private BigInteger exponent1;
+  private BigInteger exponent2;
+  private ECPoint point;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    exponent1 = new BigInteger(256 + 128, rand).mod(AttestationCrypto.curveOrder);
+    exponent2 = new BigInteger(256 + 128, rand).mod(AttestationCrypto.curveOrder);
+    point = AttestationCrypto.G.multiply(exponent1).normalize();
+    encoded = point.getEncoded(false);
+  }
+
+  @Benchmark
+  public ECPoint bouncyCastleFixedBase() {
+    return combMultiplier.multiply(AttestationCrypto.H, exponent1).normalize();
+  }
+
+  @Benchmark
+  public ECPoint engineFixedBase() {
+    return AttestationCrypto.multiplyH(exponent1);
+  }
+
+  @Benchmark
+  public ECPoint bouncyCastleVariableBase() {
+    return point.multiply(exponent2).normalize();
+  }
+
+  @Benchmark
+  public ECPoint engineVariableBase() {
+    BN256Point res = BN256Point.fromECPoint(point);
+    res.multiply(exponent2);
+    return res.toECPoint();
+  }
+
+  @Benchmark
+  public ECPoint bouncyCastleTwoMultiplies() {
+    return ECAlgorithms.sumOfTwoMultiplies(AttestationCrypto.H, exponent1, point, exponent2).normalize();
+  }
+
+  @Benchmark
+  public ECPoint engineTwoMultiplies() {
+    BN256Point res = BN256Point.fromECPoint(point);
+    res.multiply(exponent2);
+    res.add(AttestationCrypto.H_TABLE.multiply(exponent1));
+    return res.toECPoint();
+  }
+
+  @Benchmark
+  public ECPoint bouncyCastleDecode() {
+    return AttestationCrypto.curve.decodePoint(encoded).normalize();
+  }
+
+  @Benchmark
+  public ECPoint engineDecode() {
+    return AttestationCrypto.decodePoint(encoded);
+  }
+}
@@ -0,0 +1,60 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import com.alphawallet.attestation.FullProofOfExponent;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares verifying a list of proofs one by one against verifying them as a batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchVerificationBenchmark {
+  @Param({"16", "128"})
+  private int batchSize;
+
+  private List<FullProofOfExponent> poks;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    AttestationCrypto crypto = new AttestationCrypto(rand);
+    poks = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      poks.add(crypto.computeAttestationProof(crypto.makeSecret(), BigInteger.valueOf(i).toByteArray()));
+    }
+  }
+
+  @Benchmark
+  public boolean[] individualVerification() {
+    boolean[] res = new boolean[poks.size()];
+    for (int i = 0; i < poks.size(); i++) {
+      res[i] = AttestationCrypto.verifyFullProof(poks.get(i));
+    }
+    return res;
+  }
+
+  @Benchmark
+  public boolean[] batchVerification() {
+    return AttestationCrypto.verifyFullProofBatch(poks);
+  }
+}
@@ -0,0 +1,53 @@
+package com.alphawallet.attestation.core;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of a single shared SecureRandom against the DRBG pool when several
+ * threads draw the 48 bytes needed for a secret at the same time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DrbgPoolBenchmark {
+  private static final int SECRET_BYTES = (256 + 128) / 8;
+
+  private SecureRandom shared;
+  private DrbgPool pool;
+
+  @Setup
+  public void setup() {
+    shared = new SecureRandom();
+    pool = new DrbgPool();
+  }
+
+  @Benchmark
+  public byte[] sharedSecureRandom() {
+    byte[] res = new byte[SECRET_BYTES];
+    shared.nextBytes(res);
+    return res;
+  }
+
+  @Benchmark
+  public byte[] drbgPool() {
+    byte[] res = new byte[SECRET_BYTES];
+    pool.nextBytes(res);
+    return res;
+  }
+}
@@ -0,0 +1,67 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares verifying a list of Ethereum signatures one by one against verifying them as a batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EthereumBatchVerificationBenchmark {
+  @Param({"16", "1024"})
+  private int batchSize;
+
+  private List<byte[]> messages;
+  private List<byte[]> signatures;
+  private List<String> addresses;
+
+  @Setup
+  public void setup() {
+    AsymmetricCipherKeyPair keys = SignatureUtility.constructECKeysWithSmallestY(BenchmarkFixtures.makeRandom());
+    String address = SignatureUtility.addressFromKey(keys.getPublic());
+    messages = new ArrayList<>();
+    addresses = new ArrayList<>();
+    for (int i = 0; i < batchSize; i++) {
+      byte[] message = new byte[128];
+      message[0] = (byte) i;
+      message[1] = (byte) (i >> 8);
+      messages.add(message);
+      addresses.add(address);
+    }
+    signatures = SignatureUtility.signBatch(messages, keys.getPrivate());
+  }
+
+  @Benchmark
+  public boolean[] individualVerification() {
+    boolean[] res = new boolean[messages.size()];
+    for (int i = 0; i < messages.size(); i++) {
+      res[i] = SignatureUtility.verifyEthereumSignature(messages.get(i), signatures.get(i), addresses.get(i), 0);
+    }
+    return res;
+  }
+
+  @Benchmark
+  public BitSet batchVerification() {
+    return SignatureUtility.verifyEthereumSignatures(messages, signatures, addresses, 0);
+  }
+}
@@ -0,0 +1,68 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks signing Ethereum style, alone and in batches, and recovering the public key from such a signature.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EthereumSignatureBenchmark {
+  private static final int BATCH_SIZE = 64;
+
+  private AsymmetricCipherKeyPair keys;
+  private byte[] message;
+  private byte[] signature;
+  private List<byte[]> batch;
+
+  @Setup
+  public void setup() {
+    keys = SignatureUtility.constructECKeysWithSmallestY(BenchmarkFixtures.makeRandom());
+    message = new byte[515];
+    message[0] = 0x42;
+    message[514] = 0x15;
+    signature = SignatureUtility.signWithEthereum(message, keys.getPrivate());
+    batch = new ArrayList<>();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      byte[] batchMessage = message.clone();
+      batchMessage[1] = (byte) i;
+      batch.add(batchMessage);
+    }
+  }
+
+  @Benchmark
+  public byte[] signWithEthereum() {
+    return SignatureUtility.signWithEthereum(message, keys.getPrivate());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public List<byte[]> signBatch() {
+    return SignatureUtility.signBatch(batch, keys.getPrivate());
+  }
+
+  @Benchmark
+  public ECPublicKeyParameters recoverEthPublicKeyFromSignature() {
+    return SignatureUtility.recoverEthPublicKeyFromSignature(message, signature);
+  }
+}
@@ -0,0 +1,56 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.math.ec.ECPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the generic ECPoint.multiply against the fixed-base tables used for G and H.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FixedBaseMultiplicationBenchmark {
+  private BigInteger exponent;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    exponent = new BigInteger(256 + 128, rand).mod(AttestationCrypto.curveOrder);
+  }
+
+  @Benchmark
+  public ECPoint genericMultiplyG() {
+    return AttestationCrypto.G.multiply(exponent).normalize();
+  }
+
+  @Benchmark
+  public ECPoint fixedBaseMultiplyG() {
+    return AttestationCrypto.multiplyG(exponent).normalize();
+  }
+
+  @Benchmark
+  public ECPoint genericMultiplyH() {
+    return AttestationCrypto.H.multiply(exponent).normalize();
+  }
+
+  @Benchmark
+  public ECPoint fixedBaseMultiplyH() {
+    return AttestationCrypto.multiplyH(exponent).normalize();
+  }
+}
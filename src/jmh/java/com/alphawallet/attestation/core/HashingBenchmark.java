@@ -0,0 +1,63 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jcajce.provider.digest.Keccak;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares allocating a new digest per hash against the thread-local digests of AttestationCrypto.
+ * Run with the GC profiler to see the difference in allocation rate, i.e.
+ * gradle jmh -PjmhInclude=HashingBenchmark -PjmhProfilers=gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashingBenchmark {
+  @Param({"32", "256"})
+  private int inputLength;
+
+  private byte[] input;
+  private byte[] out;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    input = new byte[inputLength];
+    rand.nextBytes(input);
+    out = new byte[AttestationCrypto.BYTES_IN_DIGEST];
+  }
+
+  @Benchmark
+  public byte[] newDigestPerHash() {
+    MessageDigest keccak = new Keccak.Digest256();
+    keccak.update(input);
+    return keccak.digest();
+  }
+
+  @Benchmark
+  public byte[] threadLocalDigest() {
+    return AttestationCrypto.hashWithKeccak(input);
+  }
+
+  @Benchmark
+  public byte[] threadLocalDigestIntoBuffer() {
+    AttestationCrypto.hashWithKeccak(input, 0, input.length, out, 0);
+    return out;
+  }
+}
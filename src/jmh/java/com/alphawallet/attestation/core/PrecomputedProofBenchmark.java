@@ -0,0 +1,72 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import com.alphawallet.attestation.FullProofOfExponent;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Samples the latency of proof generation on the request path when the (hiding, t) pairs are
+ * taken from a precomputed pool, against computing them inline. The pool is refilled outside of
+ * the measured invocations, representing a service which had time to refill while idle.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrecomputedProofBenchmark {
+  // Enough pairs to make a second round of rejection sampling very unlikely to miss
+  private static final int POOL_CAPACITY = 4;
+
+  private AttestationCrypto inlineCrypto;
+  private AttestationCrypto pooledCrypto;
+  private SchnorrPairPool pool;
+  private BigInteger randomness;
+  private byte[] nonce;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    // No background refills, the pool is filled before every invocation instead
+    pool = new SchnorrPairPool(rand, POOL_CAPACITY, 0, 1);
+    inlineCrypto = new AttestationCrypto(rand);
+    pooledCrypto = new AttestationCrypto(rand, pool);
+    randomness = inlineCrypto.makeSecret();
+    nonce = new byte[] {0x01, 0x02, 0x03};
+  }
+
+  @Setup(Level.Invocation)
+  public void refill() {
+    pool.fill();
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.close();
+  }
+
+  @Benchmark
+  public FullProofOfExponent inline() {
+    return inlineCrypto.computeAttestationProof(randomness, nonce);
+  }
+
+  @Benchmark
+  public FullProofOfExponent precomputed() {
+    return pooledCrypto.computeAttestationProof(randomness, nonce);
+  }
+}
@@ -0,0 +1,79 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import com.alphawallet.attestation.FullProofOfExponent;
+import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
+import com.alphawallet.attestation.UsageProofOfExponent;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks construction and verification of commitments and the proofs of knowledge used in
+ * attestations. Note that makeCommitment benefits from the cache of identifiers mapped to the curve.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProofBenchmark {
+  private static final String MAIL = "test@test.ts";
+  private static final AttestationType TYPE = AttestationType.EMAIL;
+
+  private AttestationCrypto crypto;
+  private BigInteger secret1;
+  private BigInteger secret2;
+  private byte[] nonce;
+  private byte[] commitment1;
+  private byte[] commitment2;
+  private FullProofOfExponent attestationProof;
+  private UsageProofOfExponent equalityProof;
+
+  @Setup
+  public void setup() {
+    crypto = new AttestationCrypto(BenchmarkFixtures.makeRandom());
+    secret1 = crypto.makeSecret();
+    secret2 = crypto.makeSecret();
+    nonce = new byte[] {0x01, 0x02, 0x03};
+    commitment1 = AttestationCrypto.makeCommitment(MAIL, TYPE, secret1);
+    commitment2 = AttestationCrypto.makeCommitment(MAIL, TYPE, secret2);
+    attestationProof = crypto.computeAttestationProof(secret1, nonce);
+    equalityProof = crypto.computeEqualityProof(commitment1, commitment2, secret1, secret2, nonce);
+  }
+
+  @Benchmark
+  public byte[] makeCommitment() {
+    return AttestationCrypto.makeCommitment(MAIL, TYPE, secret1);
+  }
+
+  @Benchmark
+  public FullProofOfExponent computeAttestationProof() {
+    return crypto.computeAttestationProof(secret1, nonce);
+  }
+
+  @Benchmark
+  public UsageProofOfExponent computeEqualityProof() {
+    return crypto.computeEqualityProof(commitment1, commitment2, secret1, secret2, nonce);
+  }
+
+  @Benchmark
+  public boolean verifyFullProof() {
+    return AttestationCrypto.verifyFullProof(attestationProof);
+  }
+
+  @Benchmark
+  public boolean verifyEqualityProof() {
+    return AttestationCrypto.verifyEqualityProof(commitment1, commitment2, equalityProof);
+  }
+}
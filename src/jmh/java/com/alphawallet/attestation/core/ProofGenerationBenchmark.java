@@ -0,0 +1,50 @@
+package com.alphawallet.attestation.core;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import com.alphawallet.attestation.FullProofOfExponent;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Samples the latency distribution of proof generation depending on the amount of speculative
+ * candidates used in the rejection sampling. Look at the p0.99 percentiles in the output.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProofGenerationBenchmark {
+  @Param({"1", "2", "4"})
+  private int speculativeCandidates;
+
+  private AttestationCrypto crypto;
+  private BigInteger randomness;
+  private byte[] nonce;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    crypto = new AttestationCrypto(rand, speculativeCandidates);
+    randomness = crypto.makeSecret();
+    nonce = new byte[] {0x01, 0x02, 0x03};
+  }
+
+  @Benchmark
+  public FullProofOfExponent attestationProof() {
+    return crypto.computeAttestationProof(randomness, nonce);
+  }
+}
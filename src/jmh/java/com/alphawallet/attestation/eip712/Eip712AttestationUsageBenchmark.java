@@ -0,0 +1,108 @@
+package com.alphawallet.attestation.eip712;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import com.alphawallet.attestation.FullProofOfExponent;
+import com.alphawallet.attestation.IdentifierAttestation;
+import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
+import com.alphawallet.attestation.SignedIdentityAttestation;
+import com.alphawallet.attestation.UseAttestation;
+import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.SignatureUtility;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks decoding and validating an EIP712 attestation usage request, as done by a website
+ * when a user authenticates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Eip712AttestationUsageBenchmark {
+  private static final String DOMAIN = "https://www.hotelbogota.com";
+  private static final String MAIL = "email@test.com";
+  private static final BigInteger ATTESTATION_SECRET = new BigInteger("15816808484023");
+
+  private AsymmetricCipherKeyPair attestorKeys;
+  private String jsonEncoding;
+  private String expiredJsonEncoding;
+  private String malformedJsonEncoding;
+
+  @Setup
+  public void setup() {
+    SecureRandom rand = BenchmarkFixtures.makeRandom();
+    AttestationCrypto crypto = new AttestationCrypto(rand);
+    attestorKeys = SignatureUtility.constructECKeysWithSmallestY(rand);
+    AsymmetricCipherKeyPair userKeys = SignatureUtility.constructECKeysWithSmallestY(rand);
+    AsymmetricCipherKeyPair sessionKeys = SignatureUtility.constructECKeys(rand);
+    String userAddress = SignatureUtility.addressFromKey(userKeys.getPublic());
+    byte[] nonce = Nonce.makeNonce(userAddress, DOMAIN, new Timestamp());
+    FullProofOfExponent pok = crypto.computeAttestationProof(ATTESTATION_SECRET, nonce);
+    IdentifierAttestation att = BenchmarkFixtures.makeUnsignedAttestation(userKeys.getPublic(), ATTESTATION_SECRET, MAIL);
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, attestorKeys);
+    UseAttestation usage = new UseAttestation(signed, AttestationType.EMAIL, pok, sessionKeys.getPublic());
+    // Allow the token to be used for as long as the benchmark may run
+    Eip712AttestationUsage request = new Eip712AttestationUsage(DOMAIN, Timestamp.UNLIMITED,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, MAIL, usage, userKeys.getPrivate());
+    jsonEncoding = request.getJsonEncoding();
+    Eip712AttestationUsage expired = new Eip712AttestationUsage(DOMAIN, -1,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, MAIL, usage, userKeys.getPrivate());
+    expiredJsonEncoding = expired.getJsonEncoding();
+    malformedJsonEncoding = expiredJsonEncoding.replace(',', '.');
+  }
+
+  @Benchmark
+  public boolean decodeAndValidate() {
+    Eip712AttestationUsage decoded = new Eip712AttestationUsage(DOMAIN, attestorKeys.getPublic(),
+        Timestamp.UNLIMITED, Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, jsonEncoding);
+    return decoded.verify() && decoded.checkTokenValidity();
+  }
+
+  @Benchmark
+  public boolean stagedValidate() {
+    return Eip712AttestationUsage.validate(DOMAIN, attestorKeys.getPublic(), Timestamp.UNLIMITED,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, jsonEncoding).isAccepted();
+  }
+
+  /**
+   * An expired token is rejected in the TIME stage, before any signature or proof is verified
+   */
+  @Benchmark
+  public boolean stagedRejectExpired() {
+    return Eip712AttestationUsage.validate(DOMAIN, attestorKeys.getPublic(), -1,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, expiredJsonEncoding).isAccepted();
+  }
+
+  /**
+   * An expired token is rejected without timing the stages, logging or throwing
+   */
+  @Benchmark
+  public boolean tryDecodeRejectExpired() {
+    return Eip712AttestationUsage.tryDecode(DOMAIN, attestorKeys.getPublic(), -1,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, expiredJsonEncoding).isAccepted();
+  }
+
+  /**
+   * Garbage is rejected while parsing, without logging or throwing through ExceptionUtil
+   */
+  @Benchmark
+  public boolean tryDecodeRejectMalformed() {
+    return Eip712AttestationUsage.tryDecode(DOMAIN, attestorKeys.getPublic(), -1,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, malformedJsonEncoding).isAccepted();
+  }
+}
@@ -0,0 +1,57 @@
+package com.alphawallet.attestation.eip712;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import com.alphawallet.attestation.core.EthereumAddress;
+import com.alphawallet.attestation.core.SignatureUtility;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks validating a nonce, as done for every EIP712 request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NonceBenchmark {
+  private static final String DOMAIN = "https://www.hotelbogota.com";
+
+  private String address;
+  private EthereumAddress ethereumAddress;
+  private byte[] nonce;
+  private Timestamp minTime;
+  private Timestamp maxTime;
+
+  @Setup
+  public void setup() {
+    address = SignatureUtility.addressFromKey(
+        SignatureUtility.constructECKeys(BenchmarkFixtures.makeRandom()).getPublic());
+    ethereumAddress = EthereumAddress.fromString(address);
+    Timestamp timestamp = new Timestamp();
+    nonce = Nonce.makeNonce(address, DOMAIN, timestamp);
+    // Allow the nonce to be used for as long as the benchmark may run
+    minTime = new Timestamp(timestamp.getTime() - Nonce.DEFAULT_NONCE_TIME_LIMIT_MS);
+    maxTime = new Timestamp(timestamp.getTime() + Nonce.DEFAULT_NONCE_TIME_LIMIT_MS);
+  }
+
+  @Benchmark
+  public boolean validateNonce() {
+    return Nonce.validateNonce(nonce, ethereumAddress, DOMAIN, minTime, maxTime);
+  }
+
+  @Benchmark
+  public boolean validateNonceWithStringAddress() {
+    return Nonce.validateNonce(nonce, address, DOMAIN, minTime, maxTime);
+  }
+}
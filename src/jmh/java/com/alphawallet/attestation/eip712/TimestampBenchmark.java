@@ -0,0 +1,46 @@
+package com.alphawallet.attestation.eip712;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks encoding and parsing timestamps from several threads at once, as done when
+ * validating EIP712 requests concurrently.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TimestampBenchmark {
+  private Timestamp timestamp;
+  private String encoded;
+
+  @Setup
+  public void setup() {
+    timestamp = new Timestamp();
+    encoded = timestamp.getTimeAsString();
+  }
+
+  @Benchmark
+  public String format() {
+    return timestamp.getTimeAsString();
+  }
+
+  @Benchmark
+  public long parse() {
+    return Timestamp.stringTimestampToLong(encoded);
+  }
+}
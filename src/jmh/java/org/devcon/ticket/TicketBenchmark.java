@@ -0,0 +1,46 @@
+package org.devcon.ticket;
+
+import com.alphawallet.attestation.BenchmarkFixtures;
+import com.alphawallet.attestation.core.SignatureUtility;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks decoding a signed ticket, including verification of the issuer's signature.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketBenchmark {
+  private TicketDecoder decoder;
+  private byte[] encoding;
+
+  @Setup
+  public void setup() {
+    AsymmetricCipherKeyPair issuerKeys = SignatureUtility.constructECKeys(BenchmarkFixtures.makeRandom());
+    Ticket ticket = new Ticket("test@test.ts", "6", new BigInteger("417541561855"), 0, issuerKeys,
+        new BigInteger("45845870684"));
+    encoding = ticket.getDerEncoding();
+    decoder = new TicketDecoder(issuerKeys.getPublic());
+  }
+
+  @Benchmark
+  public Ticket decode() throws IOException {
+    return decoder.decode(encoding);
+  }
+}
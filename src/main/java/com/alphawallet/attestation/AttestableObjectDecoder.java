@@ -5,4 +5,12 @@ import java.io.IOException;
 
 public interface AttestableObjectDecoder<T extends Attestable> {
   public T decode(byte[] encoding) throws IOException;
+
+  /**
+   * Decodes the object without verifying it, such that it can be validated through
+   * ValidationPipeline. Malformed encodings should be rejected by returning null, without logging.
+   */
+  public default T decodeUnverified(byte[] encoding) throws IOException {
+    return decode(encoding);
+  }
 }
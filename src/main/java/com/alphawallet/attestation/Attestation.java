@@ -50,6 +50,8 @@ public class Attestation implements Signable, ASNEncodable, Validateable {
   private ASN1Sequence smartcontracts; // ASN1integers  // Optional
   private ASN1Sequence dataObject;
   private ASN1Sequence extensions;
+  // The memoized encoding along with the field values it encodes
+  private volatile MemoizedEncoding encoding;
 
   public Attestation() {
   }
@@ -291,25 +293,33 @@ public class Attestation implements Signable, ASNEncodable, Validateable {
 
   @Override
   public boolean checkValidity() {
-    if (version == null || subject == null || serialNumber == null || signingAlgorithm == null) {
-      logger.error("Version, serial number, algorithm or extension/dataObject missing");
+    String error = findValidityError(Clock.systemUTC().millis());
+    if (error != null) {
+      logger.error(error);
       return false;
     }
-    if (getNotValidBefore() != null && getNotValidAfter() != null) {
-      long currentTime = Clock.systemUTC().millis();
-      Date attNotBefore = getNotValidBefore();
-      Date attNotAfter = getNotValidAfter();
-      if (attNotBefore != null && attNotAfter != null) {
-        if (!(currentTime >= attNotBefore.getTime() && currentTime < attNotAfter.getTime())) {
-          logger.error("Attestation either too old or too new");
-          return false;
-        }
+    return true;
+  }
+
+  /**
+   * Returns the reason the attestation is not valid at currentTime, or null if it is valid.
+   * Nothing is logged, such that staged validation can reject invalid attestations cheaply.
+   */
+  String findValidityError(long currentTime) {
+    if (version == null || subject == null || serialNumber == null || signingAlgorithm == null) {
+      return "Version, serial number, algorithm or extension/dataObject missing";
+    }
+    Date attNotBefore = getNotValidBefore();
+    Date attNotAfter = getNotValidAfter();
+    if (attNotBefore != null && attNotAfter != null) {
+      if (!(currentTime >= attNotBefore.getTime() && currentTime < attNotAfter.getTime())) {
+        return "Attestation either too old or too new";
       }
     }
     if (extensions != null && dataObject != null) {
-      return false;
+      return "Both extensions and data object set";
     }
-    return true;
+    return null;
   }
 
   @Override
@@ -324,7 +334,9 @@ public class Attestation implements Signable, ASNEncodable, Validateable {
 
   /**
    * Construct the DER encoded byte array to be signed. Returns null if the Attestation object is
-   * not valid
+   * not valid.
+   * The encoding is memoized for as long as no field is changed, so the same array is returned on
+   * repeated calls and must not be modified.
    */
   @Override
   public byte[] getPrehash() {
@@ -332,6 +344,15 @@ public class Attestation implements Signable, ASNEncodable, Validateable {
       logger.error("Attestation is not valid");
       return null;
     }
+    MemoizedEncoding res = encoding;
+    if (res == null || !res.encodes(this)) {
+      res = new MemoizedEncoding(this, encodeFields());
+      encoding = res;
+    }
+    return res.encoded;
+  }
+
+  private byte[] encodeFields() {
     ASN1EncodableVector res = new ASN1EncodableVector();
     res.add(new DERTaggedObject(true, 0, this.version));
     res.add(this.serialNumber);
@@ -394,4 +415,48 @@ public class Attestation implements Signable, ASNEncodable, Validateable {
     logger.error("Method not implemented!");
     return 0;
   }
+
+  /**
+   * An encoding along with the field values it was computed from. The field values are all
+   * immutable, so the encoding is current exactly when the attestation still holds the same
+   * values, which is checked by reference rather than by re-encoding.
+   */
+  private static final class MemoizedEncoding {
+    private final ASN1Integer version;
+    private final ASN1Integer serialNumber;
+    private final AlgorithmIdentifier signingAlgorithm;
+    private final X500Name issuer;
+    private final ASN1GeneralizedTime notValidBefore;
+    private final ASN1GeneralizedTime notValidAfter;
+    private final X500Name subject;
+    private final SubjectPublicKeyInfo subjectPublicKeyInfo;
+    private final ASN1Sequence smartcontracts;
+    private final ASN1Sequence dataObject;
+    private final ASN1Sequence extensions;
+    private final byte[] encoded;
+
+    private MemoizedEncoding(Attestation att, byte[] encoded) {
+      this.version = att.version;
+      this.serialNumber = att.serialNumber;
+      this.signingAlgorithm = att.signingAlgorithm;
+      this.issuer = att.issuer;
+      this.notValidBefore = att.notValidBefore;
+      this.notValidAfter = att.notValidAfter;
+      this.subject = att.subject;
+      this.subjectPublicKeyInfo = att.subjectPublicKeyInfo;
+      this.smartcontracts = att.smartcontracts;
+      this.dataObject = att.dataObject;
+      this.extensions = att.extensions;
+      this.encoded = encoded;
+    }
+
+    private boolean encodes(Attestation att) {
+      return version == att.version && serialNumber == att.serialNumber
+          && signingAlgorithm == att.signingAlgorithm && issuer == att.issuer
+          && notValidBefore == att.notValidBefore && notValidAfter == att.notValidAfter
+          && subject == att.subject && subjectPublicKeyInfo == att.subjectPublicKeyInfo
+          && smartcontracts == att.smartcontracts && dataObject == att.dataObject
+          && extensions == att.extensions;
+    }
+  }
 }
@@ -4,6 +4,7 @@ import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.core.ASNEncodable;
 import com.alphawallet.attestation.core.AttestationCrypto;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
 import com.alphawallet.attestation.core.Verifiable;
 import java.io.IOException;
 import org.apache.logging.log4j.LogManager;
@@ -19,10 +20,12 @@ public class AttestationRequest implements ASNEncodable, Verifiable {
   private static final Logger logger = LogManager.getLogger(AttestationRequest.class);
   private final AttestationType type;
   private final FullProofOfExponent pok;
+  private final byte[] encoding;
 
   public AttestationRequest(AttestationType type, FullProofOfExponent pok) {
     this.type = type;
     this.pok = pok;
+    this.encoding = makeEncoding(type, pok);
 
     if (!verify()) {
       throw ExceptionUtil.throwException(logger,
@@ -31,6 +34,11 @@ public class AttestationRequest implements ASNEncodable, Verifiable {
   }
 
   public AttestationRequest(byte[] derEncoding) {
+    this(derEncoding, true);
+  }
+
+  private AttestationRequest(byte[] derEncoding, boolean verify) {
+    this.encoding = derEncoding;
     try {
       ASN1InputStream input = new ASN1InputStream(derEncoding);
       ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
@@ -38,22 +46,42 @@ public class AttestationRequest implements ASNEncodable, Verifiable {
       this.type = AttestationType.values()[
           ASN1Integer.getInstance(asn1.getObjectAt(i++)).getValue().intValueExact()];
       this.pok = new FullProofOfExponent(
-          ASN1Sequence.getInstance(asn1.getObjectAt(i++)).getEncoded());
+          ASN1Sequence.getInstance(asn1.getObjectAt(i++)).getEncoded(), verify);
     } catch (IOException e) {
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode asn1", e);
     }
-    if (!verify()) {
+    if (verify && !verify()) {
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Signature is not valid"));
     }
   }
 
+  /**
+   * Decodes the request without verifying the proof, such that the validation can be staged.
+   * The request must be validated through ValidationPipeline before use.
+   * @return The request, or null if the encoding is malformed
+   */
+  public static AttestationRequest decodeUnverified(byte[] derEncoding) {
+    try {
+      return new AttestationRequest(derEncoding, false);
+    } catch (RejectedEncodingException e) {
+      return null;
+    }
+  }
+
   public AttestationType getType() { return type; }
 
   public FullProofOfExponent getPok() { return pok; }
 
   @Override
   public byte[] getDerEncoding() {
+    return encoding;
+  }
+
+  private static byte[] makeEncoding(AttestationType type, FullProofOfExponent pok) {
     try {
       ASN1EncodableVector res = new ASN1EncodableVector();
       res.add(new ASN1Integer(type.ordinal()));
@@ -23,11 +23,13 @@ public class AttestationRequestWithUsage implements ASNEncodable, Verifiable {
   private final AsymmetricKeyParameter sessionPublicKey;
   private final AttestationType type;
   private final FullProofOfExponent pok;
+  private final byte[] encoding;
 
   public AttestationRequestWithUsage(AttestationType type, FullProofOfExponent pok, AsymmetricKeyParameter sessionPublicKey) {
     this.type = type;
     this.pok = pok;
     this.sessionPublicKey = sessionPublicKey;
+    this.encoding = makeEncoding(type, pok, sessionPublicKey);
 
     if (!verify()) {
       throw ExceptionUtil.throwException(logger,
@@ -36,6 +38,7 @@ public class AttestationRequestWithUsage implements ASNEncodable, Verifiable {
   }
 
   public AttestationRequestWithUsage(byte[] derEncoding) {
+    this.encoding = derEncoding;
     try {
       ASN1InputStream input = new ASN1InputStream(derEncoding);
       ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
@@ -65,6 +68,10 @@ public class AttestationRequestWithUsage implements ASNEncodable, Verifiable {
 
   @Override
   public byte[] getDerEncoding() {
+    return encoding;
+  }
+
+  private static byte[] makeEncoding(AttestationType type, FullProofOfExponent pok, AsymmetricKeyParameter sessionPublicKey) {
     try {
       ASN1EncodableVector res = new ASN1EncodableVector();
       res.add(new ASN1Integer(type.ordinal()));
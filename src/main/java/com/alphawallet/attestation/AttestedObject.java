@@ -3,35 +3,47 @@ package com.alphawallet.attestation;
 import com.alphawallet.attestation.core.ASNEncodable;
 import com.alphawallet.attestation.core.Attestable;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.DecodeResult;
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
+import com.alphawallet.attestation.core.RejectionCounter;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.StagedValidateable;
+import com.alphawallet.attestation.core.ValidationPipeline;
+import com.alphawallet.attestation.core.ValidationReport;
+import com.alphawallet.attestation.core.ValidationStage;
 import com.alphawallet.attestation.core.Verifiable;
 import java.io.IOException;
 import java.io.InvalidObjectException;
 import java.math.BigInteger;
-import java.util.Arrays;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.asn1.ASN1EncodableVector;
-import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DERBitString;
 import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
-import org.bouncycastle.crypto.util.PublicKeyFactory;
 
-public class AttestedObject<T extends Attestable> implements ASNEncodable, Verifiable {
+public class AttestedObject<T extends Attestable> implements ASNEncodable, Verifiable, StagedValidateable {
   private static final Logger logger = LogManager.getLogger(AttestedObject.class);
+  private static final RejectionCounter rejections = new RejectionCounter();
   private final T attestableObject;
   private final SignedIdentityAttestation att;
   private final ProofOfExponent pok;
   private final byte[] signature;
 
-  private final AsymmetricKeyParameter userPublicKey;
+  // Restored from the attestation on first use when decoding
+  private volatile AsymmetricKeyParameter userPublicKey;
 
-  private final byte[] unsignedEncoding;
+  // When decoding, the unsigned encoding is only copied out of the components once it is needed
+  private volatile byte[] unsignedEncoding;
+  private final DERView firstComponent;
+  private final DERView lastComponent;
   private final byte[] encoding;
 
   public AttestedObject(T attestableObject, SignedIdentityAttestation att, AsymmetricCipherKeyPair userKeys,
@@ -40,6 +52,8 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
     this.attestableObject = attestableObject;
     this.att = att;
     this.userPublicKey = userKeys.getPublic();
+    this.firstComponent = null;
+    this.lastComponent = null;
 
     try {
       this.pok = makeProof(attestationSecret, chequeSecret, crypto);
@@ -67,6 +81,8 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
     this.attestableObject = attestableObject;
     this.att = att;
     this.userPublicKey = userPublicKey;
+    this.firstComponent = null;
+    this.lastComponent = null;
 
     try {
       this.pok = makeProof(attestationSecret, chequeSecret, crypto);
@@ -91,6 +107,8 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
     this.att = att;
     this.pok = pok;
     this.signature = signature;
+    this.firstComponent = null;
+    this.lastComponent = null;
 
     try {
       ASN1EncodableVector vec = new ASN1EncodableVector();
@@ -100,7 +118,6 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
       this.unsignedEncoding = new DERSequence(vec).getEncoded();
       vec.add(new DERBitString(this.signature));
       this.encoding = new DERSequence(vec).getEncoded();
-      this.userPublicKey = PublicKeyFactory.createKey(att.getUnsignedAttestation().getSubjectPublicKeyInfo());
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not encode asn1", e);
     }
@@ -113,23 +130,17 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
   public AttestedObject(byte[] derEncoding, AttestableObjectDecoder<T> decoder,
                         AsymmetricKeyParameter publicAttestationSigningKey, byte[] userSignature) {
     try {
-      ASN1InputStream input = new ASN1InputStream(derEncoding);
-      ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
-      this.attestableObject = decoder.decode(asn1.getObjectAt(0).toASN1Primitive().getEncoded());
-      this.att = new SignedIdentityAttestation(asn1.getObjectAt(1).toASN1Primitive().getEncoded(), publicAttestationSigningKey);
-      this.pok = new UsageProofOfExponent(asn1.getObjectAt(2).toASN1Primitive().getEncoded());
-      this.unsignedEncoding = new DERSequence(Arrays.copyOfRange(asn1.toArray(), 0, 3)).getEncoded();
+      DERView asn1 = DERView.parse(derEncoding);
+      this.attestableObject = decoder.decode(asn1.getElement(0).getEncoded());
+      this.att = new SignedIdentityAttestation(asn1.getElement(1), publicAttestationSigningKey);
+      this.pok = new UsageProofOfExponent(asn1.getElement(2).getEncoded());
+      this.firstComponent = null;
+      this.lastComponent = null;
+      this.unsignedEncoding = DERView.encodeSequence(asn1.getElement(0), asn1.getElement(2));
       this.signature = userSignature;
-
-      //create full signed encoding
-      ASN1EncodableVector vec = new ASN1EncodableVector();
-      vec.add(ASN1Sequence.getInstance(this.attestableObject.getDerEncoding()));
-      vec.add(ASN1Sequence.getInstance(att.getDerEncoding()));
-      vec.add(ASN1Sequence.getInstance(pok.getDerEncoding()));
-      vec.add(new DERBitString(this.signature));
-      this.encoding = new DERSequence(vec).getEncoded();
-
-      this.userPublicKey = PublicKeyFactory.createKey(att.getUnsignedAttestation().getSubjectPublicKeyInfo());
+      // Create full signed encoding
+      this.encoding = DERView.encodeSequence(asn1.getElement(0), asn1.getElement(2),
+          DERView.encodeBitString(this.signature));
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode asn1", e);
     }
@@ -139,32 +150,93 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
     }
   }
 
+  /**
+   * Decodes an attested object.
+   * The components are sliced out of the encoding instead of being re-encoded, and the unsigned
+   * encoding is constructed by copying the components in a single pass when it is first needed.
+   * The public key of the user is only restored from the attestation when it is needed.
+   */
   public AttestedObject(byte[] derEncoding, AttestableObjectDecoder<T> decoder,
       AsymmetricKeyParameter attestationVerificationKey) {
+    this(derEncoding, decoder, attestationVerificationKey, true);
+  }
+
+  private AttestedObject(byte[] derEncoding, AttestableObjectDecoder<T> decoder,
+      AsymmetricKeyParameter attestationVerificationKey, boolean verify) {
     try {
-      ASN1InputStream input = new ASN1InputStream(derEncoding);
-      ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
-      this.attestableObject = decoder.decode(asn1.getObjectAt(0).toASN1Primitive().getEncoded());
-      this.att = new SignedIdentityAttestation(asn1.getObjectAt(1).toASN1Primitive().getEncoded(), attestationVerificationKey);
-      this.pok = new UsageProofOfExponent(asn1.getObjectAt(2).toASN1Primitive().getEncoded());
-      this.unsignedEncoding = new DERSequence(Arrays.copyOfRange(asn1.toArray(), 0, 3)).getEncoded();
+      DERView asn1 = DERView.parse(derEncoding);
+      byte[] objectEncoding = asn1.getElement(0).getEncoded();
+      this.attestableObject = verify ? decoder.decode(objectEncoding) : decoder.decodeUnverified(objectEncoding);
+      if (attestableObject == null) {
+        throw RejectedEncodingException.INSTANCE;
+      }
+      this.att = new SignedIdentityAttestation(asn1.getElement(1), attestationVerificationKey, verify);
+      this.pok = new UsageProofOfExponent(asn1.getElement(2).getEncoded(), verify);
+      this.firstComponent = asn1.getElement(0);
+      this.lastComponent = asn1.getElement(2);
       if (asn1.size() > 3) {
-        this.signature = DERBitString.getInstance(asn1.getObjectAt(3)).getBytes();
+        this.signature = asn1.getElement(3).getBitStringBytes();
         this.encoding = derEncoding;
       } else{
         this.signature = null;
-        this.encoding = unsignedEncoding;
+        this.encoding = getDerEncoding();
       }
-      this.userPublicKey = PublicKeyFactory.createKey(att.getUnsignedAttestation().getSubjectPublicKeyInfo());
     } catch (IOException e) {
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode asn1", e);
     }
-    if (!verify()) {
+    if (verify && !verify()) {
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Signature is not valid"));
     }
   }
 
+  /**
+   * Decodes an attested object without verifying it, such that the validation can be staged.
+   * The components are only decoded as far as needed to slice them, the remaining fields are
+   * decoded when they are first used. The object must be validated through ValidationPipeline
+   * before use.
+   * @return The object, or null if the encoding is malformed
+   */
+  public static <T extends Attestable> AttestedObject<T> decodeUnverified(byte[] derEncoding,
+      AttestableObjectDecoder<T> decoder, AsymmetricKeyParameter attestationVerificationKey) {
+    try {
+      return new AttestedObject<>(derEncoding, decoder, attestationVerificationKey, false);
+    } catch (RejectedEncodingException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes and validates an attested object stage by stage, such that e.g. objects with an
+   * expired attestation are rejected before the attestation, the proof and the signature of the
+   * user are verified. The attestable object is validated through its own stages.
+   */
+  public static <T extends Attestable> ValidationReport<AttestedObject<T>> validate(byte[] derEncoding,
+      AttestableObjectDecoder<T> decoder, AsymmetricKeyParameter attestationVerificationKey) {
+    return ValidationPipeline.validate(
+        () -> decodeUnverified(derEncoding, decoder, attestationVerificationKey));
+  }
+
+  /**
+   * Decodes and validates an attested object like validate, but without timing the stages.
+   * Invalid objects are neither logged nor thrown, the reason is returned and counted instead.
+   */
+  public static <T extends Attestable> DecodeResult<AttestedObject<T>> tryDecode(byte[] derEncoding,
+      AttestableObjectDecoder<T> decoder, AsymmetricKeyParameter attestationVerificationKey) {
+    return ValidationPipeline.tryValidate(
+        () -> decodeUnverified(derEncoding, decoder, attestationVerificationKey), rejections);
+  }
+
+  /**
+   * Returns the amount of objects rejected by tryDecode for reason
+   */
+  public static long getRejections(RejectionReason reason) {
+    return rejections.get(reason);
+  }
+
   public T getAttestableObject() {
     return attestableObject;
   }
@@ -182,7 +254,32 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
   }
 
   public AsymmetricKeyParameter getUserPublicKey() {
-    return userPublicKey;
+    try {
+      return restoreUserPublicKey();
+    } catch (IOException e) {
+      throw ExceptionUtil.makeRuntimeException(logger, "Could not restore the public key of the user", e);
+    }
+  }
+
+  /**
+   * Returns the public key of the user, or null without logging if it cannot be restored
+   */
+  private AsymmetricKeyParameter tryGetUserPublicKey() {
+    try {
+      return restoreUserPublicKey();
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private AsymmetricKeyParameter restoreUserPublicKey() throws IOException {
+    AsymmetricKeyParameter res = userPublicKey;
+    if (res == null) {
+      // Restoring is idempotent and the keys are interned, so a race is harmless
+      res = SignatureUtility.restoreKeyFromSPKI(att.getUnsignedAttestation().getSubjectPublicKeyInfo());
+      userPublicKey = res;
+    }
+    return res;
   }
 
   /**
@@ -214,8 +311,8 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
     }
 
     // CHECK: the Ethereum address on the attestation matches receivers signing key
-    String attestationEthereumAddress = getAtt().getUnsignedAttestation().getAddress();
-    if (!attestationEthereumAddress.equals(SignatureUtility.addressFromKey(getUserPublicKey()))) {
+    EthereumAddress attestationEthereumAddress = getAtt().getUnsignedAttestation().getEthereumAddress();
+    if (!attestationEthereumAddress.equals(SignatureUtility.ethereumAddressFromKey(getUserPublicKey()))) {
       logger.error("The attestation is not to the same Ethereum user who is sending this request");
       return false;
     }
@@ -224,9 +321,9 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
     if (signature != null) {
       SubjectPublicKeyInfo spki = getAtt().getUnsignedAttestation().getSubjectPublicKeyInfo();
       try {
-        AsymmetricKeyParameter parsedSubjectKey = PublicKeyFactory.createKey(spki);
+        AsymmetricKeyParameter parsedSubjectKey = SignatureUtility.restoreKeyFromSPKI(spki);
         if (!SignatureUtility
-            .verifyPersonalEthereumSignature(this.unsignedEncoding, this.signature, parsedSubjectKey)) {
+            .verifyPersonalEthereumSignature(getDerEncoding(), this.signature, parsedSubjectKey)) {
           logger.error("The signature on RedeemCheque is not valid");
           return false;
         }
@@ -248,12 +345,12 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
       logger.error("Could not verify attestation");
       return false;
     }
-    if (!AttestationCrypto.verifyEqualityProof(att.getUnsignedAttestation().getCommitment(), attestableObject.getCommitment(), pok)) {
+    if (!AttestationCrypto.verifyEqualityProof(att.getUnsignedAttestation().getCommitmentPoint(), attestableObject.getCommitmentPoint(), pok)) {
       logger.error("Could not verify the consistency between the commitment in the attestation and the attested object");
       return false;
     }
     if (signature != null) {
-      if (!SignatureUtility.verifyPersonalEthereumSignature(unsignedEncoding, signature, userPublicKey)) {
+      if (!SignatureUtility.verifyPersonalEthereumSignature(getDerEncoding(), signature, getUserPublicKey())) {
         logger.error("Could not verify the signature");
         return false;
       }
@@ -261,6 +358,30 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
     return true;
   }
 
+  @Override
+  public boolean checkStage(ValidationStage stage) {
+    if (!att.checkStage(stage) || !attestableObject.checkStage(stage)) {
+      return false;
+    }
+    switch (stage) {
+      case STRUCTURE:
+        // The attestation must be to the same Ethereum user who is sending this request
+        EthereumAddress attestationEthereumAddress = att.getUnsignedAttestation().tryGetEthereumAddress();
+        AsymmetricKeyParameter userKey = tryGetUserPublicKey();
+        return attestationEthereumAddress != null && userKey != null
+            && attestationEthereumAddress.equals(SignatureUtility.ethereumAddressFromKey(userKey));
+      case SIGNATURE:
+        // The key was restored in the STRUCTURE stage
+        return signature == null
+            || SignatureUtility.isValidPersonalEthereumSignature(getDerEncoding(), signature, getUserPublicKey());
+      case PROOF:
+        return AttestationCrypto.verifyEqualityProof(att.getUnsignedAttestation().getCommitmentPoint(),
+            attestableObject.getCommitmentPoint(), pok);
+      default:
+        return true;
+    }
+  }
+
   private ProofOfExponent makeProof(BigInteger attestationSecret, BigInteger objectSecret, AttestationCrypto crypto) {
     // TODO Bob should actually verify the attestable object is valid before trying to cash it to avoid wasting gas
     // We require that the internal attestation is an IdentifierAttestation
@@ -276,7 +397,13 @@ public class AttestedObject<T extends Attestable> implements ASNEncodable, Verif
 
   @Override
   public byte[] getDerEncoding() {
-    return unsignedEncoding;
+    byte[] res = unsignedEncoding;
+    if (res == null) {
+      // Copying concurrently in more than one thread is harmless since the copies are equal
+      res = DERView.encodeSequence(firstComponent, lastComponent);
+      unsignedEncoding = res;
+    }
+    return res;
   }
 
   // TODO override equals and hashcode
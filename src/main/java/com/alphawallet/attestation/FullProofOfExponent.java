@@ -2,6 +2,7 @@ package com.alphawallet.attestation;
 
 import com.alphawallet.attestation.core.AttestationCrypto;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
 import java.io.IOException;
 import java.math.BigInteger;
 import org.apache.logging.log4j.LogManager;
@@ -16,17 +17,12 @@ import org.bouncycastle.math.ec.ECPoint;
 
 public class FullProofOfExponent implements ProofOfExponent {
   private static final Logger logger = LogManager.getLogger(FullProofOfExponent.class);
-  private final ECPoint riddle;
-  private final ECPoint tPoint;
-  private final BigInteger challenge;
-  private final byte[] nonce;
+  // Null until first use for proofs decoded without verification
+  private volatile Components components;
   private final byte[] encoding;
 
   public FullProofOfExponent(ECPoint riddle, ECPoint tPoint, BigInteger challenge, byte[] nonce) {
-    this.riddle = riddle;
-    this.tPoint = tPoint;
-    this.challenge = challenge;
-    this.nonce = nonce;
+    this.components = new Components(riddle, tPoint, challenge, nonce);
     this.encoding = makeEncoding(riddle, tPoint, challenge, nonce);
   }
 
@@ -35,24 +31,59 @@ public class FullProofOfExponent implements ProofOfExponent {
   }
 
   public FullProofOfExponent(byte[] derEncoded) {
+    this(derEncoded, true);
+  }
+
+  /**
+   * Decodes a proof, logging a malformed encoding only if verify is set. Otherwise the points are
+   * only decoded on first use, and RejectedEncodingException is thrown then if the proof is
+   * malformed.
+   */
+  FullProofOfExponent(byte[] derEncoded, boolean verify) {
     this.encoding = derEncoded;
+    if (verify) {
+      this.components = decode(derEncoded, true);
+    }
+  }
+
+  private static Components decode(byte[] derEncoded, boolean verify) {
     try {
       ASN1InputStream input = new ASN1InputStream(derEncoded);
       ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
       int asn1counter = 0;
       ASN1OctetString riddleEnc = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++));
-      this.riddle = AttestationCrypto.decodePoint(riddleEnc.getOctets());
+      ECPoint riddle = AttestationCrypto.decodePoint(riddleEnc.getOctets());
       ASN1OctetString challengeEnc = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++));
-      this.challenge = new BigInteger(challengeEnc.getOctets());
+      BigInteger challenge = new BigInteger(challengeEnc.getOctets());
       ASN1OctetString tPointEnc = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++));
-      this.tPoint = AttestationCrypto.decodePoint(tPointEnc.getOctets());
-      this.nonce = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++)).getOctets();
+      ECPoint tPoint = AttestationCrypto.decodePoint(tPointEnc.getOctets());
+      byte[] nonce = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++)).getOctets();
+      return new Components(riddle, tPoint, challenge, nonce);
     } catch (IOException e) {
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode asn1", e);
+    } catch (IllegalArgumentException e) {
+      // Thrown for invalid points as well as for malformed components
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
+      throw ExceptionUtil.throwException(logger, e);
     }
   }
 
-  private byte[] makeEncoding(ECPoint riddle, ECPoint tPoint, BigInteger challenge, byte[] nonce) {
+  private Components getComponents() {
+    Components res = components;
+    if (res == null) {
+      // Decoding concurrently in more than one thread is harmless since the components are immutable
+      res = decode(encoding, false);
+      components = res;
+    }
+    return res;
+  }
+
+  private static byte[] makeEncoding(ECPoint riddle, ECPoint tPoint, BigInteger challenge, byte[] nonce) {
     try {
       ASN1EncodableVector res = new ASN1EncodableVector();
       res.add(new DEROctetString(riddle.getEncoded(false)));
@@ -66,24 +97,25 @@ public class FullProofOfExponent implements ProofOfExponent {
   }
 
   public ECPoint getRiddle() {
-    return riddle;
+    return getComponents().riddle;
   }
 
   @Override
   public ECPoint getPoint() {
-    return tPoint;
+    return getComponents().tPoint;
   }
 
   @Override
   public BigInteger getChallenge() {
-    return challenge;
+    return getComponents().challenge;
   }
 
   @Override
-  public byte[] getNonce() { return nonce; }
+  public byte[] getNonce() { return getComponents().nonce; }
 
   public UsageProofOfExponent getUsageProofOfExponent() {
-    return new UsageProofOfExponent(tPoint, challenge, nonce);
+    Components current = getComponents();
+    return new UsageProofOfExponent(current.tPoint, current.challenge, current.nonce);
   }
 
   @Override
@@ -91,4 +123,17 @@ public class FullProofOfExponent implements ProofOfExponent {
     return encoding;
   }
 
+  private static final class Components {
+    private final ECPoint riddle;
+    private final ECPoint tPoint;
+    private final BigInteger challenge;
+    private final byte[] nonce;
+
+    private Components(ECPoint riddle, ECPoint tPoint, BigInteger challenge, byte[] nonce) {
+      this.riddle = riddle;
+      this.tPoint = tPoint;
+      this.challenge = challenge;
+      this.nonce = nonce;
+    }
+  }
 }
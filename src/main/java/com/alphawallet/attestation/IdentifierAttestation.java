@@ -3,6 +3,7 @@ package com.alphawallet.attestation;
 import static com.alphawallet.attestation.core.AttestationCrypto.BYTES_IN_DIGEST;
 
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.ExceptionUtil;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.URLUtility;
@@ -34,8 +35,8 @@ import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
-import org.bouncycastle.crypto.util.PublicKeyFactory;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
+import org.bouncycastle.math.ec.ECPoint;
 
 public class IdentifierAttestation extends Attestation implements Validateable {
   public enum AttestationType {
@@ -70,6 +71,8 @@ public class IdentifierAttestation extends Attestation implements Validateable {
 
   private final String identity;
   private final String type;
+  // The commitment extracted from the current extensions, replaced whenever the extensions change
+  private volatile MemoizedCommitment memoizedCommitment;
   /**
    * Constructs a new identifier attestation based on a secret, with unlimited validity by default
    * You still need to set the optional fields, that is
@@ -139,8 +142,16 @@ public class IdentifierAttestation extends Attestation implements Validateable {
   }
 
   public IdentifierAttestation(byte[] derEncoding) throws IOException, IllegalArgumentException {
+    this(derEncoding, true);
+  }
+
+  /**
+   * Decodes an attestation, checking its validity only if validate is set.
+   * Staged validation checks the validity itself, in the TIME stage.
+   */
+  IdentifierAttestation(byte[] derEncoding, boolean validate) throws IOException, IllegalArgumentException {
     super(derEncoding);
-    if (!checkValidity()) {
+    if (validate && !checkValidity()) {
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Could not validate object"));
     }
@@ -181,59 +192,93 @@ public class IdentifierAttestation extends Attestation implements Validateable {
 
   /**
    * Verifies that the the attestation is in fact a valid identity attestation, in relation to field values.
-   * @return true if the field values reflect that this is a standard attestation
+   * @return null if the field values reflect that this is a standard attestation, otherwise the reason they do not
    */
   @Override
-  public boolean checkValidity() {
-    if (!super.checkValidity()) {
-      logger.error("Could not check validity of the underlying attestation");
-      return false;
+  String findValidityError(long currentTime) {
+    String error = super.findValidityError(currentTime);
+    if (error != null) {
+      return error;
     }
     if (getVersion() != HIDDEN_IDENTIFIER_VERSION && getVersion() != NFT_VERSION) {
-      logger.error("The version number is " + getVersion() + ", it must be either " + HIDDEN_IDENTIFIER_VERSION + " or " + NFT_VERSION);
-      return false;
+      return "The version number is " + getVersion() + ", it must be either " + HIDDEN_IDENTIFIER_VERSION + " or " + NFT_VERSION;
     }
     if (!getSigningAlgorithm().equals(DEFAULT_SIGNING_ALGORITHM)) {
-      logger.error("The subject is supposed to only be an Ethereum address as the Common Name");
-      return false;
+      return "The subject is supposed to only be an Ethereum address as the Common Name";
     }
     if (getVersion() == NFT_VERSION) {
       String subject = getSubject();
       if (!subject.contains(LABELED_URI.getId())) {
-        logger.error("A NFT Identifier attestation must have a labeled uri as subject");
-        return false;
+        return "A NFT Identifier attestation must have a labeled uri as subject";
       }
     }
     if (getVersion() == HIDDEN_IDENTIFIER_VERSION) {
       // Ensure that there is a commitment as part of the attestation
       try {
         if (getCommitment().length < BYTES_IN_DIGEST) {
-          logger.error("The attestation does not contain a valid commitment");
-          return false;
+          return "The attestation does not contain a valid commitment";
         }
       } catch (Exception e) {
-        logger.error("It was not possible to decode the attestation commitment");
-        return false;
+        return "It was not possible to decode the attestation commitment";
       }
     }
-    return true;
+    return null;
   }
 
   public byte[] getCommitment() {
-    // Need to decode twice since the standard ASN1 encodes the octet string in an octet string
-    ASN1Sequence extensions = DERSequence.getInstance(getExtensions().getObjectAt(0));
-    // Index in the second DER sequence is 2 since the third object in an extension is the actual value
-    return ASN1OctetString.getInstance(extensions.getObjectAt(2)).getOctets();
+    return getMemoizedCommitment().encoded;
+  }
+
+  /**
+   * Returns the commitment decoded as a normalized point. The point is only decoded once.
+   */
+  public ECPoint getCommitmentPoint() {
+    MemoizedCommitment current = getMemoizedCommitment();
+    // Decoding concurrently in more than one thread is harmless since the point is immutable
+    if (current.point == null) {
+      current.point = AttestationCrypto.decodePoint(current.encoded);
+    }
+    return current.point;
+  }
+
+  private MemoizedCommitment getMemoizedCommitment() {
+    ASN1Sequence currentExtensions = getExtensions();
+    MemoizedCommitment current = memoizedCommitment;
+    if (current == null || current.extensions != currentExtensions) {
+      // Need to decode twice since the standard ASN1 encodes the octet string in an octet string
+      ASN1Sequence extensions = DERSequence.getInstance(currentExtensions.getObjectAt(0));
+      // Index in the second DER sequence is 2 since the third object in an extension is the actual value
+      byte[] encoded = ASN1OctetString.getInstance(extensions.getObjectAt(2)).getOctets();
+      current = new MemoizedCommitment(currentExtensions, encoded);
+      memoizedCommitment = current;
+    }
+    return current;
   }
 
   public String getAddress() {
+    return getEthereumAddress().toString();
+  }
+
+  public EthereumAddress getEthereumAddress() {
     try {
-      return SignatureUtility.addressFromKey(PublicKeyFactory.createKey(getSubjectPublicKeyInfo()));
+      return SignatureUtility.ethereumAddressFromKey(SignatureUtility.restoreKeyFromSPKI(getSubjectPublicKeyInfo()));
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode the address", e);
     }
   }
 
+  /**
+   * Returns the address like getEthereumAddress, but returns null rather than logging and throwing
+   * if the subject public key cannot be decoded, for staged validation of untrusted attestations
+   */
+  public EthereumAddress tryGetEthereumAddress() {
+    try {
+      return SignatureUtility.ethereumAddressFromKey(SignatureUtility.restoreKeyFromSPKI(getSubjectPublicKeyInfo()));
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
   /**
    * Set a commitment and sets it as an Attribute on the Attestation/
    * @return A proof of knowledge of the riddle
@@ -282,4 +327,15 @@ public class IdentifierAttestation extends Attestation implements Validateable {
     throw ExceptionUtil.throwException(logger,
         new RuntimeException("Not allowed to be manually set in concrete Attestation"));
   }
+
+  private static final class MemoizedCommitment {
+    private final ASN1Sequence extensions;
+    private final byte[] encoded;
+    private volatile ECPoint point;
+
+    private MemoizedCommitment(ASN1Sequence extensions, byte[] encoded) {
+      this.extensions = extensions;
+      this.encoded = encoded;
+    }
+  }
 }
@@ -1,58 +1,94 @@
 package com.alphawallet.attestation;
 
 import com.alphawallet.attestation.core.ASNEncodable;
+import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.BoundedCache;
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.DerivedEncoding;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.StagedValidateable;
 import com.alphawallet.attestation.core.Validateable;
+import com.alphawallet.attestation.core.ValidationStage;
 import com.alphawallet.attestation.core.Verifiable;
 import java.io.IOException;
-import java.io.InvalidObjectException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.Date;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.asn1.ASN1EncodableVector;
-import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
-import org.bouncycastle.asn1.ASN1Primitive;
-import org.bouncycastle.asn1.ASN1Sequence;
-import org.bouncycastle.asn1.DERBitString;
-import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 
-public class SignedIdentityAttestation implements ASNEncodable, Verifiable, Validateable {
+public class SignedIdentityAttestation implements ASNEncodable, Verifiable, Validateable, StagedValidateable {
   private static final Logger logger = LogManager.getLogger(SignedIdentityAttestation.class);
 
   public static final AlgorithmIdentifier ECDSA_WITH_SHA256 = new AlgorithmIdentifier(new ASN1ObjectIdentifier("1.2.840.10045.4.3.2"));
 
-  private final IdentifierAttestation att;
+  // Maximum amount of attestations for which a successful signature verification is remembered
+  private static final int VERIFIED_CACHE_SIZE = 100000;
+  private static final BoundedCache<ByteBuffer, Boolean> verifiedCache = new BoundedCache<>(VERIFIED_CACHE_SIZE);
+
+  // When decoding without verification, only the view of the attestation is kept until it is used
+  private volatile IdentifierAttestation att;
+  private final DERView attestationEncoding;
   private final byte[] signature;
   private final AsymmetricKeyParameter attestationVerificationKey;
+  private final DerivedEncoding encoding = new DerivedEncoding();
 
   public SignedIdentityAttestation(IdentifierAttestation att, AsymmetricCipherKeyPair attestationSigningKey) {
     this.att = att;
+    this.attestationEncoding = null;
     this.signature = SignatureUtility.signWithEthereum(att.getPrehash(), attestationSigningKey.getPrivate());
     this.attestationVerificationKey = attestationSigningKey.getPublic();
     constructorCheck(attestationSigningKey.getPublic());
   }
 
   public SignedIdentityAttestation(byte[] derEncoding, AsymmetricKeyParameter verificationKey) throws IOException {
-    ASN1InputStream input = new ASN1InputStream(derEncoding);
-    ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
-    ASN1Sequence attestationEnc = ASN1Sequence.getInstance(asn1.getObjectAt(0));
-    AlgorithmIdentifier algorithmEncoded = AlgorithmIdentifier.getInstance(asn1.getObjectAt(1));
-    // TODO ideally this should be refactored to SignedAttestation being augmented with an generic
-    // Attestation type and an encoder to construct such an attestation
-    this.att = new IdentifierAttestation(attestationEnc.getEncoded());
-    DERBitString signatureEnc = DERBitString.getInstance(asn1.getObjectAt(2));
-    this.signature = signatureEnc.getBytes();
-    this.attestationVerificationKey = verificationKey;
-    if (!algorithmEncoded.equals(att.getSigningAlgorithm())) {
+    this(DERView.parse(derEncoding), verificationKey);
+  }
+
+  /**
+   * Decodes a signed attestation from a view, e.g. of a component of a larger object, such that
+   * the components are sliced out of the encoding instead of re-encoded
+   */
+  SignedIdentityAttestation(DERView derEncoding, AsymmetricKeyParameter verificationKey) throws IOException {
+    this(derEncoding, verificationKey, true);
+  }
+
+  /**
+   * Decodes a signed attestation from a view, verifying and validating it only if verify is set.
+   * Unverified attestations must be validated through ValidationPipeline before use, and the
+   * unsigned attestation is not decoded until it is first used.
+   */
+  SignedIdentityAttestation(DERView derEncoding, AsymmetricKeyParameter verificationKey, boolean verify) throws IOException {
+    DERView attestationEnc = derEncoding.getElement(0);
+    // The algorithm must be the one in the attestation, which follows the version and serial number.
+    // The encodings are compared as they are, such that the attestation need not be decoded for it.
+    if (!derEncoding.getElement(1).hasSameEncoding(attestationEnc.getElement(2))) {
+      if (!verify) {
+        // Staged validation reports the rejection itself
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Algorithm specified is not consistent"));
     }
-    constructorCheck(verificationKey);
+    this.signature = derEncoding.getElement(2).getBitStringBytes();
+    this.attestationVerificationKey = verificationKey;
+    if (verify) {
+      // TODO ideally this should be refactored to SignedAttestation being augmented with an generic
+      // Attestation type and an encoder to construct such an attestation
+      this.att = new IdentifierAttestation(attestationEnc.getEncoded(), true);
+      this.attestationEncoding = null;
+      constructorCheck(verificationKey);
+    } else {
+      this.attestationEncoding = attestationEnc;
+    }
   }
 
   void constructorCheck(AsymmetricKeyParameter verificationKey) {
@@ -67,6 +103,26 @@ public class SignedIdentityAttestation implements ASNEncodable, Verifiable, Vali
   }
 
   public IdentifierAttestation getUnsignedAttestation() {
+    IdentifierAttestation res = att;
+    if (res == null) {
+      res = decodeAttestation();
+    }
+    return res;
+  }
+
+  /**
+   * Decodes the attestation of an unverified signed attestation. The attestation is mutable, so it
+   * is decoded under the lock, such that all callers get the same instance.
+   * @throws RejectedEncodingException if the attestation is malformed
+   */
+  private synchronized IdentifierAttestation decodeAttestation() {
+    if (att == null) {
+      try {
+        att = new IdentifierAttestation(attestationEncoding.getEncoded(), false);
+      } catch (IOException | RuntimeException e) {
+        throw RejectedEncodingException.INSTANCE;
+      }
+    }
     return att;
   }
 
@@ -79,20 +135,30 @@ public class SignedIdentityAttestation implements ASNEncodable, Verifiable, Vali
    */
   public AsymmetricKeyParameter getAttestationVerificationKey() { return attestationVerificationKey; }
 
+  /**
+   * Returns the encoding of the signed attestation, which is memoized for as long as the
+   * unsigned attestation is not modified
+   */
   @Override
   public byte[] getDerEncoding() {
-    return constructSignedAttestation(this.att, this.signature);
+    IdentifierAttestation unsignedAtt = getUnsignedAttestation();
+    return encoding.get(unsignedAtt.getPrehash(), rawAtt -> constructSignedAttestation(unsignedAtt, rawAtt, signature));
   }
 
   static byte[] constructSignedAttestation(Attestation unsignedAtt, byte[] signature) {
+    return constructSignedAttestation(unsignedAtt, unsignedAtt.getPrehash(), signature);
+  }
+
+  private static byte[] constructSignedAttestation(Attestation unsignedAtt, byte[] rawAtt, byte[] signature) {
     try {
-      byte[] rawAtt = unsignedAtt.getPrehash();
-      ASN1EncodableVector res = new ASN1EncodableVector();
-      res.add(ASN1Primitive.fromByteArray(rawAtt));
-      res.add(unsignedAtt.getSigningAlgorithm());
-      res.add(new DERBitString(signature));
-      return new DERSequence(res).getEncoded();
-    } catch (Exception e) {
+      // The method returns null if the attestation is not valid
+      if (rawAtt == null) {
+        throw new IOException("The attestation is not valid");
+      }
+      // The encoded attestation is copied as is rather than parsed and re-encoded
+      return DERView.encodeSequence(rawAtt, unsignedAtt.getSigningAlgorithm().getEncoded(ASN1Encoding.DER),
+          DERView.encodeBitString(signature));
+    } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not encode asn1", e);
     }
   }
@@ -102,18 +168,83 @@ public class SignedIdentityAttestation implements ASNEncodable, Verifiable, Vali
     return getUnsignedAttestation().checkValidity();
   }
 
+  /**
+   * Verifies the signature on the attestation.
+   * The same attestations are presented repeatedly, so successful verifications of ECDSA signatures
+   * are cached until the attestation expires. The cache is keyed by the Keccak digest of the
+   * encoded attestation, the signature and the verification key.
+   */
   @Override
   public boolean verify() {
-    try {
-      if (!SignatureUtility.verifyEthereumSignature(att.getDerEncoding(), signature, attestationVerificationKey)) {
-        logger.error("Could not verify signature");
-        return false;
+    if (!isSignatureValid()) {
+      logger.error("Could not verify signature");
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean checkStage(ValidationStage stage) {
+    switch (stage) {
+      case STRUCTURE:
+        return attestationVerificationKey instanceof ECPublicKeyParameters;
+      case TIME:
+        return getUnsignedAttestation().findValidityError(Clock.systemUTC().millis()) == null;
+      case SIGNATURE:
+        return isSignatureValid();
+      default:
+        return true;
+    }
+  }
+
+  private boolean isSignatureValid() {
+    // The attestation is only encoded if it is valid
+    IdentifierAttestation unsignedAtt = getUnsignedAttestation();
+    byte[] unsignedEncoding = unsignedAtt.getPrehash();
+    if (unsignedEncoding == null) {
+      return false;
+    }
+    ByteBuffer cacheKey = null;
+    if (attestationVerificationKey instanceof ECPublicKeyParameters) {
+      cacheKey = verificationCacheKey(unsignedEncoding, (ECPublicKeyParameters) attestationVerificationKey);
+      if (verifiedCache.get(cacheKey) != null) {
+        return true;
       }
-    } catch (InvalidObjectException e) {
-      logger.error("Could not decode the signature");
+    }
+    if (!SignatureUtility.isValidEthereumSignature(unsignedEncoding, signature,
+        SignatureUtility.ethereumAddressFromKey(attestationVerificationKey), 0)) {
       return false;
     }
+    if (cacheKey != null) {
+      Date notValidAfter = unsignedAtt.getNotValidAfter();
+      verifiedCache.put(cacheKey, Boolean.TRUE,
+          notValidAfter != null ? notValidAfter.getTime() : BoundedCache.NO_EXPIRY);
+    }
     return true;
   }
 
-}
\ No newline at end of file
+  private ByteBuffer verificationCacheKey(byte[] unsignedEncoding, ECPublicKeyParameters verificationKey) {
+    byte[] encodedKey = verificationKey.getQ().getEncoded(false);
+    byte[] toHash = new byte[unsignedEncoding.length + signature.length + encodedKey.length];
+    System.arraycopy(unsignedEncoding, 0, toHash, 0, unsignedEncoding.length);
+    System.arraycopy(signature, 0, toHash, unsignedEncoding.length, signature.length);
+    System.arraycopy(encodedKey, 0, toHash, unsignedEncoding.length + signature.length, encodedKey.length);
+    return ByteBuffer.wrap(AttestationCrypto.hashWithKeccak(toHash));
+  }
+
+  /**
+   * Returns the amount of signature verifications which were skipped since the attestation had
+   * already been verified
+   */
+  public static long getVerifiedCacheHits() {
+    return verifiedCache.getHits();
+  }
+
+  /**
+   * Returns the amount of signature verifications which could not be answered from the cache
+   */
+  public static long getVerifiedCacheMisses() {
+    return verifiedCache.getMisses();
+  }
+
+}
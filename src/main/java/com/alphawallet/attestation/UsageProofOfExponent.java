@@ -2,6 +2,7 @@ package com.alphawallet.attestation;
 
 import com.alphawallet.attestation.core.AttestationCrypto;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
 import java.io.IOException;
 import java.math.BigInteger;
 import org.apache.logging.log4j.LogManager;
@@ -16,16 +17,13 @@ import org.bouncycastle.math.ec.ECPoint;
 
 public class UsageProofOfExponent implements ProofOfExponent {
   private static final Logger logger = LogManager.getLogger(UsageProofOfExponent.class);
-  private final ECPoint tPoint;
-  private final BigInteger challenge;
-  private final byte[] nonce;
+  // Decoded from the encoding on first use, unless the proof is verified on construction
+  private volatile Components components;
   private final byte[] encoding;
 
   public UsageProofOfExponent(ECPoint tPoint, BigInteger challenge, byte[] nonce) {
-    this.tPoint = tPoint;
-    this.challenge = challenge;
-    this.nonce = nonce;
-    this.encoding = makeEncoding(tPoint, challenge);
+    this.components = new Components(tPoint, challenge, nonce);
+    this.encoding = makeEncoding(tPoint, challenge, nonce);
   }
 
   public UsageProofOfExponent(ECPoint tPoint, BigInteger challenge) {
@@ -33,22 +31,57 @@ public class UsageProofOfExponent implements ProofOfExponent {
   }
 
   public UsageProofOfExponent(byte[] derEncoded) {
+    this(derEncoded, true);
+  }
+
+  /**
+   * Decodes a proof, logging a malformed encoding only if verify is set. Otherwise the components
+   * are only decoded on first use, and RejectedEncodingException is thrown then if they are
+   * malformed, such that staged validation can reject them quietly.
+   */
+  UsageProofOfExponent(byte[] derEncoded, boolean verify) {
     this.encoding = derEncoded;
+    if (verify) {
+      this.components = decode(derEncoded, true);
+    }
+  }
+
+  private static Components decode(byte[] derEncoded, boolean verify) {
     try {
       ASN1InputStream input = new ASN1InputStream(derEncoded);
       ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
       int asn1counter = 0;
       ASN1OctetString challengeEnc = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++));
-      this.challenge = new BigInteger(challengeEnc.getOctets());
+      BigInteger challenge = new BigInteger(challengeEnc.getOctets());
       ASN1OctetString tPointEnc = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++));
-      this.tPoint = AttestationCrypto.decodePoint(tPointEnc.getOctets());
-      this.nonce = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++)).getOctets();
+      ECPoint tPoint = AttestationCrypto.decodePoint(tPointEnc.getOctets());
+      byte[] nonce = ASN1OctetString.getInstance(asn1.getObjectAt(asn1counter++)).getOctets();
+      return new Components(tPoint, challenge, nonce);
     } catch (IOException e) {
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode asn1", e);
+    } catch (IllegalArgumentException e) {
+      // Thrown for invalid points as well as for malformed components
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
+      throw ExceptionUtil.throwException(logger, e);
     }
   }
 
-  private byte[] makeEncoding(ECPoint tPoint, BigInteger challenge) {
+  private Components getComponents() {
+    Components res = components;
+    if (res == null) {
+      // Decoding concurrently in more than one thread is harmless since the components are immutable
+      res = decode(encoding, false);
+      components = res;
+    }
+    return res;
+  }
+
+  private static byte[] makeEncoding(ECPoint tPoint, BigInteger challenge, byte[] nonce) {
     try {
       ASN1EncodableVector res = new ASN1EncodableVector();
       res.add(new DEROctetString(challenge.toByteArray()));
@@ -62,20 +95,31 @@ public class UsageProofOfExponent implements ProofOfExponent {
 
   @Override
   public ECPoint getPoint() {
-    return tPoint;
+    return getComponents().tPoint;
   }
 
   @Override
   public BigInteger getChallenge() {
-    return challenge;
+    return getComponents().challenge;
   }
 
   @Override
-  public byte[] getNonce() { return nonce; }
+  public byte[] getNonce() { return getComponents().nonce; }
 
   @Override
   public byte[] getDerEncoding() {
     return encoding;
   }
 
+  private static final class Components {
+    private final ECPoint tPoint;
+    private final BigInteger challenge;
+    private final byte[] nonce;
+
+    private Components(ECPoint tPoint, BigInteger challenge, byte[] nonce) {
+      this.tPoint = tPoint;
+      this.challenge = challenge;
+      this.nonce = nonce;
+    }
+  }
 }
@@ -3,27 +3,38 @@ package com.alphawallet.attestation;
 import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.core.ASNEncodable;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.DecodeResult;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
+import com.alphawallet.attestation.core.RejectionCounter;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.StagedValidateable;
 import com.alphawallet.attestation.core.Validateable;
+import com.alphawallet.attestation.core.ValidationPipeline;
+import com.alphawallet.attestation.core.ValidationReport;
+import com.alphawallet.attestation.core.ValidationStage;
 import com.alphawallet.attestation.core.Verifiable;
 import java.io.IOException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.asn1.ASN1EncodableVector;
-import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
 
-public class UseAttestation implements ASNEncodable, Verifiable, Validateable {
+public class UseAttestation implements ASNEncodable, Verifiable, Validateable, StagedValidateable {
   private static final Logger logger = LogManager.getLogger(UseAttestation.class);
+  private static final RejectionCounter rejections = new RejectionCounter();
   private final SignedIdentityAttestation attestation;
   private final AttestationType type;
   private final FullProofOfExponent pok;
-  private final AsymmetricKeyParameter sessionPublicKey;
+  // Restored from sessionKeyEncoding on first use when decoding
+  private volatile AsymmetricKeyParameter sessionPublicKey;
+  private final DERView sessionKeyEncoding;
   private final byte[] encoding;
 
   public UseAttestation(SignedIdentityAttestation attestation, AttestationType type, FullProofOfExponent pok, AsymmetricKeyParameter sessionPublicKey) {
@@ -31,25 +42,93 @@ public class UseAttestation implements ASNEncodable, Verifiable, Validateable {
     this.type = type;
     this.pok = pok;
     this.sessionPublicKey = sessionPublicKey;
+    this.sessionKeyEncoding = null;
     this.encoding = makeEncoding(attestation, type, pok, sessionPublicKey);
     constructorCheck();
   }
 
+  /**
+   * Decodes the object, slicing the components out of the encoding instead of re-encoding them.
+   * The session key is not needed for verification, so it is only restored when requested.
+   * Its structure is checked while decoding, so only a well-formed key which is not a valid
+   * point, e.g. a point not on the curve, is detected when it is restored.
+   */
   public UseAttestation(byte[] derEncoding, AsymmetricKeyParameter attestationVerificationKey) {
+    this(derEncoding, attestationVerificationKey, true);
+  }
+
+  private UseAttestation(byte[] derEncoding, AsymmetricKeyParameter attestationVerificationKey, boolean verify) {
     this.encoding = derEncoding;
     try {
-      ASN1InputStream input = new ASN1InputStream(derEncoding);
-      ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
+      DERView asn1 = DERView.parse(derEncoding);
       int i = 0;
-      this.attestation = new SignedIdentityAttestation(asn1.getObjectAt(i++).toASN1Primitive().getEncoded(), attestationVerificationKey);
-      this.type = AttestationType.values()[
-          ASN1Integer.getInstance(asn1.getObjectAt(i++)).getValue().intValueExact()];;
-      this.pok = new FullProofOfExponent(asn1.getObjectAt(i++).toASN1Primitive().getEncoded());
-      this.sessionPublicKey = SignatureUtility.restoreKeyFromSPKI(asn1.getObjectAt(i++).toASN1Primitive().getEncoded());
+      this.attestation = new SignedIdentityAttestation(asn1.getElement(i++), attestationVerificationKey, verify);
+      this.type = AttestationType.values()[asn1.getElement(i++).getInteger().intValueExact()];
+      this.pok = new FullProofOfExponent(asn1.getElement(i++).getEncoded(), verify);
+      this.sessionKeyEncoding = checkSessionKeyStructure(asn1.getElement(i++));
     } catch (IOException e) {
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode asn1", e);
     }
-    constructorCheck();
+    if (verify) {
+      constructorCheck();
+    }
+  }
+
+  /**
+   * Checks that the session key is a SubjectPublicKeyInfo, i.e. a sequence of an algorithm
+   * identifier and a bit string, without restoring the key
+   */
+  private static DERView checkSessionKeyStructure(DERView spki) throws IOException {
+    if (spki.getTag() != DERView.TAG_SEQUENCE || spki.size() != 2) {
+      throw DERView.malformed("Session key is not a SubjectPublicKeyInfo");
+    }
+    DERView algorithm = spki.getElement(0);
+    if (algorithm.getTag() != DERView.TAG_SEQUENCE
+        || algorithm.getElement(0).getTag() != DERView.TAG_OBJECT_IDENTIFIER) {
+      throw DERView.malformed("Session key has no valid algorithm identifier");
+    }
+    // Ensures that the key is a bit string without unused bits
+    spki.getElement(1).getBitStringBytes();
+    return spki;
+  }
+
+  /**
+   * Decodes the object without verifying the signature or the proof, such that the validation
+   * can be staged. The object must be validated through ValidationPipeline before use.
+   * @return The object, or null if the encoding is malformed
+   */
+  public static UseAttestation decodeUnverified(byte[] derEncoding, AsymmetricKeyParameter attestationVerificationKey) {
+    try {
+      return new UseAttestation(derEncoding, attestationVerificationKey, false);
+    } catch (RejectedEncodingException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes and validates the object stage by stage, such that objects with an expired
+   * attestation are rejected before the signature and the proof are verified
+   */
+  public static ValidationReport<UseAttestation> validate(byte[] derEncoding, AsymmetricKeyParameter attestationVerificationKey) {
+    return ValidationPipeline.validate(() -> decodeUnverified(derEncoding, attestationVerificationKey));
+  }
+
+  /**
+   * Decodes and validates the object like validate, but without timing the stages.
+   * Invalid objects are neither logged nor thrown, the reason is returned and counted instead.
+   */
+  public static DecodeResult<UseAttestation> tryDecode(byte[] derEncoding, AsymmetricKeyParameter attestationVerificationKey) {
+    return ValidationPipeline.tryValidate(() -> decodeUnverified(derEncoding, attestationVerificationKey), rejections);
+  }
+
+  /**
+   * Returns the amount of objects rejected by tryDecode for reason
+   */
+  public static long getRejections(RejectionReason reason) {
+    return rejections.get(reason);
   }
 
   private void constructorCheck() {
@@ -82,8 +161,22 @@ public class UseAttestation implements ASNEncodable, Verifiable, Validateable {
     return pok;
   }
 
+  /**
+   * Returns the session key, restoring it on first use if the object was decoded.
+   * @throws RuntimeException if the decoded key is well-formed but not a valid key
+   */
   public AsymmetricKeyParameter getSessionPublicKey() {
-    return sessionPublicKey;
+    AsymmetricKeyParameter res = sessionPublicKey;
+    if (res == null) {
+      try {
+        // Restoring is idempotent and the keys are interned, so a race is harmless
+        res = SignatureUtility.restoreKeyFromSPKI(sessionKeyEncoding.getEncoded());
+      } catch (IOException | IllegalArgumentException e) {
+        throw ExceptionUtil.makeRuntimeException(logger, "Could not restore session key", e);
+      }
+      sessionPublicKey = res;
+    }
+    return res;
   }
 
   @Override
@@ -112,4 +205,12 @@ public class UseAttestation implements ASNEncodable, Verifiable, Validateable {
     }
     return true;
   }
+
+  @Override
+  public boolean checkStage(ValidationStage stage) {
+    if (!attestation.checkStage(stage)) {
+      return false;
+    }
+    return stage != ValidationStage.PROOF || AttestationCrypto.verifyFullProof(pok);
+  }
 }
@@ -1,14 +1,13 @@
 package com.alphawallet.attestation;
 
+import com.alphawallet.attestation.core.EthereumAddress;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.util.encoders.DecoderException;
-import org.bouncycastle.util.encoders.Hex;
 
 public class ValidationTools {
   private static final Logger logger = LogManager.getLogger(ValidationTools.class);
   // Characters in the string representation of an address
-  public static final int ADDRESS_LENGTH_IN_BYTES = 42;
+  public static final int ADDRESS_LENGTH_IN_BYTES = EthereumAddress.STRING_LENGTH;
 
 
   public static boolean isAddress(String address) {
@@ -16,13 +15,11 @@ public class ValidationTools {
       logger.error("Address has wrong length");
       return false;
     }
-    if (!address.substring(0, 2).toUpperCase().equals("0X")) {
+    if (!address.regionMatches(true, 0, "0x", 0, 2)) {
       logger.error("Address does not have \"0x\" prefix");
       return false;
     }
-    try {
-      Hex.decodeStrict(address.substring(2));
-    } catch (DecoderException e) {
+    if (EthereumAddress.parse(address) == null) {
       logger.error("Address is not a hex string");
       return false;
     }
@@ -3,8 +3,13 @@ package com.alphawallet.attestation.cheque;
 import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.core.Attestable;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectionCounter;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.ValidationPipeline;
+import com.alphawallet.attestation.core.ValidationStage;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.time.Clock;
@@ -23,10 +28,14 @@ import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
+import org.bouncycastle.math.ec.ECPoint;
 
 public class Cheque implements Attestable {
   private static final Logger logger = LogManager.getLogger(Cheque.class);
+  private static final RejectionCounter rejections = new RejectionCounter();
   private final byte[] commitment;
+  // Decoded lazily, since not all uses need the point
+  private volatile ECPoint commitmentPoint;
   private final long amount;
   private final long notValidBefore;
   private final long notValidAfter;
@@ -65,10 +74,16 @@ public class Cheque implements Attestable {
   }
 
   public Cheque(byte[] commitment, long amount, long notValidBefore, long notValidAfter, byte[] signature, AsymmetricKeyParameter publicKey) {
+    this(commitment, amount, notValidBefore, notValidAfter, signature, publicKey, true);
+  }
+
+  Cheque(byte[] commitment, long amount, long notValidBefore, long notValidAfter, byte[] signature,
+      AsymmetricKeyParameter publicKey, boolean verify) {
     this.commitment = commitment;
     this.publicKey = publicKey;
     this.amount = amount;
-    if (notValidBefore % 1000 != 0 || notValidAfter % 1000 != 0) {
+    // ChequeDecoder checks this itself before decoding a cheque without verifying it
+    if (!hasSecondGranularity(notValidBefore, notValidAfter)) {
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Can only support time granularity to the second"));
     }
@@ -81,11 +96,34 @@ public class Cheque implements Attestable {
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not encode asn1", e);
     }
-    if (!verify()) {
+    if (verify && !verify()) {
       throw ExceptionUtil.throwException(logger, new IllegalArgumentException("Signature is invalid"));
     }
   }
 
+  /**
+   * Decodes and validates a cheque through ValidationPipeline, such that expired cheques are
+   * rejected before the signature is verified. Invalid cheques are neither logged nor thrown, the
+   * reason is returned and counted instead.
+   */
+  public static DecodeResult<Cheque> tryDecode(byte[] encoding) {
+    return ValidationPipeline.tryValidate(() -> new ChequeDecoder().decodeUnverified(encoding), rejections);
+  }
+
+  /**
+   * Returns the amount of cheques rejected by tryDecode for reason
+   */
+  public static long getRejections(RejectionReason reason) {
+    return rejections.get(reason);
+  }
+
+  /**
+   * Returns whether the validity can be encoded, since GeneralizedTime is only encoded to the second
+   */
+  static boolean hasSecondGranularity(long notValidBefore, long notValidAfter) {
+    return notValidBefore % 1000 == 0 && notValidAfter % 1000 == 0;
+  }
+
   private ASN1Sequence makeCheque(byte[] commitment, long amount, long notValidBefore, long notValidAfter) {
     ASN1EncodableVector cheque = new ASN1EncodableVector();
     cheque.add(new ASN1Integer(amount));
@@ -113,14 +151,35 @@ public class Cheque implements Attestable {
 
   @Override
   public boolean checkValidity() {
-    long currentTime = Clock.systemUTC().millis();
-    if (!(currentTime >= getNotValidBefore() && currentTime < getNotValidAfter())) {
+    if (!isValidAt(Clock.systemUTC().millis())) {
       logger.error("Cheque is no longer valid");
       return false;
     }
     return true;
   }
 
+  private boolean isValidAt(long currentTime) {
+    return currentTime >= getNotValidBefore() && currentTime < getNotValidAfter();
+  }
+
+  @Override
+  public boolean checkStage(ValidationStage stage) {
+    switch (stage) {
+      case TIME:
+        return isValidAt(Clock.systemUTC().millis());
+      case SIGNATURE:
+        try {
+          byte[] unsigned = makeCheque(commitment, amount, notValidBefore, notValidAfter).getEncoded();
+          return SignatureUtility.isValidEthereumSignature(unsigned, signature,
+              SignatureUtility.ethereumAddressFromKey(publicKey), 0);
+        } catch (IOException e) {
+          return false;
+        }
+      default:
+        return true;
+    }
+  }
+
   @Override
   public boolean verify() {
     try {
@@ -147,6 +206,15 @@ public class Cheque implements Attestable {
     return commitment;
   }
 
+  @Override
+  public ECPoint getCommitmentPoint() {
+    // Decoding concurrently in more than one thread is harmless since the point is immutable
+    if (commitmentPoint == null) {
+      commitmentPoint = AttestationCrypto.decodePoint(commitment);
+    }
+    return commitmentPoint;
+  }
+
   public long getAmount() {
     return amount;
   }
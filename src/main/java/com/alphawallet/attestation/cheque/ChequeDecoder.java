@@ -22,6 +22,15 @@ public class ChequeDecoder implements AttestableObjectDecoder<Cheque> {
 
   @Override
   public Cheque decode(byte[] encoding) throws IOException {
+    return decode(encoding, true);
+  }
+
+  @Override
+  public Cheque decodeUnverified(byte[] encoding) throws IOException {
+    return decode(encoding, false);
+  }
+
+  private Cheque decode(byte[] encoding, boolean verify) throws IOException {
     ASN1InputStream input = new ASN1InputStream(encoding);
     ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
     ASN1Sequence cheque = ASN1Sequence.getInstance(asn1.getObjectAt(0));
@@ -35,8 +44,14 @@ public class ChequeDecoder implements AttestableObjectDecoder<Cheque> {
       notValidBefore = notValidBeforeEnc.getDate().getTime();
       notValidAfter = notValidAfterEnc.getDate().getTime();
     } catch (ParseException e) {
-      throw ExceptionUtil.throwException(logger,
-          new IOException("Validity is not encoded properly"));
+      if (!verify) {
+        return null;
+      }
+      throw ExceptionUtil.throwException(logger, new IOException("Validity is not encoded properly"));
+    }
+    if (!verify && !Cheque.hasSecondGranularity(notValidBefore, notValidAfter)) {
+      // The constructor rejects it by throwing
+      return null;
     }
 
     byte[] commitment = (ASN1OctetString.getInstance(cheque.getObjectAt(2))).getOctets();
@@ -45,6 +60,6 @@ public class ChequeDecoder implements AttestableObjectDecoder<Cheque> {
 
     // Verify signature
     byte[] signature = DERBitString.getInstance(asn1.getObjectAt(2)).getBytes();
-    return new Cheque(commitment, amount, notValidBefore, notValidAfter, signature, publicKey);
+    return new Cheque(commitment, amount, notValidBefore, notValidAfter, signature, publicKey, verify);
   }
 }
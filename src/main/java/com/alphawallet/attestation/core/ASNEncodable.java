@@ -1,12 +1,22 @@
 package com.alphawallet.attestation.core;
 
 import java.io.InvalidObjectException;
+import java.nio.ByteBuffer;
 
 public interface ASNEncodable {
 
   /**
    * Returns the _minimal_ DER encoding of the object.
    * That is, all optional fields are _excluded_!
+   * The encoding is memoized, i.e. the same array is returned for as long as the object is not
+   * modified, so it is shared between callers and must not be modified.
    */
   public byte[] getDerEncoding() throws InvalidObjectException;
+
+  /**
+   * Returns a read-only view of the memoized DER encoding, without copying it
+   */
+  public default ByteBuffer getDerEncodingView() throws InvalidObjectException {
+    return ByteBuffer.wrap(getDerEncoding()).asReadOnlyBuffer();
+  }
 }
@@ -1,5 +1,31 @@
 package com.alphawallet.attestation.core;
 
-public interface Attestable extends ASNEncodable, Verifiable, Validateable {
+import org.bouncycastle.math.ec.ECPoint;
+
+public interface Attestable extends ASNEncodable, Verifiable, Validateable, StagedValidateable {
   public byte[] getCommitment();
+
+  /**
+   * Returns the commitment decoded as a normalized point.
+   * Implementations should memoize the point since it is needed every time the object is verified.
+   */
+  public default ECPoint getCommitmentPoint() {
+    return AttestationCrypto.decodePoint(getCommitment());
+  }
+
+  /**
+   * Checks validity in the TIME stage and verifies in the SIGNATURE stage.
+   * Implementations should override this with checks that do not log.
+   */
+  @Override
+  public default boolean checkStage(ValidationStage stage) {
+    switch (stage) {
+      case TIME:
+        return checkValidity();
+      case SIGNATURE:
+        return verify();
+      default:
+        return true;
+    }
+  }
 }
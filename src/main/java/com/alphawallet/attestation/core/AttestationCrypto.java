@@ -9,19 +9,21 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.security.Security;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.bouncycastle.jcajce.provider.digest.Keccak;
-import org.bouncycastle.jcajce.provider.digest.SHA256;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.ECAlgorithms;
 import org.bouncycastle.math.ec.ECCurve;
 import org.bouncycastle.math.ec.ECCurve.Fp;
+import org.bouncycastle.math.ec.ECFieldElement;
 import org.bouncycastle.math.ec.ECPoint;
 
 public class AttestationCrypto {
@@ -39,11 +41,59 @@ public class AttestationCrypto {
   public static final ECPoint G = curve.createPoint(new BigInteger("21282764439311451829394129092047993080259557426320933158672611067687630484067"), new BigInteger("3813889942691430704369624600187664845713336792511424430006907067499686345744"));
   // Generator for randomness part of Pedersen commitments generated deterministically from  mapToInteger queried on 1 to the curve using try-and-increment
   public static final ECPoint H = curve.createPoint(new BigInteger("10844896013696871595893151490650636250667003995871483372134187278207473369077"), new BigInteger("9393217696329481319187854592386054938412168121447413803797200472841959383227"));
+  // Fixed-base tables for G and H on the limb based BN256 engine, shared between all threads
+  private static final BN256FixedBase G_TABLE = new BN256FixedBase(G);
+  static final BN256FixedBase H_TABLE = new BN256FixedBase(H);
+  // Bit length of the random weights used in batch verification, giving a soundness error of 2^-128
+  private static final int BATCH_WEIGHT_BIT_LENGTH = 128;
+  // Maximum amount of identifiers for which the mapping to the curve is cached
+  private static final int IDENTIFIER_CACHE_SIZE = 10000;
+  private static final BoundedCache<IdentifierKey, MappedIdentifier> identifierCache = new BoundedCache<>(IDENTIFIER_CACHE_SIZE);
+  // Maximum amount of encoded points for which the validated and normalized point is cached
+  private static final int DECODED_POINT_CACHE_SIZE = 10000;
+  private static final BoundedCache<ByteBuffer, ECPoint> decodedPointCache = new BoundedCache<>(DECODED_POINT_CACHE_SIZE);
+  // The digests are not thread-safe, but keeping an instance per thread avoids allocating their internal state on every hash
+  private static final ThreadLocal<Digest> KECCAK = ThreadLocal.withInitial(() -> new KeccakDigest(256));
+  private static final ThreadLocal<Digest> SHA256 = ThreadLocal.withInitial(SHA256Digest::new);
   private final SecureRandom rand;
+  // Amount of (hiding, t) candidates the prover samples at once, 1 means plain sequential rejection sampling
+  private final int speculativeCandidates;
+  // Optional source of precomputed (hiding, t) pairs, may be null
+  private final SchnorrPairPool pairPool;
 
   public AttestationCrypto(SecureRandom rand) {
+    this(rand, 1);
+  }
+
+  /**
+   * Constructs an instance where the prover samples speculativeCandidates candidate hiding values
+   * at once when computing a proof. About a quarter of all candidates get rejected, so sampling e.g.
+   * 4 candidates at once means that a second round is needed with probability less than 1/256,
+   * which makes the latency of proof generation predictable at the cost of some wasted work.
+   * This only pays off when the common fork-join pool has more than one thread available.
+   */
+  public AttestationCrypto(SecureRandom rand, int speculativeCandidates) {
+    this(rand, speculativeCandidates, null);
+  }
+
+  /**
+   * Constructs an instance where the prover takes the (hiding, t) pairs of its proofs from
+   * pairPool, which computes them in the background, and only computes pairs itself when the pool
+   * is empty. The pool can be shared between instances.
+   */
+  public AttestationCrypto(SecureRandom rand, SchnorrPairPool pairPool) {
+    this(rand, 1, pairPool);
+  }
+
+  public AttestationCrypto(SecureRandom rand, int speculativeCandidates, SchnorrPairPool pairPool) {
     Security.addProvider(new BouncyCastleProvider());
+    if (speculativeCandidates < 1) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("At least one candidate must be sampled"));
+    }
     this.rand = rand;
+    this.speculativeCandidates = speculativeCandidates;
+    this.pairPool = pairPool;
     if (!verifyCurveOrder(curveOrder)) {
       throw new RuntimeException("Static values do not work with current implementation");
     }
@@ -60,17 +110,83 @@ public class AttestationCrypto {
   }
 
   public static byte[] hashWithKeccak(byte[] toHash) {
-    MessageDigest KECCAK = new Keccak.Digest256();
-    KECCAK.reset();
-    KECCAK.update(toHash);
-    return KECCAK.digest();
+    byte[] res = new byte[BYTES_IN_DIGEST];
+    hashWithKeccak(toHash, 0, toHash.length, res, 0);
+    return res;
+  }
+
+  /**
+   * Hashes length bytes of toHash, starting at offset, with Keccak and writes the BYTES_IN_DIGEST
+   * byte digest into out starting at outOffset.
+   */
+  public static void hashWithKeccak(byte[] toHash, int offset, int length, byte[] out, int outOffset) {
+    hash(KECCAK.get(), toHash, offset, length, out, outOffset);
+  }
+
+  /**
+   * Hashes the remaining bytes of toHash with Keccak and writes the BYTES_IN_DIGEST byte digest
+   * into out starting at outOffset. The position of toHash is advanced to its limit.
+   */
+  public static void hashWithKeccak(ByteBuffer toHash, byte[] out, int outOffset) {
+    hash(KECCAK.get(), toHash, out, outOffset);
   }
 
   public static byte[] hashWithSHA256(byte[] toHash) {
-    MessageDigest sha256 = new SHA256.Digest();
-    sha256.reset();
-    sha256.update(toHash);
-    return sha256.digest();
+    byte[] res = new byte[BYTES_IN_DIGEST];
+    hashWithSHA256(toHash, 0, toHash.length, res, 0);
+    return res;
+  }
+
+  /**
+   * Hashes length bytes of toHash, starting at offset, with SHA256 and writes the BYTES_IN_DIGEST
+   * byte digest into out starting at outOffset.
+   */
+  public static void hashWithSHA256(byte[] toHash, int offset, int length, byte[] out, int outOffset) {
+    hash(SHA256.get(), toHash, offset, length, out, outOffset);
+  }
+
+  /**
+   * Hashes the remaining bytes of toHash with SHA256 and writes the BYTES_IN_DIGEST byte digest
+   * into out starting at outOffset. The position of toHash is advanced to its limit.
+   */
+  public static void hashWithSHA256(ByteBuffer toHash, byte[] out, int outOffset) {
+    hash(SHA256.get(), toHash, out, outOffset);
+  }
+
+  private static void hash(Digest digest, byte[] toHash, int offset, int length, byte[] out, int outOffset) {
+    // Reset in case a previous use on this thread was aborted half way
+    digest.reset();
+    digest.update(toHash, offset, length);
+    digest.doFinal(out, outOffset);
+  }
+
+  private static void hash(Digest digest, ByteBuffer toHash, byte[] out, int outOffset) {
+    digest.reset();
+    if (toHash.hasArray()) {
+      digest.update(toHash.array(), toHash.arrayOffset() + toHash.position(), toHash.remaining());
+      toHash.position(toHash.limit());
+    } else {
+      while (toHash.hasRemaining()) {
+        digest.update(toHash.get());
+      }
+    }
+    digest.doFinal(out, outOffset);
+  }
+
+  /**
+   * Computes G*exponent using the fixed-base table precomputed for G.
+   * The exponent is reduced modulo curveOrder and the result is normalized.
+   */
+  public static ECPoint multiplyG(BigInteger exponent) {
+    return G_TABLE.multiply(exponent).toECPoint();
+  }
+
+  /**
+   * Computes H*exponent using the fixed-base table precomputed for H.
+   * The exponent is reduced modulo curveOrder and the result is normalized.
+   */
+  public static ECPoint multiplyH(BigInteger exponent) {
+    return H_TABLE.multiply(exponent).toECPoint();
   }
 
   /**
@@ -81,10 +197,10 @@ public class AttestationCrypto {
    * @return
    */
   public static byte[] makeCommitment(String identity, AttestationType type, BigInteger secret) {
-    BigInteger hashedIdentity = mapToCurveMultiplier(type, identity);
     // Construct Pedersen commitment
-    ECPoint commitment = G.multiply(hashedIdentity).add(H.multiply(secret));
-    return commitment.getEncoded(false);
+    BN256Point commitment = H_TABLE.multiply(secret);
+    commitment.add(getMappedIdentifier(type, identity).enginePoint);
+    return commitment.getEncoded();
   }
 
   /**
@@ -96,10 +212,10 @@ public class AttestationCrypto {
    * @return
    */
   public static byte[] makeCommitment(String identity, AttestationType type, ECPoint hiding) {
-    BigInteger hashedIdentity = mapToCurveMultiplier(type, identity);
     // Construct Pedersen commitment
-    ECPoint commitment = G.multiply(hashedIdentity).add(hiding);
-    return commitment.getEncoded(false);
+    BN256Point commitment = BN256Point.fromECPoint(hiding);
+    commitment.add(getMappedIdentifier(type, identity).enginePoint);
+    return commitment.getEncoded();
   }
 
   /**
@@ -112,7 +228,7 @@ public class AttestationCrypto {
    */
   public FullProofOfExponent computeAttestationProof(BigInteger randomness, byte[] nonce) {
     // Compute the random part of the commitment, i.e. H^randomness
-    ECPoint riddle = H.multiply(randomness);
+    ECPoint riddle = multiplyH(randomness);
     List<ECPoint> challengeList = Arrays.asList(H, riddle);
     return constructSchnorrPOK(riddle, randomness, challengeList, nonce);
   }
@@ -160,28 +276,97 @@ public class AttestationCrypto {
    * The challenge value used (c) is computed from the challengePoints and the internal t value.
    * The method uses rejection sampling to ensure that the t value is sampled s.t. the
    * challenge will always be less than curveOrder.
+   * If speculativeCandidates is more than 1, then that many candidates are sampled in each round
+   * and the first one giving a valid challenge is used. Since the candidates are independent
+   * this yields the same distribution as sampling them one at a time. The hiding values are drawn
+   * sequentially from rand, but the candidates are computed in parallel.
+   * The candidates are computed with the fixed-base table for H, which yields normalized points
+   * as needed by both the challenge and the proof. If a pair pool is used the candidates are taken
+   * from it while it is not empty. Rejected candidates are discarded, so no hiding is used twice.
    */
   private FullProofOfExponent constructSchnorrPOK(ECPoint riddle, BigInteger exponent, List<ECPoint> challengePoints, byte[] nonce) {
-    ECPoint t;
-    BigInteger hiding, c, d;
+    // Normalize the points once, rather than in every round of the rejection sampling
+    ECPoint[] normalizedPoints = challengePoints.toArray(new ECPoint[0]);
+    curve.normalizeAll(normalizedPoints);
+    List<ECPoint> normalizedChallengePoints = Arrays.asList(normalizedPoints);
+    BigInteger[] hidings = new BigInteger[speculativeCandidates];
+    ECPoint[] ts = new ECPoint[speculativeCandidates];
     // Use rejection sampling to sample a hiding value s.t. the random oracle challenge c computed from it is less than curveOrder
-    do {
-      hiding = makeSecret();
-      t = H.multiply(hiding);
-      c = computeChallenge(t, challengePoints, nonce);
-    } while (c.compareTo(curveOrder) >= 0);
-    d = hiding.add(c.multiply(exponent)).mod(curveOrder);
-    return new FullProofOfExponent(riddle.normalize(), t.normalize(), d, nonce);
+    while (true) {
+      int missing = 0;
+      for (int i = 0; i < speculativeCandidates; i++) {
+        SchnorrPairPool.Pair pair = pairPool == null ? null : pairPool.poll();
+        if (pair != null) {
+          hidings[i] = pair.hiding;
+          ts[i] = pair.t;
+        } else {
+          hidings[i] = makeSecret();
+          ts[i] = null;
+          missing++;
+        }
+      }
+      if (missing == 1) {
+        for (int i = 0; i < speculativeCandidates; i++) {
+          if (ts[i] == null) {
+            ts[i] = multiplyH(hidings[i]);
+          }
+        }
+      } else if (missing > 1) {
+        // The multiplications are independent so spread them over the common fork-join pool
+        IntStream.range(0, speculativeCandidates).parallel().filter(i -> ts[i] == null)
+            .forEach(i -> ts[i] = multiplyH(hidings[i]));
+      }
+      for (int i = 0; i < speculativeCandidates; i++) {
+        BigInteger c = computeChallenge(ts[i], normalizedChallengePoints, nonce);
+        if (c.compareTo(curveOrder) < 0) {
+          BigInteger d = hidings[i].add(c.multiply(exponent)).mod(curveOrder);
+          return new FullProofOfExponent(riddle.normalize(), ts[i], d, nonce);
+        }
+      }
+    }
   }
 
+  /**
+   * Computes the random oracle challenge as the mapping to an integer of the uncompressed encoding
+   * of the points in challengeList followed by t and the nonce.
+   * The encodings are streamed directly into the digest to avoid constructing intermediate arrays.
+   */
   private static BigInteger computeChallenge(ECPoint t, List<ECPoint> challengeList, byte[] nonce) {
-    List<ECPoint> finalChallengeList = new ArrayList<>(challengeList);
-    finalChallengeList.add(t);
-    byte[] challengePointBytes = makeArray(finalChallengeList);
-    byte[] challengeBytes = new byte[challengePointBytes.length+nonce.length];
-    System.arraycopy(challengePointBytes, 0, challengeBytes, 0, challengePointBytes.length);
-    System.arraycopy(nonce, 0, challengeBytes, challengePointBytes.length, nonce.length);
-    return mapToInteger(challengeBytes);
+    Digest keccak = KECCAK.get();
+    keccak.reset();
+    for (ECPoint current : challengeList) {
+      updateWithPoint(keccak, current);
+    }
+    updateWithPoint(keccak, t);
+    keccak.update(nonce, 0, nonce.length);
+    byte[] digest = new byte[BYTES_IN_DIGEST];
+    keccak.doFinal(digest, 0);
+    return digestToInteger(digest);
+  }
+
+  /**
+   * Updates the digest with the same bytes as point.normalize().getEncoded(false)
+   */
+  private static void updateWithPoint(Digest digest, ECPoint point) {
+    if (point.isInfinity()) {
+      digest.update((byte) 0x00);
+      return;
+    }
+    ECPoint normalized = point.isNormalized() ? point : point.normalize();
+    digest.update((byte) 0x04);
+    updateWithFieldElement(digest, normalized.getAffineXCoord());
+    updateWithFieldElement(digest, normalized.getAffineYCoord());
+  }
+
+  private static void updateWithFieldElement(Digest digest, ECFieldElement element) {
+    int length = (element.getFieldSize() + 7) / 8;
+    byte[] bytes = element.toBigInteger().toByteArray();
+    // Skip the sign byte and left pad with zeros to get a fixed length unsigned encoding
+    int start = Math.max(0, bytes.length - length);
+    for (int i = bytes.length - start; i < length; i++) {
+      digest.update((byte) 0x00);
+    }
+    digest.update(bytes, start, bytes.length - start);
   }
 
   /**
@@ -203,26 +388,155 @@ public class AttestationCrypto {
    * @return True if the proof is OK and false otherwise
    */
   public static boolean verifyEqualityProof(byte[] commitment1, byte[] commitment2, ProofOfExponent pok)  {
-    ECPoint comPoint1 = decodePoint(commitment1);
-    ECPoint comPoint2 = decodePoint(commitment2);
+    return verifyEqualityProof(decodePoint(commitment1), decodePoint(commitment2), pok);
+  }
+
+  /**
+   * Verifies a zero knowledge proof of knowledge of the two riddles used in two different
+   * commitments to the same message, where the commitments have already been decoded.
+   * @param comPoint1 The first commitment, which must be normalized
+   * @param comPoint2 The second commitment, which must be normalized
+   * @param pok The proof to verify
+   * @return True if the proof is OK and false otherwise
+   */
+  public static boolean verifyEqualityProof(ECPoint comPoint1, ECPoint comPoint2, ProofOfExponent pok)  {
     // Compute the value the riddle should have
     ECPoint riddle = comPoint1.subtract(comPoint2);
     BigInteger c = computeChallenge(pok.getPoint(), Arrays.asList(H, comPoint1, comPoint2), pok.getNonce());
     return verifyPok(new FullProofOfExponent(riddle, pok.getPoint(), pok.getChallenge(), pok.getNonce()), c);
   }
 
+  /**
+   * Verifies a batch of zero knowledge proofs of knowledge of riddles used in attestation requests.
+   * The proofs are checked together using a random linear combination, such that N proofs cost a
+   * single multi-scalar multiplication. If the combined check fails the batch is bisected to
+   * find the proofs that are not valid.
+   * @param poks The proofs to verify
+   * @return An array where entry i is true if proof i is OK and false otherwise
+   */
+  public static boolean[] verifyFullProofBatch(List<FullProofOfExponent> poks) {
+    ECPoint[] riddles = new ECPoint[poks.size()];
+    BigInteger[] challenges = new BigInteger[poks.size()];
+    for (int i = 0; i < poks.size(); i++) {
+      FullProofOfExponent pok = poks.get(i);
+      riddles[i] = pok.getRiddle();
+      challenges[i] = computeChallenge(pok.getPoint(), Arrays.asList(H, pok.getRiddle()), pok.getNonce());
+    }
+    return verifyPokBatch(riddles, poks, challenges);
+  }
+
+  /**
+   * Verifies a batch of zero knowledge proofs of knowledge of the riddles used in two different
+   * commitments to the same message, see verifyEqualityProof.
+   * The proofs are checked together using a random linear combination, such that N proofs cost a
+   * single multi-scalar multiplication. If the combined check fails the batch is bisected to
+   * find the proofs that are not valid.
+   * @param commitments1 The first commitment of each proof
+   * @param commitments2 The second commitment of each proof
+   * @param poks The proofs to verify
+   * @return An array where entry i is true if proof i is OK and false otherwise
+   */
+  public static boolean[] verifyEqualityProofBatch(List<byte[]> commitments1, List<byte[]> commitments2, List<? extends ProofOfExponent> poks) {
+    if (commitments1.size() != poks.size() || commitments2.size() != poks.size()) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("The amount of commitments and proofs must be the same"));
+    }
+    ECPoint[] riddles = new ECPoint[poks.size()];
+    BigInteger[] challenges = new BigInteger[poks.size()];
+    for (int i = 0; i < poks.size(); i++) {
+      ECPoint comPoint1 = decodePoint(commitments1.get(i));
+      ECPoint comPoint2 = decodePoint(commitments2.get(i));
+      riddles[i] = comPoint1.subtract(comPoint2);
+      challenges[i] = computeChallenge(poks.get(i).getPoint(), Arrays.asList(H, comPoint1, comPoint2), poks.get(i).getNonce());
+    }
+    return verifyPokBatch(riddles, poks, challenges);
+  }
+
+  private static boolean[] verifyPokBatch(ECPoint[] riddles, List<? extends ProofOfExponent> poks, BigInteger[] challenges) {
+    boolean[] res = new boolean[poks.size()];
+    int[] candidates = new int[poks.size()];
+    int amountOfCandidates = 0;
+    for (int i = 0; i < poks.size(); i++) {
+      // Check that the c has been sampled correctly using rejection sampling
+      if (challenges[i].compareTo(curveOrder) >= 0) {
+        logger.error("Challenge is bigger than curve order");
+        continue;
+      }
+      candidates[amountOfCandidates++] = i;
+    }
+    verifyPokRange(riddles, poks, challenges, candidates, 0, amountOfCandidates, res);
+    return res;
+  }
+
+  /**
+   * Checks the proofs with indices candidates[from], ..., candidates[to-1] by verifying that
+   * sum_i z_i*(H*d_i - riddle_i*c_i - t_i) is the point at infinity for random 128 bit z_i.
+   * If not, the range gets split in two and each half is checked on its own.
+   */
+  private static void verifyPokRange(ECPoint[] riddles, List<? extends ProofOfExponent> poks, BigInteger[] challenges,
+      int[] candidates, int from, int to, boolean[] res) {
+    int amount = to - from;
+    if (amount == 0) {
+      return;
+    }
+    if (amount == 1) {
+      int index = candidates[from];
+      ProofOfExponent pok = poks.get(index);
+      res[index] = verifyPok(new FullProofOfExponent(riddles[index], pok.getPoint(), pok.getChallenge(), pok.getNonce()), challenges[index]);
+      return;
+    }
+    ECPoint[] points = new ECPoint[2 * amount + 1];
+    BigInteger[] scalars = new BigInteger[2 * amount + 1];
+    BigInteger combinedResponse = BigInteger.ZERO;
+    for (int i = 0; i < amount; i++) {
+      int index = candidates[from + i];
+      BigInteger z = new BigInteger(BATCH_WEIGHT_BIT_LENGTH, DrbgPool.getInstance());
+      combinedResponse = combinedResponse.add(z.multiply(poks.get(index).getChallenge()));
+      points[2 * i] = riddles[index];
+      scalars[2 * i] = curveOrder.subtract(z.multiply(challenges[index]).mod(curveOrder));
+      points[2 * i + 1] = poks.get(index).getPoint();
+      scalars[2 * i + 1] = curveOrder.subtract(z);
+    }
+    points[2 * amount] = H;
+    scalars[2 * amount] = combinedResponse.mod(curveOrder);
+    if (ECAlgorithms.sumOfMultiplies(points, scalars).isInfinity()) {
+      for (int i = from; i < to; i++) {
+        res[candidates[i]] = true;
+      }
+      return;
+    }
+    int middle = from + amount / 2;
+    verifyPokRange(riddles, poks, challenges, candidates, from, middle, res);
+    verifyPokRange(riddles, poks, challenges, candidates, middle, to, res);
+  }
+
   private static boolean verifyPok(FullProofOfExponent pok, BigInteger c) {
     // Check that the c has been sampled correctly using rejection sampling
     if (c.compareTo(curveOrder) >= 0) {
       logger.error("Challenge is bigger than curve order");
       return false;
     }
-    ECPoint lhs = H.multiply(pok.getChallenge());
-    ECPoint rhs = pok.getRiddle().multiply(c).add(pok.getPoint());
-    return lhs.equals(rhs);
+    // Check that H*d - riddle*c = t, computing H*d from the fixed-base table and comparing without normalizing.
+    // This replaces interleaving the two multiplications (Shamir's trick): interleaving only saves
+    // doublings, and the fixed-base multiplication does none, so it would not save any work
+    // over the variable-base multiplication of the riddle on its own. See BN256Benchmark.
+    // The response d comes from the prover, so it is reduced into the range the table accepts
+    BigInteger d = pok.getChallenge();
+    if (d.signum() < 0 || d.compareTo(curveOrder) >= 0) {
+      d = d.mod(curveOrder);
+    }
+    BN256Point lhs = H_TABLE.multiply(d);
+    BN256Point riddleTerm = BN256Point.fromECPoint(pok.getRiddle());
+    riddleTerm.multiply(curveOrder.subtract(c));
+    lhs.add(riddleTerm);
+    return lhs.isEqual(BN256Point.fromECPoint(pok.getPoint()));
   }
 
   public BigInteger makeSecret() {
+    return makeSecret(rand);
+  }
+
+  static BigInteger makeSecret(SecureRandom rand) {
     return new BigInteger(256+128, rand).mod(curveOrder);
   }
 
@@ -230,7 +544,8 @@ public class AttestationCrypto {
     try {
       ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
       for (ECPoint current : points) {
-        outputStream.write(current.normalize().getEncoded(false));
+        ECPoint normalized = current.isNormalized() ? current : current.normalize();
+        outputStream.write(normalized.getEncoded(false));
       }
       byte[] res = outputStream.toByteArray();
       outputStream.close();
@@ -245,21 +560,61 @@ public class AttestationCrypto {
    */
   static BigInteger mapToInteger(byte[] input) {
     try {
-      byte[] digest = hashWithKeccak(input);
-      // Construct an positive BigInteger from the bytes
-      BigInteger resultOf256Bits =  new BigInteger(1, digest);
-      return resultOf256Bits.shiftRight(256-curveOrderBitLength);
+      return digestToInteger(hashWithKeccak(input));
     } catch (Exception e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not map to integer", e);
     }
   }
 
+  private static BigInteger digestToInteger(byte[] digest) {
+    // Construct an positive BigInteger from the bytes
+    BigInteger resultOf256Bits =  new BigInteger(1, digest);
+    return resultOf256Bits.shiftRight(256-curveOrderBitLength);
+  }
+
   /**
    * Maps and identifier of a certain type to an integer deterministic, yet sampled from
    * the uniformly random distribution between 0 and curveOrder -1.
    * This is done using deterministic rejection sampling based on the input.
+   * The result is cached since the same identifiers are mapped repeatedly.
    */
   public static BigInteger mapToCurveMultiplier(AttestationType type, String identity) {
+    return getMappedIdentifier(type, identity).multiplier;
+  }
+
+  /**
+   * Maps an identifier of a certain type to the point G*mapToCurveMultiplier(type, identity), i.e.
+   * the message part of a Pedersen commitment to the identifier.
+   * The result is cached since the same identifiers are mapped repeatedly.
+   */
+  public static ECPoint mapToCurvePoint(AttestationType type, String identity) {
+    return getMappedIdentifier(type, identity).point;
+  }
+
+  /**
+   * Returns the amount of identifier lookups that were answered from the cache
+   */
+  public static long getIdentifierCacheHits() {
+    return identifierCache.getHits();
+  }
+
+  /**
+   * Returns the amount of identifier lookups that required hashing the identifier to the curve
+   */
+  public static long getIdentifierCacheMisses() {
+    return identifierCache.getMisses();
+  }
+
+  private static MappedIdentifier getMappedIdentifier(AttestationType type, String identity) {
+    return identifierCache.computeIfAbsent(new IdentifierKey(type, identity), key -> {
+      BigInteger multiplier = computeCurveMultiplier(key.type, key.identity);
+      BN256Point point = G_TABLE.multiply(multiplier);
+      point.normalize();
+      return new MappedIdentifier(multiplier, point);
+    });
+  }
+
+  private static BigInteger computeCurveMultiplier(AttestationType type, String identity) {
     byte[] identityBytes = identity.trim().toLowerCase().getBytes(StandardCharsets.UTF_8);
     ByteBuffer buf = ByteBuffer.allocate(4 + identityBytes.length);
     buf.putInt(type.ordinal());
@@ -271,7 +626,73 @@ public class AttestationCrypto {
     return sampledVal;
   }
 
+  /**
+   * Decodes a point on the curve, validating that it is on the curve.
+   * The result is cached since the same commitments are decoded repeatedly.
+   * @return The normalized point
+   */
   public static ECPoint decodePoint(byte[] point) {
-    return curve.decodePoint(point).normalize();
+    ECPoint cached = decodedPointCache.get(ByteBuffer.wrap(point));
+    if (cached != null) {
+      return cached;
+    }
+    ECPoint decoded = BN256Point.decode(point).toECPoint();
+    // Key the cache on a copy since the caller may modify the array afterwards
+    decodedPointCache.putIfAbsent(ByteBuffer.wrap(point.clone()), decoded);
+    return decoded;
+  }
+
+  /**
+   * Returns the amount of decoded points that were answered from the cache
+   */
+  public static long getDecodedPointCacheHits() {
+    return decodedPointCache.getHits();
+  }
+
+  /**
+   * Returns the amount of points that had to be decoded and validated
+   */
+  public static long getDecodedPointCacheMisses() {
+    return decodedPointCache.getMisses();
+  }
+
+  private static final class IdentifierKey {
+    private final AttestationType type;
+    private final String identity;
+
+    private IdentifierKey(AttestationType type, String identity) {
+      this.type = type;
+      this.identity = identity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof IdentifierKey)) {
+        return false;
+      }
+      IdentifierKey other = (IdentifierKey) o;
+      return type == other.type && identity.equals(other.identity);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * type.hashCode() + identity.hashCode();
+    }
+  }
+
+  private static final class MappedIdentifier {
+    private final BigInteger multiplier;
+    private final ECPoint point;
+    // The same normalized point for the BN256 engine, which must never be modified
+    private final BN256Point enginePoint;
+
+    private MappedIdentifier(BigInteger multiplier, BN256Point enginePoint) {
+      this.multiplier = multiplier;
+      this.point = new BN256Point(enginePoint).toECPoint();
+      this.enginePoint = enginePoint;
+    }
   }
 }
@@ -0,0 +1,353 @@
+package com.alphawallet.attestation.core;
+
+import java.math.BigInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Arithmetic in the base field of BN256, i.e. modulo AttestationCrypto.fieldSize.
+ * Elements are stored as four 64 bit limbs, least significant limb first, in Montgomery form with
+ * R = 2^256. This avoids the allocations and the generic reduction of BigInteger based field
+ * elements, which dominate the cost of point arithmetic in BouncyCastle.
+ * All methods write their result into the first argument, which may be the same array as any of
+ * the inputs. Inputs must be fully reduced, which all methods guarantee for their results.
+ * The operations are not constant time.
+ */
+final class BN256Field {
+  private static final Logger logger = LogManager.getLogger(BN256Field.class);
+
+  static final int LIMBS = 4;
+  static final int BYTES = 32;
+  // The modulus p
+  private static final long P0 = 0x3c208c16d87cfd47L;
+  private static final long P1 = 0x97816a916871ca8dL;
+  private static final long P2 = 0xb85045b68181585dL;
+  private static final long P3 = 0x30644e72e131a029L;
+  // -p^-1 mod 2^64
+  private static final long P_INV = 0x87d20782e4866389L;
+  // R^2 mod p, used to convert into Montgomery form
+  private static final long[] R2 = {0xf32cfc5b538afa89L, 0xb5e71911d44501fbL, 0x47ab1eff0a417ff6L, 0x06d89f71cab8351fL};
+  // 1 in Montgomery form, i.e. R mod p
+  private static final long[] ONE = {0xd35d438dc58f0d9dL, 0x0a78eb28f5c70b3dL, 0x666ea36f7879462cL, 0x0e0a77c19a07df2fL};
+  // 1 in normal form, multiplying by which converts out of Montgomery form
+  private static final long[] RAW_ONE = {1, 0, 0, 0};
+  // Exponents used for inversion (p-2) and square roots ((p+1)/4, which works since p = 3 mod 4)
+  private static final long[] INVERSE_EXPONENT = {P0 - 2, P1, P2, P3};
+  private static final long[] SQRT_EXPONENT = {0x4f082305b61f3f52L, 0x65e05aa45a1c72a3L, 0x6e14116da0605617L, 0x0c19139cb84c680aL};
+
+  private BN256Field() {}
+
+  static long[] create() {
+    return new long[LIMBS];
+  }
+
+  static void setZero(long[] z) {
+    z[0] = 0;
+    z[1] = 0;
+    z[2] = 0;
+    z[3] = 0;
+  }
+
+  static void setOne(long[] z) {
+    copy(z, ONE);
+  }
+
+  static void copy(long[] z, long[] x) {
+    System.arraycopy(x, 0, z, 0, LIMBS);
+  }
+
+  static boolean isZero(long[] x) {
+    return (x[0] | x[1] | x[2] | x[3]) == 0;
+  }
+
+  static boolean isOne(long[] x) {
+    return equals(x, ONE);
+  }
+
+  static boolean equals(long[] x, long[] y) {
+    return ((x[0] ^ y[0]) | (x[1] ^ y[1]) | (x[2] ^ y[2]) | (x[3] ^ y[3])) == 0;
+  }
+
+  /**
+   * Converts x, which must be in the range [0, p), into Montgomery form
+   */
+  static void fromBigInteger(long[] z, BigInteger x) {
+    if (x.signum() < 0 || x.bitLength() > 64 * LIMBS) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("Value is not a field element"));
+    }
+    for (int i = 0; i < LIMBS; i++) {
+      z[i] = x.shiftRight(64 * i).longValue();
+    }
+    if (!lessThanModulus(z[0], z[1], z[2], z[3])) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("Value is not a field element"));
+    }
+    mul(z, z, R2);
+  }
+
+  static BigInteger toBigInteger(long[] x) {
+    byte[] bytes = new byte[BYTES];
+    toBytes(x, bytes, 0);
+    return new BigInteger(1, bytes);
+  }
+
+  /**
+   * Writes the BYTES byte big-endian encoding of the value of x into out at offset
+   */
+  static void toBytes(long[] x, byte[] out, int offset) {
+    long[] normal = create();
+    mul(normal, x, RAW_ONE);
+    for (int i = 0; i < LIMBS; i++) {
+      long limb = normal[LIMBS - 1 - i];
+      for (int j = 0; j < 8; j++) {
+        out[offset + 8 * i + j] = (byte) (limb >>> (56 - 8 * j));
+      }
+    }
+  }
+
+  /**
+   * Reads a BYTES byte big-endian value from in at offset into z in Montgomery form.
+   * @return False if the value is not less than p, in which case z is undefined
+   */
+  static boolean fromBytes(long[] z, byte[] in, int offset) {
+    for (int i = 0; i < LIMBS; i++) {
+      long limb = 0;
+      for (int j = 0; j < 8; j++) {
+        limb = (limb << 8) | (in[offset + 8 * i + j] & 0xff);
+      }
+      z[LIMBS - 1 - i] = limb;
+    }
+    if (!lessThanModulus(z[0], z[1], z[2], z[3])) {
+      return false;
+    }
+    mul(z, z, R2);
+    return true;
+  }
+
+  /**
+   * Returns the least significant bit of the value of x, i.e. not of its Montgomery form
+   */
+  static int parity(long[] x) {
+    long[] normal = create();
+    mul(normal, x, RAW_ONE);
+    return (int) (normal[0] & 1);
+  }
+
+  static void add(long[] z, long[] x, long[] y) {
+    // Both inputs are less than p < 2^254 so the sum fits in four limbs
+    long s0 = x[0] + y[0];
+    long c = carry(x[0], y[0], s0);
+    long s1 = x[1] + y[1] + c;
+    c = carry(x[1], y[1], s1);
+    long s2 = x[2] + y[2] + c;
+    c = carry(x[2], y[2], s2);
+    long s3 = x[3] + y[3] + c;
+    reduce(z, s0, s1, s2, s3);
+  }
+
+  static void sub(long[] z, long[] x, long[] y) {
+    long d0 = x[0] - y[0];
+    long b = borrow(x[0], y[0], d0);
+    long d1 = x[1] - y[1] - b;
+    b = borrow(x[1], y[1], d1);
+    long d2 = x[2] - y[2] - b;
+    b = borrow(x[2], y[2], d2);
+    long d3 = x[3] - y[3] - b;
+    b = borrow(x[3], y[3], d3);
+    if (b != 0) {
+      // Add p back, the carry out of the top limb cancels the borrow
+      long s0 = d0 + P0;
+      long c = carry(d0, P0, s0);
+      long s1 = d1 + P1 + c;
+      c = carry(d1, P1, s1);
+      long s2 = d2 + P2 + c;
+      c = carry(d2, P2, s2);
+      d3 = d3 + P3 + c;
+      d0 = s0;
+      d1 = s1;
+      d2 = s2;
+    }
+    z[0] = d0;
+    z[1] = d1;
+    z[2] = d2;
+    z[3] = d3;
+  }
+
+  static void negate(long[] z, long[] x) {
+    if (isZero(x)) {
+      setZero(z);
+      return;
+    }
+    long d0 = P0 - x[0];
+    long b = borrow(P0, x[0], d0);
+    long d1 = P1 - x[1] - b;
+    b = borrow(P1, x[1], d1);
+    long d2 = P2 - x[2] - b;
+    b = borrow(P2, x[2], d2);
+    z[3] = P3 - x[3] - b;
+    z[0] = d0;
+    z[1] = d1;
+    z[2] = d2;
+  }
+
+  static void twice(long[] z, long[] x) {
+    add(z, x, x);
+  }
+
+  static void square(long[] z, long[] x) {
+    mul(z, x, x);
+  }
+
+  /**
+   * Montgomery multiplication computing x*y/R mod p, using the coarsely integrated operand
+   * scanning method. Since the most significant limb of p is less than 2^62 the carries out of the
+   * top limb can be dropped, and the result before the final subtraction is less than 2p.
+   */
+  static void mul(long[] z, long[] x, long[] y) {
+    long x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3];
+    long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+    long a, c, m, lo, hi, s;
+
+    // Round 0: t = (t + x*y[0] + m*p) / 2^64
+    long y0 = y[0];
+    lo = x0 * y0; hi = mulHigh(x0, y0); s = lo + t0; a = hi + carry(lo, t0, s); t0 = s;
+    m = t0 * P_INV;
+    lo = m * P0; s = lo + t0; c = mulHigh(m, P0) + carry(lo, t0, s);
+    lo = x1 * y0; hi = mulHigh(x1, y0); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t1 = s;
+    lo = m * P1; hi = mulHigh(m, P1); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t0 = s;
+    lo = x2 * y0; hi = mulHigh(x2, y0); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t2 = s;
+    lo = m * P2; hi = mulHigh(m, P2); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t1 = s;
+    lo = x3 * y0; hi = mulHigh(x3, y0); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t3 = s;
+    lo = m * P3; hi = mulHigh(m, P3); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t2 = s;
+    t3 = c + a;
+
+    // Round 1: t = (t + x*y[1] + m*p) / 2^64
+    long y1 = y[1];
+    lo = x0 * y1; hi = mulHigh(x0, y1); s = lo + t0; a = hi + carry(lo, t0, s); t0 = s;
+    m = t0 * P_INV;
+    lo = m * P0; s = lo + t0; c = mulHigh(m, P0) + carry(lo, t0, s);
+    lo = x1 * y1; hi = mulHigh(x1, y1); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t1 = s;
+    lo = m * P1; hi = mulHigh(m, P1); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t0 = s;
+    lo = x2 * y1; hi = mulHigh(x2, y1); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t2 = s;
+    lo = m * P2; hi = mulHigh(m, P2); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t1 = s;
+    lo = x3 * y1; hi = mulHigh(x3, y1); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t3 = s;
+    lo = m * P3; hi = mulHigh(m, P3); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t2 = s;
+    t3 = c + a;
+
+    // Round 2: t = (t + x*y[2] + m*p) / 2^64
+    long y2 = y[2];
+    lo = x0 * y2; hi = mulHigh(x0, y2); s = lo + t0; a = hi + carry(lo, t0, s); t0 = s;
+    m = t0 * P_INV;
+    lo = m * P0; s = lo + t0; c = mulHigh(m, P0) + carry(lo, t0, s);
+    lo = x1 * y2; hi = mulHigh(x1, y2); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t1 = s;
+    lo = m * P1; hi = mulHigh(m, P1); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t0 = s;
+    lo = x2 * y2; hi = mulHigh(x2, y2); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t2 = s;
+    lo = m * P2; hi = mulHigh(m, P2); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t1 = s;
+    lo = x3 * y2; hi = mulHigh(x3, y2); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t3 = s;
+    lo = m * P3; hi = mulHigh(m, P3); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t2 = s;
+    t3 = c + a;
+
+    // Round 3: t = (t + x*y[3] + m*p) / 2^64
+    long y3 = y[3];
+    lo = x0 * y3; hi = mulHigh(x0, y3); s = lo + t0; a = hi + carry(lo, t0, s); t0 = s;
+    m = t0 * P_INV;
+    lo = m * P0; s = lo + t0; c = mulHigh(m, P0) + carry(lo, t0, s);
+    lo = x1 * y3; hi = mulHigh(x1, y3); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t1 = s;
+    lo = m * P1; hi = mulHigh(m, P1); s = lo + t1; hi += carry(lo, t1, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t0 = s;
+    lo = x2 * y3; hi = mulHigh(x2, y3); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t2 = s;
+    lo = m * P2; hi = mulHigh(m, P2); s = lo + t2; hi += carry(lo, t2, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t1 = s;
+    lo = x3 * y3; hi = mulHigh(x3, y3); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + a; a = hi + carry(lo, a, s); t3 = s;
+    lo = m * P3; hi = mulHigh(m, P3); s = lo + t3; hi += carry(lo, t3, s); lo = s; s = lo + c; c = hi + carry(lo, c, s); t2 = s;
+    t3 = c + a;
+
+    reduce(z, t0, t1, t2, t3);
+  }
+
+  /**
+   * Computes x^-1 using Fermat's little theorem. The inverse of 0 is 0.
+   */
+  static void inverse(long[] z, long[] x) {
+    pow(z, x, INVERSE_EXPONENT);
+  }
+
+  /**
+   * Computes a square root of x if one exists.
+   * @return False if x is not a square, in which case z is undefined
+   */
+  static boolean sqrt(long[] z, long[] x) {
+    long[] root = create();
+    pow(root, x, SQRT_EXPONENT);
+    long[] check = create();
+    square(check, root);
+    if (!equals(check, x)) {
+      return false;
+    }
+    copy(z, root);
+    return true;
+  }
+
+  private static void pow(long[] z, long[] x, long[] exponent) {
+    long[] base = create();
+    copy(base, x);
+    long[] res = create();
+    setOne(res);
+    for (int i = 64 * LIMBS - 1; i >= 0; i--) {
+      square(res, res);
+      if (((exponent[i >>> 6] >>> (i & 63)) & 1) != 0) {
+        mul(res, res, base);
+      }
+    }
+    copy(z, res);
+  }
+
+  /**
+   * Stores t in z, subtracting p if t is not less than p. Requires t < 2p.
+   */
+  private static void reduce(long[] z, long t0, long t1, long t2, long t3) {
+    if (!lessThanModulus(t0, t1, t2, t3)) {
+      long d0 = t0 - P0;
+      long b = borrow(t0, P0, d0);
+      long d1 = t1 - P1 - b;
+      b = borrow(t1, P1, d1);
+      long d2 = t2 - P2 - b;
+      b = borrow(t2, P2, d2);
+      t3 = t3 - P3 - b;
+      t0 = d0;
+      t1 = d1;
+      t2 = d2;
+    }
+    z[0] = t0;
+    z[1] = t1;
+    z[2] = t2;
+    z[3] = t3;
+  }
+
+  private static boolean lessThanModulus(long t0, long t1, long t2, long t3) {
+    if (t3 != P3) {
+      return Long.compareUnsigned(t3, P3) < 0;
+    }
+    if (t2 != P2) {
+      return Long.compareUnsigned(t2, P2) < 0;
+    }
+    if (t1 != P1) {
+      return Long.compareUnsigned(t1, P1) < 0;
+    }
+    return Long.compareUnsigned(t0, P0) < 0;
+  }
+
+  // The high 64 bits of the unsigned 128 bit product of x and y
+  private static long mulHigh(long x, long y) {
+    return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+  }
+
+  // The carry out of the addition x + y (+ carry in) which resulted in sum
+  private static long carry(long x, long y, long sum) {
+    return ((x & y) | ((x | y) & ~sum)) >>> 63;
+  }
+
+  // The borrow out of the subtraction x - y (- borrow in) which resulted in difference
+  private static long borrow(long x, long y, long difference) {
+    return ((~x & y) | (~(x ^ y) & difference)) >>> 63;
+  }
+}
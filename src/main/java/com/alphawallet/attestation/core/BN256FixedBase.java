@@ -0,0 +1,57 @@
+package com.alphawallet.attestation.core;
+
+import java.math.BigInteger;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Fixed-base multiplication for a BN256 point using precomputed tables.
+ * For every window i of BN256Point.WINDOW_BITS bits of the scalar the table holds the affine
+ * points d*2^(WINDOW_BITS*i)*P for all non-zero digits d, so a multiplication only takes one mixed
+ * addition per window and no doublings. The tables take about 60 KB per base point.
+ * Instances are immutable and can be shared between threads.
+ */
+final class BN256FixedBase {
+  private static final int DIGITS = BN256Point.WINDOW_MASK;
+
+  private final long[][] xs;
+  private final long[][] ys;
+
+  BN256FixedBase(ECPoint base) {
+    BN256Point[] table = new BN256Point[BN256Point.WINDOWS * DIGITS];
+    // The base point of the current window, i.e. 2^(WINDOW_BITS*i)*P
+    BN256Point windowBase = BN256Point.fromECPoint(base);
+    BN256Point acc = new BN256Point();
+    for (int i = 0; i < BN256Point.WINDOWS; i++) {
+      acc.set(windowBase);
+      for (int d = 0; d < DIGITS; d++) {
+        table[i * DIGITS + d] = new BN256Point(acc);
+        acc.add(windowBase);
+      }
+      // acc is now 2^WINDOW_BITS times the current window base
+      windowBase.set(acc);
+    }
+    BN256Point.normalizeAll(table);
+    xs = new long[table.length][];
+    ys = new long[table.length][];
+    for (int i = 0; i < table.length; i++) {
+      xs[i] = table[i].x;
+      ys[i] = table[i].y;
+    }
+  }
+
+  /**
+   * Computes P*k, where k is reduced modulo the curve order.
+   * @return A new point which is generally not normalized
+   */
+  BN256Point multiply(BigInteger k) {
+    long[] scalar = BN256Point.scalarLimbs(k.mod(AttestationCrypto.curveOrder));
+    BN256Point res = new BN256Point();
+    for (int i = 0; i < BN256Point.WINDOWS; i++) {
+      int digit = BN256Point.window(scalar, i);
+      if (digit != 0) {
+        res.addAffine(xs[i * DIGITS + digit - 1], ys[i * DIGITS + digit - 1]);
+      }
+    }
+    return res;
+  }
+}
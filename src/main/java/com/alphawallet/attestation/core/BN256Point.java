@@ -0,0 +1,478 @@
+package com.alphawallet.attestation.core;
+
+import java.math.BigInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Mutable point on the BN256 curve y^2 = x^3 + 3 used by AttestationCrypto, in Jacobian
+ * coordinates (X, Y, Z) representing the affine point (X/Z^2, Y/Z^3), with coordinates in the
+ * Montgomery form of BN256Field. The point at infinity has Z = 0.
+ * The operations update the point in place, such that a single instance can be reused as the
+ * accumulator of a scalar multiplication without allocating intermediate points.
+ * Instances are not thread-safe.
+ */
+final class BN256Point {
+  private static final Logger logger = LogManager.getLogger(BN256Point.class);
+
+  static final int ENCODED_LENGTH = 1 + 2 * BN256Field.BYTES;
+  static final int COMPRESSED_LENGTH = 1 + BN256Field.BYTES;
+  // Bits of the scalar handled by each table lookup in scalar multiplication
+  static final int WINDOW_BITS = 4;
+  static final int WINDOW_MASK = (1 << WINDOW_BITS) - 1;
+  static final int WINDOWS = 64 * BN256Field.LIMBS / WINDOW_BITS;
+  private static final long[] B = BN256Field.create();
+  // Amount of temporary field elements needed by the point operations
+  private static final int TEMPORARIES = 7;
+
+  static {
+    BN256Field.fromBigInteger(B, BigInteger.valueOf(3));
+  }
+
+  final long[] x = BN256Field.create();
+  final long[] y = BN256Field.create();
+  final long[] z = BN256Field.create();
+  // Allocated on first use, since points stored in tables never need them
+  private long[][] tmp;
+
+  /**
+   * Constructs the point at infinity
+   */
+  BN256Point() {}
+
+  BN256Point(BN256Point other) {
+    set(other);
+  }
+
+  static BN256Point fromECPoint(ECPoint point) {
+    BN256Point res = new BN256Point();
+    if (point.isInfinity()) {
+      return res;
+    }
+    ECPoint normalized = point.isNormalized() ? point : point.normalize();
+    BN256Field.fromBigInteger(res.x, normalized.getAffineXCoord().toBigInteger());
+    BN256Field.fromBigInteger(res.y, normalized.getAffineYCoord().toBigInteger());
+    BN256Field.setOne(res.z);
+    return res;
+  }
+
+  /**
+   * Decodes a point in the SEC 1 encoding, that is, uncompressed, compressed, hybrid or the single
+   * zero byte encoding the point at infinity, like ECCurve.decodePoint.
+   * Encodings are untrusted input, so like ECCurve.decodePoint invalid ones are not logged, that
+   * is left to the callers.
+   * @throws IllegalArgumentException If the encoding is not valid or the point is not on the curve
+   */
+  static BN256Point decode(byte[] encoded) {
+    if (encoded.length == 0) {
+      throw new IllegalArgumentException("Empty point encoding");
+    }
+    BN256Point res = new BN256Point();
+    int type = encoded[0];
+    switch (type) {
+      case 0x00:
+        if (encoded.length != 1) {
+          throw new IllegalArgumentException("Incorrect length for infinity encoding");
+        }
+        return res;
+      case 0x02:
+      case 0x03:
+        if (encoded.length != COMPRESSED_LENGTH) {
+          throw new IllegalArgumentException("Incorrect length for compressed encoding");
+        }
+        if (!BN256Field.fromBytes(res.x, encoded, 1)) {
+          throw new IllegalArgumentException("Invalid point coordinates");
+        }
+        res.computeY(type & 1);
+        break;
+      case 0x04:
+      case 0x06:
+      case 0x07:
+        if (encoded.length != ENCODED_LENGTH) {
+          throw new IllegalArgumentException("Incorrect length for uncompressed encoding");
+        }
+        if (!BN256Field.fromBytes(res.x, encoded, 1)
+            || !BN256Field.fromBytes(res.y, encoded, 1 + BN256Field.BYTES)
+            || (type != 0x04 && BN256Field.parity(res.y) != (type & 1))) {
+          throw new IllegalArgumentException("Invalid point coordinates");
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid point encoding 0x" + Integer.toString(type & 0xff, 16));
+    }
+    BN256Field.setOne(res.z);
+    if (!res.isOnCurve()) {
+      throw new IllegalArgumentException("Invalid point coordinates");
+    }
+    return res;
+  }
+
+  private void computeY(int parity) {
+    long[] rhs = BN256Field.create();
+    BN256Field.square(rhs, x);
+    BN256Field.mul(rhs, rhs, x);
+    BN256Field.add(rhs, rhs, B);
+    if (!BN256Field.sqrt(y, rhs)) {
+      throw new IllegalArgumentException("Invalid point compression");
+    }
+    if (BN256Field.parity(y) != parity) {
+      BN256Field.negate(y, y);
+    }
+  }
+
+  /**
+   * Checks that the affine point (x, y) satisfies the curve equation, assuming z is 1
+   */
+  private boolean isOnCurve() {
+    long[] lhs = BN256Field.create();
+    long[] rhs = BN256Field.create();
+    BN256Field.square(lhs, y);
+    BN256Field.square(rhs, x);
+    BN256Field.mul(rhs, rhs, x);
+    BN256Field.add(rhs, rhs, B);
+    return BN256Field.equals(lhs, rhs);
+  }
+
+  boolean isInfinity() {
+    return BN256Field.isZero(z);
+  }
+
+  boolean isNormalized() {
+    return isInfinity() || BN256Field.isOne(z);
+  }
+
+  void setInfinity() {
+    BN256Field.setZero(x);
+    BN256Field.setOne(y);
+    BN256Field.setZero(z);
+  }
+
+  void set(BN256Point other) {
+    BN256Field.copy(x, other.x);
+    BN256Field.copy(y, other.y);
+    BN256Field.copy(z, other.z);
+  }
+
+  void negate() {
+    BN256Field.negate(y, y);
+  }
+
+  /**
+   * Doubles this point, using the formulas dbl-2009-l for curves with a = 0
+   */
+  void twice() {
+    if (isInfinity()) {
+      return;
+    }
+    long[][] t = temporaries();
+    long[] a = t[0], b = t[1], c = t[2], d = t[3], e = t[4];
+    BN256Field.square(a, x);
+    BN256Field.square(b, y);
+    BN256Field.square(c, b);
+    // D = 2*((X+B)^2 - A - C)
+    BN256Field.add(d, x, b);
+    BN256Field.square(d, d);
+    BN256Field.sub(d, d, a);
+    BN256Field.sub(d, d, c);
+    BN256Field.twice(d, d);
+    // E = 3*A, F = E^2 stored in a
+    BN256Field.twice(e, a);
+    BN256Field.add(e, e, a);
+    BN256Field.square(a, e);
+    // Z3 = 2*Y*Z
+    BN256Field.mul(z, y, z);
+    BN256Field.twice(z, z);
+    // X3 = F - 2*D
+    BN256Field.sub(x, a, d);
+    BN256Field.sub(x, x, d);
+    // Y3 = E*(D - X3) - 8*C
+    BN256Field.sub(d, d, x);
+    BN256Field.mul(y, e, d);
+    BN256Field.twice(c, c);
+    BN256Field.twice(c, c);
+    BN256Field.twice(c, c);
+    BN256Field.sub(y, y, c);
+  }
+
+  /**
+   * Adds other to this point. Normalized points are added using the cheaper mixed addition.
+   */
+  void add(BN256Point other) {
+    if (other == this) {
+      twice();
+    } else if (other.isInfinity()) {
+      return;
+    } else if (BN256Field.isOne(other.z)) {
+      addAffine(other.x, other.y);
+    } else if (isInfinity()) {
+      set(other);
+    } else {
+      addJacobian(other);
+    }
+  }
+
+  /**
+   * Adds the affine point (x2, y2) to this point, using the formulas madd-2007-bl
+   */
+  void addAffine(long[] x2, long[] y2) {
+    if (isInfinity()) {
+      BN256Field.copy(x, x2);
+      BN256Field.copy(y, y2);
+      BN256Field.setOne(z);
+      return;
+    }
+    long[][] t = temporaries();
+    long[] z1z1 = t[0], h = t[1], r = t[2], hh = t[3], i = t[4], j = t[5], v = t[6];
+    BN256Field.square(z1z1, z);
+    // H = X2*Z1Z1 - X1
+    BN256Field.mul(h, x2, z1z1);
+    BN256Field.sub(h, h, x);
+    // r = 2*(Y2*Z1*Z1Z1 - Y1)
+    BN256Field.mul(r, y2, z);
+    BN256Field.mul(r, r, z1z1);
+    BN256Field.sub(r, r, y);
+    BN256Field.twice(r, r);
+    if (BN256Field.isZero(h)) {
+      handleEqualX(r);
+      return;
+    }
+    BN256Field.square(hh, h);
+    // Z3 = (Z1+H)^2 - Z1Z1 - HH
+    BN256Field.add(z, z, h);
+    BN256Field.square(z, z);
+    BN256Field.sub(z, z, z1z1);
+    BN256Field.sub(z, z, hh);
+    // I = 4*HH, J = H*I, V = X1*I
+    BN256Field.twice(i, hh);
+    BN256Field.twice(i, i);
+    BN256Field.mul(j, h, i);
+    BN256Field.mul(v, x, i);
+    completeAddition(r, j, v);
+  }
+
+  /**
+   * Adds a point with arbitrary Z coordinate, using the formulas add-2007-bl
+   */
+  private void addJacobian(BN256Point other) {
+    long[][] t = temporaries();
+    long[] z1z1 = t[0], z2z2 = t[1], u1 = t[2], h = t[3], s1 = t[4], r = t[5];
+    BN256Field.square(z1z1, z);
+    BN256Field.square(z2z2, other.z);
+    BN256Field.mul(u1, x, z2z2);
+    // H = X2*Z1Z1 - U1
+    BN256Field.mul(h, other.x, z1z1);
+    BN256Field.sub(h, h, u1);
+    // S1 = Y1*Z2*Z2Z2, r = 2*(Y2*Z1*Z1Z1 - S1)
+    BN256Field.mul(s1, y, other.z);
+    BN256Field.mul(s1, s1, z2z2);
+    BN256Field.mul(r, other.y, z);
+    BN256Field.mul(r, r, z1z1);
+    BN256Field.sub(r, r, s1);
+    BN256Field.twice(r, r);
+    if (BN256Field.isZero(h)) {
+      handleEqualX(r);
+      return;
+    }
+    // Z3 = ((Z1+Z2)^2 - Z1Z1 - Z2Z2)*H
+    BN256Field.add(z, z, other.z);
+    BN256Field.square(z, z);
+    BN256Field.sub(z, z, z1z1);
+    BN256Field.sub(z, z, z2z2);
+    BN256Field.mul(z, z, h);
+    // I = (2*H)^2 stored in z1z1, J = H*I stored in z2z2, V = U1*I stored in u1
+    BN256Field.twice(z1z1, h);
+    BN256Field.square(z1z1, z1z1);
+    BN256Field.mul(z2z2, h, z1z1);
+    BN256Field.mul(u1, u1, z1z1);
+    // Replace Y1 by S1 such that the completion can use the same formula as mixed addition
+    BN256Field.copy(y, s1);
+    completeAddition(r, z2z2, u1);
+  }
+
+  /**
+   * Computes X3 = r^2 - J - 2*V and Y3 = r*(V - X3) - 2*Y*J, where Y holds Y1 or S1
+   */
+  private void completeAddition(long[] r, long[] j, long[] v) {
+    BN256Field.square(x, r);
+    BN256Field.sub(x, x, j);
+    BN256Field.sub(x, x, v);
+    BN256Field.sub(x, x, v);
+    BN256Field.sub(v, v, x);
+    BN256Field.mul(v, r, v);
+    BN256Field.mul(j, y, j);
+    BN256Field.twice(j, j);
+    BN256Field.sub(y, v, j);
+  }
+
+  // The points have the same x-coordinate, hence they are either equal or each other's negation
+  private void handleEqualX(long[] r) {
+    if (BN256Field.isZero(r)) {
+      twice();
+    } else {
+      setInfinity();
+    }
+  }
+
+  /**
+   * Multiplies this point by the scalar k, which must be in the range [0, 2^256), using a fixed
+   * window of WINDOW_BITS bits.
+   */
+  void multiply(BigInteger k) {
+    if (isInfinity()) {
+      return;
+    }
+    long[] scalar = scalarLimbs(k);
+    // Multiples 1*P, ..., 15*P of this point P
+    BN256Point[] multiples = new BN256Point[WINDOW_MASK];
+    multiples[0] = new BN256Point(this);
+    for (int i = 1; i < WINDOW_MASK; i++) {
+      add(multiples[0]);
+      multiples[i] = new BN256Point(this);
+    }
+    setInfinity();
+    for (int i = WINDOWS - 1; i >= 0; i--) {
+      for (int j = 0; j < WINDOW_BITS; j++) {
+        twice();
+      }
+      int digit = window(scalar, i);
+      if (digit != 0) {
+        add(multiples[digit - 1]);
+      }
+    }
+  }
+
+  /**
+   * Converts k, which must be in the range [0, 2^256), into four 64 bit limbs, least significant first
+   */
+  static long[] scalarLimbs(BigInteger k) {
+    if (k.signum() < 0 || k.bitLength() > 64 * BN256Field.LIMBS) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("Scalar is out of range"));
+    }
+    long[] res = new long[BN256Field.LIMBS];
+    for (int i = 0; i < BN256Field.LIMBS; i++) {
+      res[i] = k.shiftRight(64 * i).longValue();
+    }
+    return res;
+  }
+
+  /**
+   * Returns window i of WINDOW_BITS bits of the scalar
+   */
+  static int window(long[] scalar, int i) {
+    int bit = i * WINDOW_BITS;
+    return (int) (scalar[bit >>> 6] >>> (bit & 63)) & WINDOW_MASK;
+  }
+
+  /**
+   * Converts this point to affine coordinates, i.e. Z = 1, using a field inversion
+   */
+  void normalize() {
+    if (isNormalized()) {
+      return;
+    }
+    long[] zInverse = BN256Field.create();
+    BN256Field.inverse(zInverse, z);
+    applyInverse(zInverse);
+  }
+
+  /**
+   * Normalizes all points using a single field inversion (Montgomery's trick)
+   */
+  static void normalizeAll(BN256Point[] points) {
+    // products[i] is the product of the Z coordinates of the points before i which need normalization
+    long[][] products = new long[points.length + 1][];
+    products[0] = BN256Field.create();
+    BN256Field.setOne(products[0]);
+    for (int i = 0; i < points.length; i++) {
+      products[i + 1] = BN256Field.create();
+      if (points[i].isNormalized()) {
+        BN256Field.copy(products[i + 1], products[i]);
+      } else {
+        BN256Field.mul(products[i + 1], products[i], points[i].z);
+      }
+    }
+    long[] inverse = BN256Field.create();
+    BN256Field.inverse(inverse, products[points.length]);
+    long[] zInverse = BN256Field.create();
+    for (int i = points.length - 1; i >= 0; i--) {
+      if (points[i].isNormalized()) {
+        continue;
+      }
+      BN256Field.mul(zInverse, inverse, products[i]);
+      BN256Field.mul(inverse, inverse, points[i].z);
+      points[i].applyInverse(zInverse);
+    }
+  }
+
+  private void applyInverse(long[] zInverse) {
+    long[] zInverse2 = BN256Field.create();
+    BN256Field.square(zInverse2, zInverse);
+    BN256Field.mul(x, x, zInverse2);
+    BN256Field.mul(y, y, zInverse2);
+    BN256Field.mul(y, y, zInverse);
+    BN256Field.setOne(z);
+  }
+
+  /**
+   * Checks whether this point and other represent the same affine point, without normalizing
+   */
+  boolean isEqual(BN256Point other) {
+    if (isInfinity() || other.isInfinity()) {
+      return isInfinity() && other.isInfinity();
+    }
+    // Compare X1*Z2^2 with X2*Z1^2 and Y1*Z2^3 with Y2*Z1^3
+    long[] z1z1 = BN256Field.create();
+    long[] z2z2 = BN256Field.create();
+    long[] lhs = BN256Field.create();
+    long[] rhs = BN256Field.create();
+    BN256Field.square(z1z1, z);
+    BN256Field.square(z2z2, other.z);
+    BN256Field.mul(lhs, x, z2z2);
+    BN256Field.mul(rhs, other.x, z1z1);
+    if (!BN256Field.equals(lhs, rhs)) {
+      return false;
+    }
+    BN256Field.mul(lhs, y, z2z2);
+    BN256Field.mul(lhs, lhs, other.z);
+    BN256Field.mul(rhs, other.y, z1z1);
+    BN256Field.mul(rhs, rhs, z);
+    return BN256Field.equals(lhs, rhs);
+  }
+
+  /**
+   * Returns the uncompressed encoding of this point, which is byte-identical to
+   * ECPoint.getEncoded(false). The point gets normalized.
+   */
+  byte[] getEncoded() {
+    if (isInfinity()) {
+      return new byte[1];
+    }
+    normalize();
+    byte[] res = new byte[ENCODED_LENGTH];
+    res[0] = 0x04;
+    BN256Field.toBytes(x, res, 1);
+    BN256Field.toBytes(y, res, 1 + BN256Field.BYTES);
+    return res;
+  }
+
+  /**
+   * Returns this point as a normalized BouncyCastle point on AttestationCrypto.curve.
+   * The point gets normalized.
+   */
+  ECPoint toECPoint() {
+    if (isInfinity()) {
+      return AttestationCrypto.curve.getInfinity();
+    }
+    normalize();
+    return AttestationCrypto.curve.createPoint(BN256Field.toBigInteger(x), BN256Field.toBigInteger(y));
+  }
+
+  private long[][] temporaries() {
+    if (tmp == null) {
+      tmp = new long[TEMPORARIES][BN256Field.LIMBS];
+    }
+    return tmp;
+  }
+}
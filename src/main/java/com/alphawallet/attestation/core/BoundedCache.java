@@ -0,0 +1,185 @@
+package com.alphawallet.attestation.core;
+
+import java.time.Clock;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache holding at most maxSize entries. When the cache is full the entries that were
+ * inserted first get evicted first.
+ * Entries can optionally be given an expiration time, after which they are treated as absent.
+ * Hits and misses are counted to make it possible to monitor how efficient the cache is.
+ */
+public class BoundedCache<K, V> {
+  /**
+   * Expiration time of entries which never expire
+   */
+  public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+  private final int maxSize;
+  private final Clock clock;
+  private final ConcurrentHashMap<K, Entry<K, V>> entries;
+  // Entries in the order they were inserted. An entry which has since been removed or replaced stays
+  // in the queue until it is polled, and is then skipped since it is no longer the entry of its key
+  private final Queue<Entry<K, V>> insertionOrder;
+  // Size of insertionOrder, which may contain entries that have already been removed or replaced
+  private final AtomicInteger queued = new AtomicInteger();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public BoundedCache(int maxSize) {
+    this(maxSize, Clock.systemUTC());
+  }
+
+  /**
+   * @param clock The clock used to decide whether entries have expired
+   */
+  public BoundedCache(int maxSize, Clock clock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("The size of the cache must be positive");
+    }
+    this.maxSize = maxSize;
+    this.clock = clock;
+    this.entries = new ConcurrentHashMap<>();
+    this.insertionOrder = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Returns the value cached for key or null if no such value is cached or it has expired
+   */
+  public V get(K key) {
+    Entry<K, V> entry = entries.get(key);
+    if (entry != null && isExpired(entry)) {
+      entries.remove(key, entry);
+      entry = null;
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.value;
+  }
+
+  /**
+   * Returns the value cached for key. If no such value is cached it gets computed using
+   * mappingFunction and inserted in the cache.
+   * The computation is done without holding any locks, hence two threads might compute the same
+   * value concurrently, in which case the value of the first to finish is cached and returned to both.
+   */
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    V value = get(key);
+    if (value != null) {
+      return value;
+    }
+    V computed = mappingFunction.apply(key);
+    V existing = putIfAbsent(key, computed);
+    return existing != null ? existing : computed;
+  }
+
+  public void put(K key, V value) {
+    put(key, value, NO_EXPIRY);
+  }
+
+  /**
+   * Insert value such that it expires at the time expiresAt, in milliseconds since the epoch.
+   */
+  public void put(K key, V value, long expiresAt) {
+    Entry<K, V> newEntry = new Entry<>(key, value, expiresAt);
+    entries.put(key, newEntry);
+    // A replaced entry is skipped when it is polled, so the new one is queued even if the key was cached
+    enqueue(newEntry);
+  }
+
+  /**
+   * Insert value unless a value is already cached for key.
+   * @return The value already cached or null if the value got inserted
+   */
+  public V putIfAbsent(K key, V value) {
+    return putIfAbsent(key, value, NO_EXPIRY);
+  }
+
+  /**
+   * Insert value, expiring at the time expiresAt, unless a value that has not expired is already
+   * cached for key.
+   * @return The value already cached or null if the value got inserted
+   */
+  public V putIfAbsent(K key, V value, long expiresAt) {
+    Entry<K, V> newEntry = new Entry<>(key, value, expiresAt);
+    while (true) {
+      Entry<K, V> existing = entries.putIfAbsent(key, newEntry);
+      if (existing == null) {
+        enqueue(newEntry);
+        return null;
+      }
+      if (!isExpired(existing)) {
+        return existing.value;
+      }
+      if (entries.replace(key, existing, newEntry)) {
+        enqueue(newEntry);
+        return null;
+      }
+    }
+  }
+
+  private boolean isExpired(Entry<K, V> entry) {
+    return entry.expiresAt != NO_EXPIRY && clock.millis() >= entry.expiresAt;
+  }
+
+  private void enqueue(Entry<K, V> entry) {
+    insertionOrder.add(entry);
+    queued.incrementAndGet();
+    evict();
+  }
+
+  private void evict() {
+    // Also bound the queue since removed and replaced entries stay in it until they are polled
+    while (entries.size() > maxSize || queued.get() > 2 * maxSize) {
+      Entry<K, V> oldest = insertionOrder.poll();
+      if (oldest == null) {
+        return;
+      }
+      queued.decrementAndGet();
+      // Only evict the entry that was queued, not a newer entry inserted for the same key
+      entries.remove(oldest.key, oldest);
+    }
+  }
+
+  public void clear() {
+    entries.clear();
+    insertionOrder.clear();
+    queued.set(0);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  private static class Entry<K, V> {
+    private final K key;
+    private final V value;
+    private final long expiresAt;
+
+    private Entry(K key, V value, long expiresAt) {
+      this.key = key;
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
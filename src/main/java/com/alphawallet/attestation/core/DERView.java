@@ -0,0 +1,331 @@
+package com.alphawallet.attestation.core;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Read-only view of a single DER encoded element inside a byte array.
+ * Unlike ASN1InputStream, which builds a tree of objects that must be re-encoded to get the
+ * encoding of a child, the view only records where the element and its content start and end.
+ * The elements of a sequence are views into the same array, so children are sliced instead of
+ * re-encoded, and consecutive children can be wrapped in a new sequence with a single copy.
+ * The underlying array must not be modified while views of it are in use.
+ */
+public final class DERView {
+  public static final int TAG_INTEGER = 0x02;
+  public static final int TAG_BIT_STRING = 0x03;
+  public static final int TAG_OCTET_STRING = 0x04;
+  public static final int TAG_OBJECT_IDENTIFIER = 0x06;
+  public static final int TAG_SEQUENCE = 0x30;
+
+  private final byte[] data;
+  // Index of the first byte of the identifier
+  private final int start;
+  // Index of the first byte of the content
+  private final int contentStart;
+  // Index after the last byte of the content
+  private final int end;
+  private final int tag;
+  private DERView[] elements;
+
+  private DERView(byte[] data, int start, int contentStart, int end, int tag) {
+    this.data = data;
+    this.start = start;
+    this.contentStart = contentStart;
+    this.end = end;
+    this.tag = tag;
+  }
+
+  /**
+   * Returns a view of the element at the beginning of encoding. Data following the element is
+   * ignored, just as with ASN1InputStream.readObject.
+   * @throws IOException if the encoding is malformed or truncated
+   */
+  public static DERView parse(byte[] encoding) throws IOException {
+    return parse(encoding, 0, encoding.length);
+  }
+
+  /**
+   * Returns a view of the element starting at offset, which must end before limit
+   * @throws IOException if the encoding is malformed or truncated
+   */
+  public static DERView parse(byte[] data, int offset, int limit) throws IOException {
+    if (offset < 0 || limit > data.length || offset >= limit) {
+      throw malformed("Truncated DER element");
+    }
+    int pos = offset;
+    int tag = data[pos++] & 0xFF;
+    if ((tag & 0x1F) == 0x1F) {
+      // High tag number form, only the first byte is kept as the tag
+      do {
+        if (pos >= limit) {
+          throw malformed("Truncated DER identifier");
+        }
+      } while ((data[pos++] & 0x80) != 0);
+    }
+    if (pos >= limit) {
+      throw malformed("Truncated DER length");
+    }
+    int length = data[pos++] & 0xFF;
+    if (length > 0x7F) {
+      int lengthBytes = length & 0x7F;
+      // Indefinite lengths are not allowed in DER, and no element here exceeds 2^31 bytes
+      if (lengthBytes == 0 || lengthBytes > 4 || limit - pos < lengthBytes) {
+        throw malformed("Invalid DER length");
+      }
+      length = 0;
+      for (int i = 0; i < lengthBytes; i++) {
+        length = (length << 8) | (data[pos++] & 0xFF);
+      }
+      if (length < 0) {
+        throw malformed("Invalid DER length");
+      }
+    }
+    if (limit - pos < length) {
+      throw malformed("Truncated DER content");
+    }
+    return new DERView(data, offset, pos, pos + length, tag);
+  }
+
+  /**
+   * Returns the first byte of the identifier, e.g. TAG_SEQUENCE
+   */
+  public int getTag() {
+    return tag;
+  }
+
+  /**
+   * Returns the views of the elements of this constructed element, e.g. a sequence.
+   * The elements are parsed on the first call.
+   * @throws IOException if this element is not constructed or its content is malformed
+   */
+  public DERView[] getElements() throws IOException {
+    DERView[] res = elements;
+    if (res == null) {
+      if ((tag & 0x20) == 0) {
+        throw malformed("DER element is not constructed");
+      }
+      res = new DERView[4];
+      int count = 0;
+      for (int pos = contentStart; pos < end; pos = res[count++].end) {
+        if (count == res.length) {
+          res = Arrays.copyOf(res, 2 * count);
+        }
+        res[count] = parse(data, pos, end);
+      }
+      if (count != res.length) {
+        res = Arrays.copyOf(res, count);
+      }
+      elements = res;
+    }
+    return res;
+  }
+
+  /**
+   * Returns the view of the i'th element of this constructed element
+   * @throws IOException if there is no such element or the content is malformed
+   */
+  public DERView getElement(int i) throws IOException {
+    DERView[] res = getElements();
+    if (i < 0 || i >= res.length) {
+      throw malformed("Missing DER element");
+    }
+    return res[i];
+  }
+
+  public int size() throws IOException {
+    return getElements().length;
+  }
+
+  /**
+   * Returns a copy of the encoding of the element, including identifier and length.
+   * If the element spans the entire underlying array, the array itself is returned.
+   */
+  public byte[] getEncoded() {
+    if (start == 0 && end == data.length) {
+      return data;
+    }
+    return Arrays.copyOfRange(data, start, end);
+  }
+
+  /**
+   * Returns a copy of the content of the element
+   */
+  public byte[] getContent() {
+    return Arrays.copyOfRange(data, contentStart, end);
+  }
+
+  /**
+   * Returns a read-only buffer over the encoding of the element, without copying
+   */
+  public ByteBuffer getEncodedBuffer() {
+    return ByteBuffer.wrap(data, start, end - start).slice().asReadOnlyBuffer();
+  }
+
+  public int getEncodedLength() {
+    return end - start;
+  }
+
+  /**
+   * Returns whether this element has the same encoding, including identifier and length, as other
+   */
+  public boolean hasSameEncoding(DERView other) {
+    int length = end - start;
+    if (other.end - other.start != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (data[start + i] != other.data[other.start + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the value of an INTEGER
+   */
+  public BigInteger getInteger() throws IOException {
+    checkTag(TAG_INTEGER);
+    if (end == contentStart) {
+      throw malformed("Empty DER integer");
+    }
+    return new BigInteger(data, contentStart, end - contentStart);
+  }
+
+  /**
+   * Returns the bytes of a BIT STRING, which must not have unused bits
+   */
+  public byte[] getBitStringBytes() throws IOException {
+    checkTag(TAG_BIT_STRING);
+    if (end == contentStart || data[contentStart] != 0) {
+      throw malformed("DER bit string has unused bits");
+    }
+    return Arrays.copyOfRange(data, contentStart + 1, end);
+  }
+
+  /**
+   * Returns the bytes of an OCTET STRING
+   */
+  public byte[] getOctets() throws IOException {
+    checkTag(TAG_OCTET_STRING);
+    return getContent();
+  }
+
+  /**
+   * Returns the exception thrown for a malformed encoding.
+   * Malformed encodings are often garbage sent on purpose, so the exception does not capture the
+   * stack trace, which would cost more than parsing
+   */
+  public static IOException malformed(String message) {
+    return new MalformedEncodingException(message);
+  }
+
+  private static final class MalformedEncodingException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private MalformedEncodingException(String message) {
+      super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+
+  private void checkTag(int expected) throws IOException {
+    if (tag != expected) {
+      throw malformed("Unexpected DER tag " + tag);
+    }
+  }
+
+  /**
+   * Returns the DER encoding of a sequence of the elements from first to last, which must be
+   * consecutive elements of the same array, such as those returned by getElements
+   */
+  public static byte[] encodeSequence(DERView first, DERView last) {
+    return encodeSequence(first, last, null);
+  }
+
+  /**
+   * Returns the DER encoding of a sequence of the elements from first to last, which must be
+   * consecutive elements of the same array, followed by the encoded element trailing, if any
+   */
+  public static byte[] encodeSequence(DERView first, DERView last, byte[] trailing) {
+    if (first.data != last.data || first.start > last.start) {
+      throw new IllegalArgumentException("The elements are not consecutive elements of the same array");
+    }
+    int copied = last.end - first.start;
+    int contentLength = copied + (trailing == null ? 0 : trailing.length);
+    int lengthBytes = lengthBytes(contentLength);
+    byte[] res = new byte[1 + lengthBytes + contentLength];
+    res[0] = TAG_SEQUENCE;
+    int pos = writeLength(res, 1, contentLength, lengthBytes);
+    System.arraycopy(first.data, first.start, res, pos, copied);
+    if (trailing != null) {
+      System.arraycopy(trailing, 0, res, pos + copied, trailing.length);
+    }
+    return res;
+  }
+
+  /**
+   * Returns the DER encoding of a sequence of the already encoded elements
+   */
+  public static byte[] encodeSequence(byte[]... encodedElements) {
+    int contentLength = 0;
+    for (byte[] current : encodedElements) {
+      contentLength += current.length;
+    }
+    int lengthBytes = lengthBytes(contentLength);
+    byte[] res = new byte[1 + lengthBytes + contentLength];
+    res[0] = TAG_SEQUENCE;
+    int pos = writeLength(res, 1, contentLength, lengthBytes);
+    for (byte[] current : encodedElements) {
+      System.arraycopy(current, 0, res, pos, current.length);
+      pos += current.length;
+    }
+    return res;
+  }
+
+  /**
+   * Returns the DER encoding of a BIT STRING without unused bits holding bytes
+   */
+  public static byte[] encodeBitString(byte[] bytes) {
+    int contentLength = bytes.length + 1;
+    int lengthBytes = lengthBytes(contentLength);
+    byte[] res = new byte[1 + lengthBytes + contentLength];
+    res[0] = TAG_BIT_STRING;
+    int pos = writeLength(res, 1, contentLength, lengthBytes);
+    res[pos] = 0;
+    System.arraycopy(bytes, 0, res, pos + 1, bytes.length);
+    return res;
+  }
+
+  // Returns the amount of bytes needed to encode the length
+  private static int lengthBytes(int length) {
+    if (length < 0x80) {
+      return 1;
+    }
+    int bytes = 1;
+    for (int remaining = length; remaining != 0; remaining >>>= 8) {
+      bytes++;
+    }
+    return bytes;
+  }
+
+  // Writes the length and returns the index after it
+  private static int writeLength(byte[] dest, int pos, int length, int lengthBytes) {
+    if (lengthBytes == 1) {
+      dest[pos] = (byte) length;
+      return pos + 1;
+    }
+    dest[pos++] = (byte) (0x80 | (lengthBytes - 1));
+    for (int i = lengthBytes - 2; i >= 0; i--) {
+      dest[pos++] = (byte) (length >>> (8 * i));
+    }
+    return pos;
+  }
+}
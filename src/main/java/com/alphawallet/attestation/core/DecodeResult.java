@@ -0,0 +1,51 @@
+package com.alphawallet.attestation.core;
+
+/**
+ * The outcome of decoding and validating an object without throwing: either the object or the
+ * reason it was rejected.
+ * Rejections are shared instances, so rejecting an object allocates nothing.
+ */
+public final class DecodeResult<T> {
+  private static final DecodeResult<?>[] REJECTIONS = new DecodeResult<?>[RejectionReason.values().length];
+  static {
+    for (RejectionReason reason : RejectionReason.values()) {
+      REJECTIONS[reason.ordinal()] = new DecodeResult<>(null, reason);
+    }
+  }
+
+  private final T result;
+  private final RejectionReason reason;
+
+  private DecodeResult(T result, RejectionReason reason) {
+    this.result = result;
+    this.reason = reason;
+  }
+
+  public static <T> DecodeResult<T> accepted(T result) {
+    return new DecodeResult<>(result, null);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> DecodeResult<T> rejected(RejectionReason reason) {
+    // The rejections hold no object, so they can be shared between all types
+    return (DecodeResult<T>) REJECTIONS[reason.ordinal()];
+  }
+
+  public boolean isAccepted() {
+    return reason == null;
+  }
+
+  /**
+   * Returns the decoded object or null if it was rejected
+   */
+  public T getResult() {
+    return result;
+  }
+
+  /**
+   * Returns the reason the object was rejected or null if it was accepted
+   */
+  public RejectionReason getReason() {
+    return reason;
+  }
+}
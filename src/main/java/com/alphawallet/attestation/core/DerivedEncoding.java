@@ -0,0 +1,37 @@
+package com.alphawallet.attestation.core;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Memoizes an encoding derived from the encoding of a component, such as a signed object wrapping
+ * a memoized unsigned encoding. The derived encoding is recomputed only when the component returns
+ * a different array, i.e. when the component has been modified, so components must return the
+ * same array for as long as they are unchanged.
+ * Safe to share between threads.
+ */
+public final class DerivedEncoding {
+  private volatile Entry entry;
+
+  /**
+   * Returns the encoding derived from source, computing it with derive unless it is known already
+   */
+  public byte[] get(byte[] source, UnaryOperator<byte[]> derive) {
+    Entry current = entry;
+    if (current != null && current.source == source) {
+      return current.encoding;
+    }
+    byte[] res = derive.apply(source);
+    entry = new Entry(source, res);
+    return res;
+  }
+
+  private static final class Entry {
+    private final byte[] source;
+    private final byte[] encoding;
+
+    private Entry(byte[] source, byte[] encoding) {
+      this.source = source;
+      this.encoding = encoding;
+    }
+  }
+}
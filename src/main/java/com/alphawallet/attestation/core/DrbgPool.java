@@ -0,0 +1,224 @@
+package com.alphawallet.attestation.core;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.prng.SP800SecureRandom;
+import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+
+/**
+ * SecureRandom backed by a pool of NIST SP 800-90A Hash DRBGs using SHA256.
+ * Each request is served by the DRBG of the stripe the calling thread maps to, such that threads
+ * rarely contend for the same instance, as opposed to a single shared SecureRandom.
+ * Every DRBG is seeded independently from an entropy source, by default a system SecureRandom,
+ * and reseeded from it after a fixed amount of requests. Since the entropy source is only used
+ * for (re)seeding, requests never block on the entropy of the system.
+ * The amount of requests, the requests that had to wait for another thread and the reseeds are
+ * counted to make it possible to monitor the pool.
+ */
+public class DrbgPool extends SecureRandom {
+  private static final long serialVersionUID = 1L;
+  private static final Logger logger = LogManager.getLogger(DrbgPool.class);
+
+  // Default amount of requests served by a DRBG before it gets reseeded
+  public static final long DEFAULT_RESEED_INTERVAL = 1 << 16;
+  // BouncyCastle limits a single Hash DRBG request to 2^18 bits
+  private static final int MAX_REQUEST_BYTES = (1 << 18) / 8;
+  private static final int NONCE_BYTES = 16;
+  private static final int SECURITY_STRENGTH = 256;
+
+  private final SecureRandom entropySource;
+  private final Stripe[] stripes;
+  private final long reseedInterval;
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder contendedRequests = new LongAdder();
+  private final LongAdder reseeds = new LongAdder();
+
+  /**
+   * Constructs a pool seeded from a new system SecureRandom, with two stripes per available
+   * processor, rounded up to a power of two.
+   */
+  public DrbgPool() {
+    this(new SecureRandom(), 2 * Runtime.getRuntime().availableProcessors(), DEFAULT_RESEED_INTERVAL);
+  }
+
+  /**
+   * @param entropySource The source used to seed and reseed the DRBGs
+   * @param stripes The amount of DRBGs, which gets rounded up to a power of two
+   * @param reseedInterval The amount of requests a DRBG serves before it gets reseeded
+   */
+  public DrbgPool(SecureRandom entropySource, int stripes, long reseedInterval) {
+    super(null, null);
+    if (stripes < 1 || stripes > (1 << 16)) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("The amount of stripes must be between 1 and 65536"));
+    }
+    if (reseedInterval < 1) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("The reseed interval must be positive"));
+    }
+    this.entropySource = entropySource;
+    this.reseedInterval = reseedInterval;
+    int amount = Integer.highestOneBit(stripes);
+    if (amount < stripes) {
+      amount <<= 1;
+    }
+    Stripe[] newStripes = new Stripe[amount];
+    for (int i = 0; i < amount; i++) {
+      newStripes[i] = new Stripe(makeDrbg(i));
+    }
+    this.stripes = newStripes;
+  }
+
+  /**
+   * Returns a pool shared by the whole application, constructed on first use
+   */
+  public static DrbgPool getInstance() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  private SP800SecureRandom makeDrbg(int index) {
+    byte[] nonce = new byte[NONCE_BYTES];
+    entropySource.nextBytes(nonce);
+    // Make the personalization string unique to the stripe and the construction of the pool
+    byte[] personalization = ByteBuffer.allocate(Integer.BYTES + Long.BYTES)
+        .putInt(index).putLong(System.nanoTime()).array();
+    // Not prediction resistant, since that would draw on the entropy source for every request
+    return new SP800SecureRandomBuilder(entropySource, false)
+        .setSecurityStrength(SECURITY_STRENGTH)
+        .setEntropyBitsRequired(SECURITY_STRENGTH)
+        .setPersonalizationString(personalization)
+        .buildHash(new SHA256Digest(), nonce, false);
+  }
+
+  @Override
+  public void nextBytes(byte[] bytes) {
+    Stripe stripe = stripes[stripeIndex()];
+    if (!stripe.lock.tryLock()) {
+      contendedRequests.increment();
+      stripe.lock.lock();
+    }
+    try {
+      if (stripe.requestsSinceReseed >= reseedInterval) {
+        stripe.drbg.reseed((byte[]) null);
+        stripe.requestsSinceReseed = 0;
+        reseeds.increment();
+      }
+      if (bytes.length <= MAX_REQUEST_BYTES) {
+        stripe.drbg.nextBytes(bytes);
+      } else {
+        byte[] chunk = new byte[MAX_REQUEST_BYTES];
+        for (int offset = 0; offset < bytes.length; offset += MAX_REQUEST_BYTES) {
+          int length = Math.min(MAX_REQUEST_BYTES, bytes.length - offset);
+          if (length < MAX_REQUEST_BYTES) {
+            chunk = new byte[length];
+          }
+          stripe.drbg.nextBytes(chunk);
+          System.arraycopy(chunk, 0, bytes, offset, length);
+        }
+      }
+      stripe.requestsSinceReseed++;
+    } finally {
+      stripe.lock.unlock();
+    }
+    requests.increment();
+  }
+
+  private int stripeIndex() {
+    // Spread the sequentially assigned thread ids over the stripes
+    long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return (int) (id >>> 32) & (stripes.length - 1);
+  }
+
+  /**
+   * Returns seed material directly from the entropy source
+   */
+  @Override
+  public byte[] generateSeed(int numBytes) {
+    return entropySource.generateSeed(numBytes);
+  }
+
+  /**
+   * Mixes the seed into the state of all DRBGs, supplementing rather than replacing their seed
+   */
+  @Override
+  public void setSeed(byte[] seed) {
+    // Called by the constructor of java.util.Random before the stripes have been constructed
+    if (stripes == null) {
+      return;
+    }
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        stripe.drbg.reseed(seed);
+        stripe.requestsSinceReseed = 0;
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    reseeds.add(stripes.length);
+  }
+
+  @Override
+  public void setSeed(long seed) {
+    setSeed(ByteBuffer.allocate(Long.BYTES).putLong(seed).array());
+  }
+
+  /**
+   * Reseeds all DRBGs from the entropy source
+   */
+  @Override
+  public void reseed() {
+    setSeed(null);
+  }
+
+  @Override
+  public String getAlgorithm() {
+    return "SHA256-HashDRBG-Pool";
+  }
+
+  public int getStripes() {
+    return stripes.length;
+  }
+
+  public long getReseedInterval() {
+    return reseedInterval;
+  }
+
+  /**
+   * Returns the amount of requests served
+   */
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  /**
+   * Returns the amount of requests which had to wait for another thread using the same DRBG
+   */
+  public long getContendedRequests() {
+    return contendedRequests.sum();
+  }
+
+  public long getReseeds() {
+    return reseeds.sum();
+  }
+
+  private static final class Stripe {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SP800SecureRandom drbg;
+    // Guarded by lock
+    private long requestsSinceReseed;
+
+    private Stripe(SP800SecureRandom drbg) {
+      this.drbg = drbg;
+    }
+  }
+
+  private static final class DefaultHolder {
+    private static final DrbgPool INSTANCE = new DrbgPool();
+  }
+}
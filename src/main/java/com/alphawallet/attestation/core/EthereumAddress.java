@@ -0,0 +1,187 @@
+package com.alphawallet.attestation.core;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Immutable 20 byte Ethereum address.
+ * The address is kept as three primitive values instead of a hex string, such that addresses can
+ * be compared and hashed without allocating. Comparison is constant time.
+ * The string representation, "0x" followed by 40 upper case hex digits, is only computed when
+ * converting at the edges of the API.
+ */
+public final class EthereumAddress {
+  private static final Logger logger = LogManager.getLogger(EthereumAddress.class);
+
+  public static final int LENGTH = 20;
+  // Characters in the string representation, including the 0x prefix
+  public static final int STRING_LENGTH = 2 + 2 * LENGTH;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  // Bytes 0-7, 8-15 and 16-19 in big endian order
+  private final long high;
+  private final long middle;
+  private final int low;
+
+  private EthereumAddress(long high, long middle, int low) {
+    this.high = high;
+    this.middle = middle;
+    this.low = low;
+  }
+
+  /**
+   * Constructs the address from the 20 bytes of input starting at offset
+   */
+  public static EthereumAddress fromBytes(byte[] input, int offset) {
+    if (offset < 0 || input.length - offset < LENGTH) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("An address consists of 20 bytes"));
+    }
+    return new EthereumAddress(readBits(input, offset, 8), readBits(input, offset + 8, 8),
+        (int) readBits(input, offset + 16, 4));
+  }
+
+  /**
+   * Parses an address, "0x" followed by 40 hex digits of any case.
+   * @return The address or null if the input is not an address
+   */
+  public static EthereumAddress parse(CharSequence address) {
+    if (address.length() != STRING_LENGTH || address.charAt(0) != '0'
+        || (address.charAt(1) != 'x' && address.charAt(1) != 'X')) {
+      return null;
+    }
+    long high = 0;
+    long middle = 0;
+    long low = 0;
+    for (int i = 0; i < 2 * LENGTH; i++) {
+      int digit = hexDigit(address.charAt(2 + i));
+      if (digit < 0) {
+        return null;
+      }
+      if (i < 16) {
+        high = (high << 4) | digit;
+      } else if (i < 32) {
+        middle = (middle << 4) | digit;
+      } else {
+        low = (low << 4) | digit;
+      }
+    }
+    return new EthereumAddress(high, middle, (int) low);
+  }
+
+  /**
+   * Parses an address, "0x" followed by 40 hex digits of any case.
+   * @throws IllegalArgumentException if the input is not an address
+   */
+  public static EthereumAddress fromString(CharSequence address) {
+    EthereumAddress res = parse(address);
+    if (res == null) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("Address is not valid"));
+    }
+    return res;
+  }
+
+  public byte[] getBytes() {
+    byte[] res = new byte[LENGTH];
+    writeBits(high, res, 0, 8);
+    writeBits(middle, res, 8, 8);
+    writeBits(low, res, 16, 4);
+    return res;
+  }
+
+  /**
+   * Writes the address as STRING_LENGTH ASCII characters in upper case, including an upper case
+   * "0X" prefix, to dest starting at offset. This is the encoding used in nonces.
+   */
+  public void writeAscii(byte[] dest, int offset) {
+    dest[offset] = '0';
+    dest[offset + 1] = 'X';
+    for (int i = 0; i < 2 * LENGTH; i++) {
+      dest[offset + 2 + i] = (byte) HEX_DIGITS[nibble(i)];
+    }
+  }
+
+  /**
+   * Returns whether src holds the address encoded as by writeAscii, starting at offset.
+   * The comparison takes the same time regardless of where the encodings differ.
+   */
+  public boolean matchesAscii(byte[] src, int offset) {
+    if (offset < 0 || src.length - offset < STRING_LENGTH) {
+      return false;
+    }
+    int diff = (src[offset] ^ '0') | (src[offset + 1] ^ 'X');
+    for (int i = 0; i < 2 * LENGTH; i++) {
+      diff |= src[offset + 2 + i] ^ HEX_DIGITS[nibble(i)];
+    }
+    return diff == 0;
+  }
+
+  // Returns the i'th hex digit of the address, counted from the most significant
+  private int nibble(int i) {
+    if (i < 16) {
+      return (int) (high >>> (60 - 4 * i)) & 0xF;
+    } else if (i < 32) {
+      return (int) (middle >>> (60 - 4 * (i - 16))) & 0xF;
+    }
+    return (low >>> (28 - 4 * (i - 32))) & 0xF;
+  }
+
+  /**
+   * Returns whether the addresses are equal, in constant time
+   */
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof EthereumAddress)) {
+      return false;
+    }
+    EthereumAddress that = (EthereumAddress) other;
+    return ((high ^ that.high) | (middle ^ that.middle) | (low ^ that.low)) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    // The address is a hash, so all bits are equally distributed
+    return (int) (high ^ (high >>> 32) ^ middle ^ (middle >>> 32)) ^ low;
+  }
+
+  /**
+   * Returns the address as "0x" followed by 40 upper case hex digits
+   */
+  @Override
+  public String toString() {
+    char[] res = new char[STRING_LENGTH];
+    res[0] = '0';
+    res[1] = 'x';
+    for (int i = 0; i < 2 * LENGTH; i++) {
+      res[2 + i] = HEX_DIGITS[nibble(i)];
+    }
+    return new String(res);
+  }
+
+  // Returns the value of an ASCII hex digit or -1 if c is not one
+  private static int hexDigit(char c) {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    } else if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    } else if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    return -1;
+  }
+
+  private static long readBits(byte[] input, int offset, int bytes) {
+    long res = 0;
+    for (int i = 0; i < bytes; i++) {
+      res = (res << 8) | (input[offset + i] & 0xFF);
+    }
+    return res;
+  }
+
+  private static void writeBits(long value, byte[] dest, int offset, int bytes) {
+    for (int i = 0; i < bytes; i++) {
+      dest[offset + i] = (byte) (value >>> (8 * (bytes - 1 - i)));
+    }
+  }
+}
@@ -25,5 +25,4 @@ public class ExceptionUtil {
     logger.fatal(cause.getMessage(), cause);
     throw (T) cause;
   }
-
 }
@@ -0,0 +1,65 @@
+package com.alphawallet.attestation.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.bouncycastle.crypto.util.PublicKeyFactory;
+
+/**
+ * Interns the public keys decoded from DER encoded SubjectPublicKeyInfo.
+ * Tickets, cheques and attestations are signed by a small set of keys, so instead of decoding
+ * the point and hashing it into an Ethereum address for every object, the decoded key is looked
+ * up by its encoding. Secp256k1 keys are interned as InternedKey, which holds the Ethereum address
+ * computed when the key was first decoded. The keys are immutable, so they are safely shared.
+ */
+final class PublicKeyCache {
+  // Maximum amount of distinct keys kept
+  private static final int CACHE_SIZE = 1000;
+  private static final BoundedCache<ByteBuffer, AsymmetricKeyParameter> keys = new BoundedCache<>(CACHE_SIZE);
+
+  private PublicKeyCache() {}
+
+  /**
+   * Returns the public key encoded in the SubjectPublicKeyInfo spki
+   */
+  static AsymmetricKeyParameter restore(byte[] spki) throws IOException {
+    AsymmetricKeyParameter key = keys.get(ByteBuffer.wrap(spki));
+    if (key != null) {
+      return key;
+    }
+    key = PublicKeyFactory.createKey(SubjectPublicKeyInfo.getInstance(spki));
+    if (key instanceof ECPublicKeyParameters && !key.isPrivate()
+        && Secp256k1Signer.supports(((ECPublicKeyParameters) key).getParameters())) {
+      key = new InternedKey((ECPublicKeyParameters) key);
+    }
+    // The array is cloned since the caller may modify it afterwards
+    AsymmetricKeyParameter previous = keys.putIfAbsent(ByteBuffer.wrap(spki.clone()), key);
+    return previous != null ? previous : key;
+  }
+
+  static long getHits() {
+    return keys.getHits();
+  }
+
+  static long getMisses() {
+    return keys.getMisses();
+  }
+
+  /**
+   * A secp256k1 public key along with its Ethereum address
+   */
+  static final class InternedKey extends ECPublicKeyParameters {
+    private final EthereumAddress address;
+
+    private InternedKey(ECPublicKeyParameters key) {
+      super(key.getQ().normalize(), key.getParameters());
+      this.address = Secp256k1Recovery.addressFromPoint(getQ());
+    }
+
+    EthereumAddress getAddress() {
+      return address;
+    }
+  }
+}
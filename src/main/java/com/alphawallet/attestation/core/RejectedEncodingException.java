@@ -0,0 +1,20 @@
+package com.alphawallet.attestation.core;
+
+/**
+ * Thrown by constructors which decode an object without verifying it, when the encoding turns out
+ * to be malformed. Constructors cannot return null like the decodeUnverified methods do, so a
+ * single instance without stack trace is thrown instead, such that rejecting garbage input does
+ * not construct an exception. The decodeUnverified methods and ValidationPipeline catch it.
+ * Components of unverified objects which are decoded on first use throw it as well, in which case
+ * ValidationPipeline rejects the object in the PARSE stage.
+ */
+public final class RejectedEncodingException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public static final RejectedEncodingException INSTANCE = new RejectedEncodingException();
+
+  private RejectedEncodingException() {
+    // The instance is shared, so it neither records a stack trace nor suppressed exceptions
+    super("Malformed encoding", null, false, false);
+  }
+}
@@ -0,0 +1,36 @@
+package com.alphawallet.attestation.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the objects rejected by ValidationPipeline.tryValidate for each reason, in place of
+ * logging every rejection. Safe to share between threads.
+ */
+public final class RejectionCounter {
+  private final LongAdder[] counts = new LongAdder[RejectionReason.values().length];
+
+  public RejectionCounter() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  public void record(RejectionReason reason) {
+    counts[reason.ordinal()].increment();
+  }
+
+  /**
+   * Returns the amount of objects rejected for reason
+   */
+  public long get(RejectionReason reason) {
+    return counts[reason.ordinal()].sum();
+  }
+
+  public long getTotal() {
+    long res = 0;
+    for (LongAdder current : counts) {
+      res += current.sum();
+    }
+    return res;
+  }
+}
@@ -0,0 +1,39 @@
+package com.alphawallet.attestation.core;
+
+/**
+ * The reason an object was rejected by ValidationPipeline.tryValidate, one for each stage of
+ * ValidationStage
+ */
+public enum RejectionReason {
+  MALFORMED,
+  INVALID_STRUCTURE,
+  INVALID_TIME,
+  WRONG_DOMAIN,
+  INVALID_NONCE,
+  INVALID_SIGNATURE,
+  INVALID_PROOF;
+
+  /**
+   * Returns the reason for an object rejected in stage
+   */
+  public static RejectionReason of(ValidationStage stage) {
+    switch (stage) {
+      case PARSE:
+        return MALFORMED;
+      case STRUCTURE:
+        return INVALID_STRUCTURE;
+      case TIME:
+        return INVALID_TIME;
+      case DOMAIN:
+        return WRONG_DOMAIN;
+      case NONCE:
+        return INVALID_NONCE;
+      case SIGNATURE:
+        return INVALID_SIGNATURE;
+      case PROOF:
+        return INVALID_PROOF;
+      default:
+        throw new IllegalArgumentException("Unknown stage " + stage);
+    }
+  }
+}
@@ -0,0 +1,187 @@
+package com.alphawallet.attestation.core;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * Bounded pool of precomputed (hiding, t = H*hiding) pairs for the Schnorr proofs constructed by
+ * AttestationCrypto. The pairs do not depend on the statement being proven, so computing them
+ * ahead of time leaves only hashing and computing the response on the request path.
+ * Whenever the amount of pairs drops below the refill threshold, background threads with minimum
+ * priority fill the pool up to its capacity again, hence the pool mostly gets filled while the
+ * service is otherwise idle. Each pair is removed from the pool when it is taken, so it is never
+ * used more than once. When the pool is empty the prover falls back to computing a pair inline.
+ */
+public class SchnorrPairPool implements AutoCloseable {
+  private static final Logger logger = LogManager.getLogger(SchnorrPairPool.class);
+
+  private final SecureRandom rand;
+  private final int capacity;
+  private final int refillThreshold;
+  private final int threads;
+  private final BlockingQueue<Pair> pairs;
+  private final ExecutorService executor;
+  // Amount of refill tasks currently running, at most threads
+  private final AtomicInteger activeRefills = new AtomicInteger();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder generated = new LongAdder();
+  private volatile boolean closed;
+
+  /**
+   * Constructs a pool refilled by a single background thread once it is less than half full
+   */
+  public SchnorrPairPool(SecureRandom rand, int capacity) {
+    this(rand, capacity, capacity / 2, 1);
+  }
+
+  /**
+   * Constructs a pool and starts filling it in the background.
+   * @param rand The randomness used to sample the hiding values
+   * @param capacity The maximum amount of pairs kept
+   * @param refillThreshold The pool gets refilled when it holds less than this amount of pairs
+   * @param threads The amount of background threads computing pairs
+   */
+  public SchnorrPairPool(SecureRandom rand, int capacity, int refillThreshold, int threads) {
+    if (capacity < 1 || refillThreshold < 0 || refillThreshold > capacity || threads < 1) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("Invalid pool parameters"));
+    }
+    this.rand = rand;
+    this.capacity = capacity;
+    this.refillThreshold = refillThreshold;
+    this.threads = threads;
+    this.pairs = new ArrayBlockingQueue<>(capacity);
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "schnorr-pair-pool");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    requestRefill();
+  }
+
+  /**
+   * Takes a pair out of the pool.
+   * @return The pair or null if the pool is empty
+   */
+  Pair poll() {
+    Pair pair = closed ? null : pairs.poll();
+    if (pair == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    if (pairs.size() < refillThreshold) {
+      requestRefill();
+    }
+    return pair;
+  }
+
+  /**
+   * Fills the pool up to its capacity on the calling thread, e.g. to warm it up on startup
+   */
+  public void fill() {
+    while (!closed && pairs.remainingCapacity() > 0) {
+      if (!pairs.offer(computePair())) {
+        return;
+      }
+    }
+  }
+
+  private void requestRefill() {
+    // Start refill tasks until one runs on each thread
+    while (!closed) {
+      int active = activeRefills.get();
+      if (active >= threads) {
+        return;
+      }
+      if (activeRefills.compareAndSet(active, active + 1)) {
+        try {
+          executor.execute(this::refill);
+        } catch (RejectedExecutionException e) {
+          // The pool got closed concurrently
+          activeRefills.decrementAndGet();
+          return;
+        }
+      }
+    }
+  }
+
+  private void refill() {
+    try {
+      fill();
+    } catch (RuntimeException e) {
+      logger.error("Could not precompute Schnorr pairs", e);
+    } finally {
+      activeRefills.decrementAndGet();
+    }
+  }
+
+  private Pair computePair() {
+    BigInteger hiding = AttestationCrypto.makeSecret(rand);
+    Pair pair = new Pair(hiding, AttestationCrypto.multiplyH(hiding));
+    generated.increment();
+    return pair;
+  }
+
+  /**
+   * Stops the background threads and discards all pairs
+   */
+  @Override
+  public void close() {
+    closed = true;
+    executor.shutdownNow();
+    pairs.clear();
+  }
+
+  public int size() {
+    return pairs.size();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the amount of pairs taken from the pool
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the amount of times the pool was empty, such that the pair had to be computed inline
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the amount of pairs computed for the pool
+   */
+  public long getGenerated() {
+    return generated.sum();
+  }
+
+  static final class Pair {
+    final BigInteger hiding;
+    // H*hiding, normalized
+    final ECPoint t;
+
+    private Pair(BigInteger hiding, ECPoint t) {
+      this.hiding = hiding;
+      this.t = t;
+    }
+  }
+}
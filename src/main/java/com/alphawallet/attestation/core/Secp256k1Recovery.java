@@ -0,0 +1,151 @@
+package com.alphawallet.attestation.core;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+
+/**
+ * Public key recovery and address derivation for Ethereum signatures.
+ * The computations are done on BouncyCastle's custom secp256k1 implementation, which uses a
+ * specialised field arithmetic, Jacobian coordinates and the GLV endomorphism of the curve to
+ * split the scalars of R*u2 - G*u1. Recovered keys are returned on the curve of
+ * SignatureUtility.ECDSA_DOMAIN to stay interchangeable with keys constructed elsewhere.
+ */
+final class Secp256k1Recovery {
+  private static final Logger logger = LogManager.getLogger(Secp256k1Recovery.class);
+
+  private static final X9ECParameters CURVE_PARAMS = CustomNamedCurves.getByName("secp256k1");
+  private static final ECCurve CURVE = CURVE_PARAMS.getCurve();
+  private static final ECPoint G = CURVE_PARAMS.getG();
+  private static final BigInteger N = CURVE_PARAMS.getN();
+  private static final int ENCODED_POINT_LENGTH = 65;
+  private static final int COMPRESSED_POINT_LENGTH = 33;
+  // Maximum amount of public keys for which the address is cached
+  private static final int ADDRESS_CACHE_SIZE = 10000;
+  private static final BoundedCache<ByteBuffer, EthereumAddress> addressCache = new BoundedCache<>(ADDRESS_CACHE_SIZE);
+
+  private Secp256k1Recovery() {}
+
+  /**
+   * Recovers the public key from an ECDSA signature (r, s) on digest.
+   * @param yParity The parity of the y-coordinate of the point R
+   * @return The normalized public key point on the curve of SignatureUtility.ECDSA_DOMAIN
+   */
+  static ECPoint recoverPublicKey(BigInteger r, BigInteger s, byte yParity, byte[] digest) {
+    if (r.signum() <= 0 || r.compareTo(N) >= 0 || s.signum() <= 0 || s.compareTo(N) >= 0) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("Signature values are out of range"));
+    }
+    BigInteger z = new BigInteger(1, digest);
+    // Decompression computes the square root using the specialised field arithmetic
+    byte[] compressedR = new byte[COMPRESSED_POINT_LENGTH];
+    compressedR[0] = (byte) (0x02 | (yParity & 1));
+    BigIntegers.asUnsignedByteArray(r, compressedR, 1, COMPRESSED_POINT_LENGTH - 1);
+    ECPoint R = CURVE.decodePoint(compressedR);
+    BigInteger rInverse = r.modInverse(N);
+    BigInteger u1 = z.multiply(rInverse).mod(N);
+    BigInteger u2 = s.multiply(rInverse).mod(N);
+    // Compute R*u2 - G*u1 as R*u2 + G*(n-u1) in a single interleaved GLV multiplication
+    ECPoint publicKey = ECAlgorithms.sumOfTwoMultiplies(R, u2, G, N.subtract(u1)).normalize();
+    if (publicKey.isInfinity()) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("The recovered public key is the point at infinity"));
+    }
+    return SignatureUtility.ECDSA_DOMAIN.getCurve().createPoint(
+        publicKey.getAffineXCoord().toBigInteger(), publicKey.getAffineYCoord().toBigInteger());
+  }
+
+  /**
+   * Recovers the public keys of many ECDSA signatures at once.
+   * The inverses of all r values are computed with a single modular inversion using Montgomery's
+   * trick and the recovered points are normalized with a single field inversion, leaving one
+   * interleaved GLV multiplication per signature.
+   * @param parities The parities of the y-coordinates of the points R
+   * @return The public key points, on the custom secp256k1 curve, with null in place of the
+   * signatures from which no key could be recovered
+   */
+  static ECPoint[] recoverPublicKeys(BigInteger[] rs, BigInteger[] ss, byte[] parities, byte[][] digests) {
+    int amount = rs.length;
+    ECPoint[] Rs = new ECPoint[amount];
+    // The indices of the valid signatures and the running products of their r values
+    int[] valid = new int[amount];
+    BigInteger[] products = new BigInteger[amount];
+    int validAmount = 0;
+    BigInteger product = BigInteger.ONE;
+    for (int i = 0; i < amount; i++) {
+      BigInteger r = rs[i];
+      BigInteger s = ss[i];
+      if (r.signum() <= 0 || r.compareTo(N) >= 0 || s.signum() <= 0 || s.compareTo(N) >= 0) {
+        continue;
+      }
+      byte[] compressedR = new byte[COMPRESSED_POINT_LENGTH];
+      compressedR[0] = (byte) (0x02 | (parities[i] & 1));
+      BigIntegers.asUnsignedByteArray(r, compressedR, 1, COMPRESSED_POINT_LENGTH - 1);
+      try {
+        Rs[i] = CURVE.decodePoint(compressedR);
+      } catch (IllegalArgumentException e) {
+        // r is not the x-coordinate of a point on the curve
+        continue;
+      }
+      product = product.multiply(r).mod(N);
+      valid[validAmount] = i;
+      products[validAmount] = product;
+      validAmount++;
+    }
+    ECPoint[] publicKeys = new ECPoint[amount];
+    if (validAmount == 0) {
+      return publicKeys;
+    }
+    // The inverse of the product of the r values of the first k+1 valid signatures
+    BigInteger inverse = product.modInverse(N);
+    for (int k = validAmount - 1; k >= 0; k--) {
+      int i = valid[k];
+      BigInteger rInverse = k > 0 ? inverse.multiply(products[k - 1]).mod(N) : inverse;
+      inverse = inverse.multiply(rs[i]).mod(N);
+      BigInteger z = new BigInteger(1, digests[i]);
+      BigInteger u1 = z.multiply(rInverse).mod(N);
+      BigInteger u2 = ss[i].multiply(rInverse).mod(N);
+      publicKeys[i] = ECAlgorithms.sumOfTwoMultiplies(Rs[i], u2, G, N.subtract(u1));
+    }
+    CURVE.normalizeAll(publicKeys);
+    for (int i = 0; i < amount; i++) {
+      if (publicKeys[i] != null && publicKeys[i].isInfinity()) {
+        publicKeys[i] = null;
+      }
+    }
+    return publicKeys;
+  }
+
+  /**
+   * Computes the Ethereum address of a secp256k1 public key as the last 20 bytes of the Keccak
+   * digest of the 64 byte uncompressed point, without the leading encoding byte.
+   * The addresses of recently seen keys are cached.
+   */
+  static EthereumAddress addressFromPoint(ECPoint publicKey) {
+    byte[] encoded = publicKey.getEncoded(false);
+    if (encoded.length != ENCODED_POINT_LENGTH) {
+      throw ExceptionUtil.throwException(logger,
+          new IllegalArgumentException("Not a secp256k1 public key"));
+    }
+    return addressCache.computeIfAbsent(ByteBuffer.wrap(encoded), key -> {
+      byte[] hash = new byte[AttestationCrypto.BYTES_IN_DIGEST];
+      AttestationCrypto.hashWithKeccak(encoded, 1, encoded.length - 1, hash, 0);
+      return EthereumAddress.fromBytes(hash, hash.length - EthereumAddress.LENGTH);
+    });
+  }
+
+  static long getAddressCacheHits() {
+    return addressCache.getHits();
+  }
+
+  static long getAddressCacheMisses() {
+    return addressCache.getMisses();
+  }
+}
@@ -0,0 +1,58 @@
+package com.alphawallet.attestation.core;
+
+import java.math.BigInteger;
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.FixedPointUtil;
+
+/**
+ * The parts of deterministic secp256k1 signing which do not depend on the key.
+ * The ephemeral point G*k is computed on BouncyCastle's custom secp256k1 implementation using a
+ * comb multiplier over tables for G precomputed once, instead of the generic multiplier of the
+ * curve of SignatureUtility.ECDSA_DOMAIN. The RFC 6979 calculator, which allocates its HMac
+ * state when constructed, is kept per thread and reinitialised for every signature.
+ */
+final class Secp256k1Signer {
+  private static final X9ECParameters CURVE_PARAMS = CustomNamedCurves.getByName("secp256k1");
+  private static final ECPoint G = CURVE_PARAMS.getG();
+  private static final ECMultiplier MULTIPLIER = new FixedPointCombMultiplier();
+  private static final ThreadLocal<HMacDSAKCalculator> kCalculator =
+      ThreadLocal.withInitial(() -> new HMacDSAKCalculator(new KeccakDigest(256)));
+
+  static {
+    FixedPointUtil.precompute(G);
+  }
+
+  private Secp256k1Signer() {}
+
+  /**
+   * Returns whether the domain parameters are those of secp256k1, such that the precomputed
+   * tables can be used
+   */
+  static boolean supports(ECDomainParameters params) {
+    return params.getCurve().equals(SignatureUtility.ECDSA_DOMAIN.getCurve())
+        && params.getG().equals(SignatureUtility.ECDSA_DOMAIN.getG());
+  }
+
+  /**
+   * Returns the RFC 6979 calculator of the current thread using Keccak.
+   * It must be initialised before use and not be shared with other threads.
+   */
+  static HMacDSAKCalculator getKCalculator() {
+    return kCalculator.get();
+  }
+
+  /**
+   * Computes G*k for 0 < k < n.
+   * @return The normalized point, on the custom secp256k1 curve
+   */
+  static ECPoint multiplyG(BigInteger k) {
+    return MULTIPLIER.multiply(G, k).normalize();
+  }
+}
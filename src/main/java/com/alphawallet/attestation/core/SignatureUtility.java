@@ -11,10 +11,15 @@ import java.security.Security;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.asn1.ASN1BitString;
 import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1Integer;
@@ -39,16 +44,16 @@ import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.bouncycastle.crypto.signers.ECDSASigner;
 import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
 import org.bouncycastle.crypto.util.PrivateKeyInfoFactory;
-import org.bouncycastle.crypto.util.PublicKeyFactory;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.math.ec.ECPoint;
-import org.bouncycastle.util.encoders.Hex;
 
 public class SignatureUtility {
     private static final Logger logger = LogManager.getLogger(SignatureUtility.class);
 
     public static final String MAC_ALGO = "HmacSHA256";
+    // Amount of signatures recovered together when verifying in batches
+    private static final int BATCH_VERIFICATION_CHUNK = 256;
     public static final X9ECParameters ECDSA_CURVE = SECNamedCurves.getByName("secp256k1");
     public static final ECDomainParameters ECDSA_DOMAIN = new ECDomainParameters(ECDSA_CURVE.getCurve(), ECDSA_CURVE
         .getG(), ECDSA_CURVE.getN(), ECDSA_CURVE.getH());
@@ -135,9 +140,30 @@ public class SignatureUtility {
         return restoreKeyFromSPKI(spkiEnc.getEncoded());
     }
 
+    /**
+     * Extract any public key from its DER encoded SubjectPublicKeyInfo.
+     * Keys are interned, so restoring the same key again returns the key decoded the first time.
+     */
     public static AsymmetricKeyParameter restoreKeyFromSPKI(byte[] input) throws IOException {
-        SubjectPublicKeyInfo spki = SubjectPublicKeyInfo.getInstance(input);
-        return PublicKeyFactory.createKey(spki);
+        return PublicKeyCache.restore(input);
+    }
+
+    public static AsymmetricKeyParameter restoreKeyFromSPKI(SubjectPublicKeyInfo spki) throws IOException {
+        return PublicKeyCache.restore(spki.getEncoded(ASN1Encoding.DER));
+    }
+
+    /**
+     * Returns the amount of times a restored public key has been found in the cache
+     */
+    public static long getKeyCacheHits() {
+        return PublicKeyCache.getHits();
+    }
+
+    /**
+     * Returns the amount of times a restored public key had to be decoded
+     */
+    public static long getKeyCacheMisses() {
+        return PublicKeyCache.getMisses();
     }
 
     public static PrivateKey convertPrivateBouncyCastleKeyToJavaKey(AsymmetricKeyParameter bcKey) {
@@ -184,9 +210,24 @@ public class SignatureUtility {
      * Code shamelessly stolen from https://medium.com/@fixone/ecc-for-ethereum-on-android-7e35dc6624c9
      * But then fixed due to a bug in that code.
      * @param key
-     * @return
+     * @return The address as an upper case hex string prefixed with 0x
      */
     public static String addressFromKey(AsymmetricKeyParameter key) {
+        return ethereumAddressFromKey(key).toString();
+    }
+
+    /**
+     * Computes the Ethereum address of a public key, without converting it to a string
+     */
+    public static EthereumAddress ethereumAddressFromKey(AsymmetricKeyParameter key) {
+        if (key instanceof PublicKeyCache.InternedKey) {
+            return ((PublicKeyCache.InternedKey) key).getAddress();
+        }
+        // Secp256k1 keys are hashed directly from their uncompressed point encoding, which is also what the SPKI contains
+        if (key instanceof ECPublicKeyParameters
+            && ((ECPublicKeyParameters) key).getParameters().getCurve().equals(ECDSA_DOMAIN.getCurve())) {
+            return Secp256k1Recovery.addressFromPoint(((ECPublicKeyParameters) key).getQ().normalize());
+        }
         byte[] pubKey;
         try {
             SubjectPublicKeyInfo spki = SubjectPublicKeyInfoFactory.createSubjectPublicKeyInfo(key);
@@ -195,10 +236,24 @@ public class SignatureUtility {
             throw ExceptionUtil.makeRuntimeException(logger, "Could not create spki", e);
         }
         //discard the first byte which only tells what kind of key it is //i.e. encoded/un-encoded
-        pubKey = Arrays.copyOfRange(pubKey,1,pubKey.length);
-        byte[] hash = AttestationCrypto.hashWithKeccak(pubKey);
+        byte[] hash = new byte[AttestationCrypto.BYTES_IN_DIGEST];
+        AttestationCrypto.hashWithKeccak(pubKey, 1, pubKey.length - 1, hash, 0);
         //finally get only the last 20 bytes
-        return "0x" + Hex.toHexString(Arrays.copyOfRange(hash,hash.length-20,hash.length)).toUpperCase();
+        return EthereumAddress.fromBytes(hash, hash.length - EthereumAddress.LENGTH);
+    }
+
+    /**
+     * Returns the amount of times the address of a secp256k1 key has been found in the cache
+     */
+    public static long getAddressCacheHits() {
+        return Secp256k1Recovery.getAddressCacheHits();
+    }
+
+    /**
+     * Returns the amount of times the address of a secp256k1 key had to be computed
+     */
+    public static long getAddressCacheMisses() {
+        return Secp256k1Recovery.getAddressCacheMisses();
     }
 
     public static byte[] signPersonalMsgWithEthereum(byte[] unsigned, AsymmetricKeyParameter signingKey) {
@@ -220,6 +275,22 @@ public class SignatureUtility {
         return normalizeAndEncodeEthereumSignature(signature, chainID);
     }
 
+    public static List<byte[]> signBatch(List<byte[]> unsigned, AsymmetricKeyParameter signingKey) {
+        return signBatch(unsigned, 0, signingKey);
+    }
+
+    /**
+     * Signs each of the messages Ethereum style, spreading the signatures over the common
+     * ForkJoin pool. Since the signatures are deterministic, each is identical to the one
+     * returned by signWithEthereum for the same message.
+     * @return The signatures in the order of the messages
+     */
+    public static List<byte[]> signBatch(List<byte[]> unsigned, long chainID, AsymmetricKeyParameter signingKey) {
+        return unsigned.parallelStream()
+            .map(message -> signWithEthereum(message, chainID, signingKey))
+            .collect(Collectors.toList());
+    }
+
     /**
      * Constructs a DER encoded, non-malleable deterministic ECDSA signature using SHA 256
      * But still in accordance with EIP 2 (the y-coordinate is guaranteed to be <n/2).
@@ -269,7 +340,10 @@ public class SignatureUtility {
     static BigInteger[] computeInternalSignature(byte[] digest, ECPrivateKeyParameters key) {
         BigInteger z = new BigInteger(1, digest);
 
-        HMacDSAKCalculator randomnessProvider = new HMacDSAKCalculator(new KeccakDigest(256));
+        // Use the precomputed tables and reuse the RFC 6979 state for secp256k1 keys
+        boolean secp256k1 = Secp256k1Signer.supports(key.getParameters());
+        HMacDSAKCalculator randomnessProvider = secp256k1 ? Secp256k1Signer.getKCalculator()
+            : new HMacDSAKCalculator(new KeccakDigest(256));
         randomnessProvider.init(key.getParameters().getN(), key.getD(), digest);
 
         BigInteger n = key.getParameters().getN();
@@ -277,7 +351,7 @@ public class SignatureUtility {
         ECPoint R;
         do {
             k = randomnessProvider.nextK();
-            R = key.getParameters().getG().multiply(k).normalize();
+            R = secp256k1 ? Secp256k1Signer.multiplyG(k) : key.getParameters().getG().multiply(k).normalize();
             r = R.getAffineXCoord().toBigInteger().mod(n);
         } while (r.equals(BigInteger.ZERO));
         BigInteger baseS = k.modInverse(n).multiply(z.add(r.multiply(key.getD()))).mod(n);
@@ -385,9 +459,138 @@ public class SignatureUtility {
         return true;
     }
 
+    /**
+     * Verifies many Ethereum signatures directly on the unsigned messages, each against the
+     * expected address at the same index. This gives the same results as calling
+     * verifyEthereumSignature for each of them, but the public keys are recovered in chunks
+     * sharing their modular inversions, and the chunks are spread over the common ForkJoin pool.
+     * @return The set of indices of the valid signatures
+     */
+    public static BitSet verifyEthereumSignatures(List<byte[]> unsigned, List<byte[]> signatures, List<String> addresses, int chainId) {
+        int amount = unsigned.size();
+        if (signatures.size() != amount || addresses.size() != amount) {
+            throw ExceptionUtil.throwException(logger,
+                new IllegalArgumentException("There must be a signature and an address for every message"));
+        }
+        boolean[] results = new boolean[amount];
+        int chunks = (amount + BATCH_VERIFICATION_CHUNK - 1) / BATCH_VERIFICATION_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * BATCH_VERIFICATION_CHUNK;
+            int to = Math.min(amount, from + BATCH_VERIFICATION_CHUNK);
+            verifyEthereumSignatureChunk(unsigned, signatures, addresses, chainId, from, to, results);
+        });
+        BitSet valid = new BitSet(amount);
+        for (int i = 0; i < amount; i++) {
+            if (results[i]) {
+                valid.set(i);
+            }
+        }
+        return valid;
+    }
+
+    private static void verifyEthereumSignatureChunk(List<byte[]> unsigned, List<byte[]> signatures, List<String> addresses,
+        int chainId, int from, int to, boolean[] results) {
+        int size = to - from;
+        BigInteger[] rs = new BigInteger[size];
+        BigInteger[] ss = new BigInteger[size];
+        byte[] parities = new byte[size];
+        byte[][] digests = new byte[size][];
+        EthereumAddress[] expectedAddresses = new EthereumAddress[size];
+        for (int i = 0; i < size; i++) {
+            byte[] signature = signatures.get(from + i);
+            String address = addresses.get(from + i);
+            expectedAddresses[i] = address == null ? null : EthereumAddress.parse(address);
+            // Signatures which are malformed, not normalized, for another chain or without a valid
+            // expected address are given r = 0, so no key is recovered for them
+            rs[i] = BigInteger.ZERO;
+            ss[i] = BigInteger.ZERO;
+            if (expectedAddresses[i] == null || !decodeSignature(signature, rs, ss, parities, i)) {
+                continue;
+            }
+            if (getChainIdFromSignature(signature) != chainId) {
+                rs[i] = BigInteger.ZERO;
+                continue;
+            }
+            digests[i] = AttestationCrypto.hashWithKeccak(unsigned.get(from + i));
+        }
+        ECPoint[] publicKeys = Secp256k1Recovery.recoverPublicKeys(rs, ss, parities, digests);
+        for (int i = 0; i < size; i++) {
+            results[from + i] = publicKeys[i] != null
+                && Secp256k1Recovery.addressFromPoint(publicKeys[i]).equals(expectedAddresses[i]);
+        }
+    }
+
+    /**
+     * Decodes r, s and the y-coordinate parity of an Ethereum signature into index i of the arrays.
+     * @return false, leaving the arrays untouched, if the signature is malformed or not normalized
+     */
+    private static boolean decodeSignature(byte[] signature, BigInteger[] rs, BigInteger[] ss, byte[] parities, int i) {
+        if (signature == null || signature.length != 65) {
+            return false;
+        }
+        BigInteger s = new BigInteger(1, Arrays.copyOfRange(signature, 32, 64));
+        if (s.compareTo(ECDSA_DOMAIN.getN().shiftRight(1)) > 0) {
+            return false;
+        }
+        rs[i] = new BigInteger(1, Arrays.copyOfRange(signature, 0, 32));
+        ss[i] = s;
+        parities[i] = (byte) (1 - (signature[64] % 2));
+        return true;
+    }
+
+    /**
+     * Returns whether signature is an Ethereum signature directly on unsigned by address, just as
+     * verifyEthereumSignature, but without logging or throwing for signatures which are malformed or
+     * not valid, such that invalid input is rejected cheaply.
+     */
+    public static boolean isValidEthereumSignature(byte[] unsigned, byte[] signature, EthereumAddress address, int chainId) {
+        if (signature == null || signature.length != 65 || getChainIdFromSignature(signature) != chainId) {
+            return false;
+        }
+        ECPoint publicKey = tryRecoverPublicKeyPoint(unsigned, signature);
+        return publicKey != null && Secp256k1Recovery.addressFromPoint(publicKey).equals(address);
+    }
+
+    /**
+     * Returns whether signature is an Ethereum signature by publicKey on a message that DOES NOT
+     * include the signed-by-Ethereum prefix, without logging or throwing, see isValidEthereumSignature
+     */
+    public static boolean isValidPersonalEthereumSignature(byte[] unsignedWithoutPrefix, byte[] signature, AsymmetricKeyParameter publicKey) {
+        return isValidEthereumSignature(convertToPersonalEthMessage(unsignedWithoutPrefix), signature,
+            ethereumAddressFromKey(publicKey), 0);
+    }
+
+    /**
+     * Recovers the public key from an Ethereum signature just as recoverEthPublicKeyFromSignature,
+     * but returns null rather than throwing if no key can be recovered
+     */
+    public static ECPublicKeyParameters tryRecoverEthPublicKeyFromSignature(byte[] message, byte[] signature) {
+        ECPoint publicKey = tryRecoverPublicKeyPoint(message, signature);
+        if (publicKey == null) {
+            return null;
+        }
+        return new ECPublicKeyParameters(ECDSA_DOMAIN.getCurve().createPoint(
+            publicKey.getAffineXCoord().toBigInteger(), publicKey.getAffineYCoord().toBigInteger()), ECDSA_DOMAIN);
+    }
+
+    private static ECPoint tryRecoverPublicKeyPoint(byte[] message, byte[] signature) {
+        BigInteger[] rs = new BigInteger[] {BigInteger.ZERO};
+        BigInteger[] ss = new BigInteger[] {BigInteger.ZERO};
+        byte[] parities = new byte[1];
+        if (!decodeSignature(signature, rs, ss, parities, 0)) {
+            return null;
+        }
+        byte[][] digests = new byte[][] {AttestationCrypto.hashWithKeccak(message)};
+        return Secp256k1Recovery.recoverPublicKeys(rs, ss, parities, digests)[0];
+    }
+
     public static boolean verifyKeyAgainstAddress(AsymmetricKeyParameter publicKey, String address) {
-        String recoveredAddress = addressFromKey(publicKey);
-        return recoveredAddress.toUpperCase().equals(address.toUpperCase());
+        EthereumAddress parsedAddress = EthereumAddress.parse(address);
+        return parsedAddress != null && verifyKeyAgainstAddress(publicKey, parsedAddress);
+    }
+
+    public static boolean verifyKeyAgainstAddress(AsymmetricKeyParameter publicKey, EthereumAddress address) {
+        return ethereumAddressFromKey(publicKey).equals(address);
     }
 
     public static int getChainIdFromSignature(byte[] signature) {
@@ -443,31 +646,10 @@ public class SignatureUtility {
 
     private static ECPublicKeyParameters computePublicKeyFromSignature(BigInteger[] signature, byte yParity, byte[] unsignedMessage) {
         byte[] digestBytes = AttestationCrypto.hashWithKeccak(unsignedMessage);
-        BigInteger z = new BigInteger(1, digestBytes);
-        // Compute y coordinate for the r value
-        ECPoint R = computeY(signature[0], yParity, ECDSA_DOMAIN);
-        BigInteger rInverse = signature[0].modInverse(ECDSA_DOMAIN.getN());
-        BigInteger u1 = z.multiply(rInverse).mod(ECDSA_DOMAIN.getN());
-        BigInteger u2 = signature[1].multiply(rInverse).mod(ECDSA_DOMAIN.getN());
-        ECPoint publicKeyPoint = R.multiply(u2).subtract(ECDSA_DOMAIN.getG().multiply(u1)).normalize();
+        ECPoint publicKeyPoint = Secp256k1Recovery.recoverPublicKey(signature[0], signature[1], yParity, digestBytes);
         return new ECPublicKeyParameters(publicKeyPoint, ECDSA_DOMAIN);
     }
 
-    private static ECPoint computeY(BigInteger x, byte yParity, ECDomainParameters params) {
-        BigInteger P = params.getCurve().getField().getCharacteristic();
-        BigInteger A = params.getCurve().getA().toBigInteger();
-        BigInteger B = params.getCurve().getB().toBigInteger();
-        BigInteger ySquared = x.modPow(new BigInteger("3"), P).
-            add(A.multiply(x)).
-            add(B).mod(P);
-        // We use the Lagrange trick to compute the squareroot (since fieldSize mod 4=3)
-        BigInteger y = ySquared.modPow(P.add(BigInteger.ONE).shiftRight(2), P);
-        if (y.mod(new BigInteger("2")).byteValueExact() != yParity) {
-            y = P.subtract(y);
-        }
-        return params.getCurve().createPoint(x, y);
-    }
-
     private static BigInteger normalizeS(BigInteger s, ECDomainParameters params) {
         // Normalize number s to be the lowest of its two legal values
         BigInteger half_curve = params.getCurve().getOrder().shiftRight(1);
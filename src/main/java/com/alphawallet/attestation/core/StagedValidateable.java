@@ -0,0 +1,13 @@
+package com.alphawallet.attestation.core;
+
+public interface StagedValidateable {
+
+  /**
+   * Runs the checks of the object which belong to stage, given that all checks of the earlier
+   * stages have passed.
+   * Together the stages following PARSE cover both verification and validity of the object.
+   * Since the rejecting stage is reported by ValidationPipeline, invalid objects must be rejected
+   * without logging or throwing, such that floods of invalid input stay cheap to reject.
+   */
+  public boolean checkStage(ValidationStage stage);
+}
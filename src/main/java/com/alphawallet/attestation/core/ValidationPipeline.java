@@ -0,0 +1,90 @@
+package com.alphawallet.attestation.core;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Validates objects stage by stage, in the order of ValidationStage, and stops at the first stage
+ * which rejects the object. Since the cheap checks of time, domain and nonce run before the
+ * signatures and proofs are verified, invalid requests are mostly rejected at little cost.
+ * The stages neither log nor throw on invalid objects, the outcome is reported instead.
+ */
+public final class ValidationPipeline {
+  private static final ValidationStage[] STAGES = ValidationStage.values();
+
+  private ValidationPipeline() {}
+
+  /**
+   * Decodes an object with parser and validates it.
+   * @param parser Decodes the object without verifying it. Any exception thrown rejects the object
+   *               in the PARSE stage.
+   */
+  public static <T extends StagedValidateable> ValidationReport<T> validate(Callable<T> parser) {
+    long[] stageNanos = new long[STAGES.length];
+    long start = System.nanoTime();
+    T object = parse(parser);
+    stageNanos[ValidationStage.PARSE.ordinal()] = System.nanoTime() - start;
+    if (object == null) {
+      return new ValidationReport<>(null, ValidationStage.PARSE, stageNanos);
+    }
+    ValidationStage rejectedStage = findRejectingStage(object, stageNanos);
+    return new ValidationReport<>(rejectedStage == null ? object : null, rejectedStage, stageNanos);
+  }
+
+  /**
+   * Decodes an object with parser and validates it, like validate but without timing the stages.
+   * Rejections are recorded in rejections.
+   * @param parser Decodes the object without verifying it. It should return null rather than
+   *               throw on malformed input, but any exception thrown is handled as well.
+   */
+  public static <T extends StagedValidateable> DecodeResult<T> tryValidate(Callable<T> parser,
+      RejectionCounter rejections) {
+    T object = parse(parser);
+    ValidationStage rejectedStage = object == null ? ValidationStage.PARSE : findRejectingStage(object, null);
+    if (rejectedStage != null) {
+      RejectionReason reason = RejectionReason.of(rejectedStage);
+      rejections.record(reason);
+      return DecodeResult.rejected(reason);
+    }
+    return DecodeResult.accepted(object);
+  }
+
+  private static <T> T parse(Callable<T> parser) {
+    try {
+      return parser.call();
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the first stage after PARSE which rejects object, or null if it is valid. A component
+   * which is only decoded in a later stage and turns out to be malformed rejects the object in the
+   * PARSE stage, just as if it had been decoded up front.
+   * The time spent in each stage is stored in stageNanos, unless it is null.
+   */
+  private static ValidationStage findRejectingStage(StagedValidateable object, long[] stageNanos) {
+    for (ValidationStage stage : STAGES) {
+      if (stage == ValidationStage.PARSE) {
+        continue;
+      }
+      long start = stageNanos != null ? System.nanoTime() : 0;
+      boolean passed;
+      ValidationStage rejectedStage = stage;
+      try {
+        passed = object.checkStage(stage);
+      } catch (RejectedEncodingException e) {
+        passed = false;
+        rejectedStage = ValidationStage.PARSE;
+      } catch (RuntimeException e) {
+        passed = false;
+      }
+      if (stageNanos != null) {
+        stageNanos[stage.ordinal()] = System.nanoTime() - start;
+      }
+      if (!passed) {
+        return rejectedStage;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,50 @@
+package com.alphawallet.attestation.core;
+
+/**
+ * The outcome of running an object through ValidationPipeline: the object if it was accepted,
+ * otherwise the stage which rejected it, along with the time spent in each stage.
+ */
+public final class ValidationReport<T> {
+  private final T result;
+  private final ValidationStage rejectedStage;
+  private final long[] stageNanos;
+
+  ValidationReport(T result, ValidationStage rejectedStage, long[] stageNanos) {
+    this.result = result;
+    this.rejectedStage = rejectedStage;
+    this.stageNanos = stageNanos;
+  }
+
+  public boolean isAccepted() {
+    return rejectedStage == null;
+  }
+
+  /**
+   * Returns the validated object or null if it was rejected
+   */
+  public T getResult() {
+    return result;
+  }
+
+  /**
+   * Returns the stage which rejected the object or null if it was accepted
+   */
+  public ValidationStage getRejectedStage() {
+    return rejectedStage;
+  }
+
+  /**
+   * Returns the time spent in stage in nanoseconds, which is 0 for stages which were not reached
+   */
+  public long getStageNanos(ValidationStage stage) {
+    return stageNanos[stage.ordinal()];
+  }
+
+  public long getTotalNanos() {
+    long res = 0;
+    for (long current : stageNanos) {
+      res += current;
+    }
+    return res;
+  }
+}
@@ -0,0 +1,23 @@
+package com.alphawallet.attestation.core;
+
+/**
+ * The stages of validating an object, in the order they are run by ValidationPipeline.
+ * The stages are ordered by cost, such that most invalid objects, e.g. expired or intended for
+ * another domain, are rejected before any cryptographic verification takes place.
+ */
+public enum ValidationStage {
+  /** Decoding the object, without verifying it */
+  PARSE,
+  /** Consistency of the fields, such as descriptions, algorithms and keys */
+  STRUCTURE,
+  /** Timestamps and validity periods */
+  TIME,
+  /** The domain the object is intended for */
+  DOMAIN,
+  /** The components of nonces */
+  NONCE,
+  /** Signature verification, including recovery of public keys from signatures */
+  SIGNATURE,
+  /** Zero knowledge proofs */
+  PROOF
+}
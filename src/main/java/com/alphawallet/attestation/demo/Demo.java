@@ -15,6 +15,7 @@ import com.alphawallet.attestation.cheque.Cheque;
 import com.alphawallet.attestation.cheque.ChequeDecoder;
 import com.alphawallet.attestation.core.AttestationCrypto;
 import com.alphawallet.attestation.core.DERUtility;
+import com.alphawallet.attestation.core.DrbgPool;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.Validateable;
 import com.alphawallet.attestation.core.Verifiable;
@@ -52,7 +53,7 @@ import org.bouncycastle.crypto.util.PublicKeyFactory;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
 
 public class Demo {
-  static SecureRandom rand = new SecureRandom();
+  static SecureRandom rand = DrbgPool.getInstance();
   static AttestationCrypto crypto = new AttestationCrypto(rand);
 
   public static final X9ECParameters SESSION_KEY_CURVE = SECNamedCurves.getByName("secp256r1"); // NIST P-256
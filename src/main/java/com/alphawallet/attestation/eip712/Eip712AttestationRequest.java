@@ -3,27 +3,43 @@ package com.alphawallet.attestation.eip712;
 import com.alphawallet.attestation.AttestationRequest;
 import com.alphawallet.attestation.FullProofOfExponent;
 import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
+import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
+import com.alphawallet.attestation.core.RejectionCounter;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.StagedValidateable;
 import com.alphawallet.attestation.core.URLUtility;
 import com.alphawallet.attestation.core.Validateable;
+import com.alphawallet.attestation.core.ValidationPipeline;
+import com.alphawallet.attestation.core.ValidationReport;
+import com.alphawallet.attestation.core.ValidationStage;
 import com.alphawallet.attestation.core.Verifiable;
 import com.alphawallet.attestation.eip712.Eip712AttestationRequestEncoder.AttestationRequestInternalData;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.InvalidObjectException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.tokenscript.eip712.Eip712Issuer;
+import org.tokenscript.eip712.Eip712ValidationContext;
 import org.tokenscript.eip712.Eip712Validator;
 import org.tokenscript.eip712.JsonEncodable;
 
-public class Eip712AttestationRequest extends Eip712Validator implements JsonEncodable, Verifiable, Validateable {
+public class Eip712AttestationRequest extends Eip712Validator implements JsonEncodable, Verifiable, Validateable,
+    StagedValidateable {
   private static final Logger logger = LogManager.getLogger(Eip712AttestationRequest.class);
+  private static final RejectionCounter rejections = new RejectionCounter();
 
   private final AttestationRequest attestationRequest;
   private final AttestationRequestInternalData data;
   private final String jsonEncoding;
-  private final AsymmetricKeyParameter publicKey;
+  // The token parsed once, from which the data, the domain and the signer are all validated
+  private final Eip712ValidationContext<AttestationRequestInternalData> context;
+  // Recovered from the signature on first use when the request is decoded without verification
+  private volatile AsymmetricKeyParameter publicKey;
   private final long acceptableTimeLimit;
 
   public Eip712AttestationRequest(String attestorDomain, String identifier,
@@ -39,8 +55,9 @@ public class Eip712AttestationRequest extends Eip712Validator implements JsonEnc
       this.acceptableTimeLimit = acceptableTimeLimit;
       this.attestationRequest = request;
       this.jsonEncoding = makeToken(identifier, signingKey);
-      this.publicKey = retrieveUserPublicKey(jsonEncoding, AttestationRequestInternalData.class);
-      this.data = retrieveUnderlyingObject(jsonEncoding, AttestationRequestInternalData.class);
+      this.context = parseToken(jsonEncoding, AttestationRequestInternalData.class);
+      this.publicKey = retrieveUserPublicKey(context);
+      this.data = context.getUnderlyingObject();
     } catch (Exception e ) {
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Could not encode object"));
@@ -54,18 +71,63 @@ public class Eip712AttestationRequest extends Eip712Validator implements JsonEnc
 
   public Eip712AttestationRequest(String attestorDomain, long acceptableTimeLimit,
       String jsonEncoding) {
+    this(attestorDomain, acceptableTimeLimit, jsonEncoding, true);
+  }
+
+  private Eip712AttestationRequest(String attestorDomain, long acceptableTimeLimit,
+      String jsonEncoding, boolean verify) {
     super(attestorDomain, new Eip712AttestationRequestEncoder());
     try {
       this.acceptableTimeLimit = acceptableTimeLimit;
       this.jsonEncoding = jsonEncoding;
-      this.publicKey = retrieveUserPublicKey(jsonEncoding, AttestationRequestInternalData.class);
-      this.data = retrieveUnderlyingObject(jsonEncoding, AttestationRequestInternalData.class);
-      this.attestationRequest = new AttestationRequest(URLUtility.decodeData(data.getPayload()));
+      this.context = parseToken(jsonEncoding, AttestationRequestInternalData.class);
+      if (verify) {
+        this.publicKey = retrieveUserPublicKey(context);
+      }
+      this.data = context.getUnderlyingObject();
+      byte[] requestEncoding = URLUtility.decodeData(data.getPayload());
+      this.attestationRequest = verify ? new AttestationRequest(requestEncoding)
+          : AttestationRequest.decodeUnverified(requestEncoding);
+      if (attestationRequest == null) {
+        throw RejectedEncodingException.INSTANCE;
+      }
     } catch (Exception e ) {
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Could not decode object"));
     }
-    constructorCheck();
+    if (verify) {
+      constructorCheck();
+    }
+  }
+
+  /**
+   * Decodes and validates a request stage by stage, such that e.g. stale requests or requests for
+   * another domain are rejected before the signer is recovered and the proof is verified
+   */
+  public static ValidationReport<Eip712AttestationRequest> validate(String attestorDomain,
+      long acceptableTimeLimit, String jsonEncoding) {
+    return ValidationPipeline.validate(
+        () -> new Eip712AttestationRequest(attestorDomain, acceptableTimeLimit, jsonEncoding, false));
+  }
+
+  /**
+   * Decodes and validates a request like validate, but without timing the stages.
+   * Invalid requests are neither logged nor thrown, the reason is returned and counted instead.
+   */
+  public static DecodeResult<Eip712AttestationRequest> tryDecode(String attestorDomain,
+      long acceptableTimeLimit, String jsonEncoding) {
+    return ValidationPipeline.tryValidate(
+        () -> new Eip712AttestationRequest(attestorDomain, acceptableTimeLimit, jsonEncoding, false), rejections);
+  }
+
+  /**
+   * Returns the amount of requests rejected by tryDecode for reason
+   */
+  public static long getRejections(RejectionReason reason) {
+    return rejections.get(reason);
   }
 
   void constructorCheck() throws IllegalArgumentException {
@@ -89,7 +151,17 @@ public class Eip712AttestationRequest extends Eip712Validator implements JsonEnc
   }
 
   public AsymmetricKeyParameter getUserPublicKey() {
-    return publicKey;
+    AsymmetricKeyParameter res = publicKey;
+    if (res == null) {
+      try {
+        // Recovery is deterministic, so a race is harmless
+        res = retrieveUserPublicKey(context);
+      } catch (InvalidObjectException e) {
+        throw ExceptionUtil.makeRuntimeException(logger, "Could not recover the public key of the user", e);
+      }
+      publicKey = res;
+    }
+    return res;
   }
 
   public AttestationType getType() {
@@ -116,24 +188,74 @@ public class Eip712AttestationRequest extends Eip712Validator implements JsonEnc
 
   @Override
   public boolean checkValidity() {
-    if (!data.getDescription().equals(encoder.getUsageValue())){
+    if (!validDescription()) {
       logger.error("Description field is incorrect");
       return false;
     }
-    Timestamp timestamp = new Timestamp(data.getTimestamp());
-    timestamp.setValidity(acceptableTimeLimit);
-    if (!timestamp.validateTimestamp()) {
-      logger.error("Timestamp is not valid");
+    String error = getTimestamp().findTimestampError();
+    if (error != null) {
+      logger.error("Timestamp is not valid: " + error);
       return false;
     }
     if (!Nonce.validateNonce(getPok().getNonce(),
-        SignatureUtility.addressFromKey(publicKey), domain,
-        new Timestamp(Timestamp.stringTimestampToLong(data.getTimestamp())-acceptableTimeLimit),
-        new Timestamp(Timestamp.stringTimestampToLong(data.getTimestamp())+acceptableTimeLimit))) {
+        SignatureUtility.ethereumAddressFromKey(getUserPublicKey()), domain,
+        new Timestamp(data.getTimestampInMs()-acceptableTimeLimit),
+        new Timestamp(data.getTimestampInMs()+acceptableTimeLimit))) {
       logger.error("Nonce is not valid");
       return false;
     }
     return true;
   }
 
+  /**
+   * The nonce is split across stages: its receiver and time are checked in the NONCE stage, while
+   * the sender can only be checked in the SIGNATURE stage, once the signer has been recovered
+   */
+  @Override
+  public boolean checkStage(ValidationStage stage) {
+    switch (stage) {
+      case STRUCTURE:
+        return validDescription();
+      case TIME:
+        return getTimestamp().findTimestampError() == null;
+      case DOMAIN:
+        return verifyDomain(context);
+      case NONCE:
+        NonceView nonce = new NonceView(getPok().getNonce());
+        return nonce.isComplete() && nonce.hasReceiverIdentifier(domain)
+            && Nonce.validateTimestamp(nonce.getTime(),
+                new Timestamp(data.getTimestampInMs()-acceptableTimeLimit),
+                new Timestamp(data.getTimestampInMs()+acceptableTimeLimit));
+      case SIGNATURE:
+        AsymmetricKeyParameter key = tryGetUserPublicKey();
+        return key != null && new NonceView(getPok().getNonce()).hasSenderAddress(
+            SignatureUtility.ethereumAddressFromKey(key));
+      case PROOF:
+        return AttestationCrypto.verifyFullProof(getPok());
+      default:
+        return true;
+    }
+  }
+
+  // Recovers the public key of the user without logging if it cannot be recovered
+  private AsymmetricKeyParameter tryGetUserPublicKey() {
+    AsymmetricKeyParameter res = publicKey;
+    if (res == null) {
+      // Recovery is deterministic, so a race is harmless
+      res = recoverUserPublicKey(context);
+      publicKey = res;
+    }
+    return res;
+  }
+
+  private boolean validDescription() {
+    return data.getDescription().equals(encoder.getUsageValue());
+  }
+
+  private Timestamp getTimestamp() {
+    Timestamp timestamp = new Timestamp(data.getTimestampInMs());
+    timestamp.setValidity(acceptableTimeLimit);
+    return timestamp;
+  }
+
 }
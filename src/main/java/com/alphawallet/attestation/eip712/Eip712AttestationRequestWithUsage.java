@@ -18,6 +18,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.tokenscript.eip712.Eip712Issuer;
+import org.tokenscript.eip712.Eip712ValidationContext;
 import org.tokenscript.eip712.Eip712Validator;
 import org.tokenscript.eip712.JsonEncodable;
 
@@ -47,8 +48,9 @@ public class Eip712AttestationRequestWithUsage extends Eip712Validator implement
       this.maxTokenValidityInMs = maxTokenValidityInMs;
       this.attestationRequestWithUsage = attestationRequestWithUsage;
       this.jsonEncoding = makeToken(identifier, attestationRequestWithUsage, signingKey);
-      this.userPublicKey = retrieveUserPublicKey(jsonEncoding, AttestationRequestWUsageData.class);
-      this.data = retrieveUnderlyingObject(jsonEncoding, AttestationRequestWUsageData.class);
+      Eip712ValidationContext<AttestationRequestWUsageData> context = parseToken(jsonEncoding, AttestationRequestWUsageData.class);
+      this.userPublicKey = retrieveUserPublicKey(context);
+      this.data = context.getUnderlyingObject();
     } catch (Exception e ) {
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Could not encode object"));
@@ -67,8 +69,9 @@ public class Eip712AttestationRequestWithUsage extends Eip712Validator implement
       this.acceptableTimeLimit = acceptableTimeLimit;
       this.maxTokenValidityInMs = maxTokenValidityInMs;
       this.jsonEncoding = jsonEncoding;
-      this.userPublicKey = retrieveUserPublicKey(jsonEncoding, AttestationRequestWUsageData.class);
-      this.data = retrieveUnderlyingObject(jsonEncoding, AttestationRequestWUsageData.class);
+      Eip712ValidationContext<AttestationRequestWUsageData> context = parseToken(jsonEncoding, AttestationRequestWUsageData.class);
+      this.userPublicKey = retrieveUserPublicKey(context);
+      this.data = context.getUnderlyingObject();
       this.attestationRequestWithUsage = new AttestationRequestWithUsage(URLUtility.decodeData(data.getPayload()));
     } catch (Exception e ) {
       throw ExceptionUtil.throwException(logger,
@@ -138,9 +141,9 @@ public class Eip712AttestationRequestWithUsage extends Eip712Validator implement
    */
   @Override
   public boolean checkTokenValidity() {
-    Timestamp time = new Timestamp(data.getTimestamp());
+    Timestamp time = new Timestamp(data.getTimestampInMs());
     time.setValidity(maxTokenValidityInMs);
-    if (!time.validateAgainstExpiration(Timestamp.stringTimestampToLong(data.getExpirationTime()))) {
+    if (!time.validateAgainstExpiration(data.getExpirationTimeInMs())) {
       logger.error("The object can no longer be used as a request token. It is expired.");
       return false;
     }
@@ -153,10 +156,10 @@ public class Eip712AttestationRequestWithUsage extends Eip712Validator implement
   }
 
   private boolean testNonceAndDescription(long timeLimit) {
-    long nonceMinTime = Timestamp.stringTimestampToLong(data.getTimestamp()) - timeLimit;
-    long nonceMaxTime = Timestamp.stringTimestampToLong(data.getTimestamp()) + timeLimit;
+    long nonceMinTime = data.getTimestampInMs() - timeLimit;
+    long nonceMaxTime = data.getTimestampInMs() + timeLimit;
     if (!Nonce.validateNonce(attestationRequestWithUsage.getPok().getNonce(),
-        SignatureUtility.addressFromKey(userPublicKey), domain, new Timestamp(nonceMinTime), new Timestamp(nonceMaxTime))) {
+        SignatureUtility.ethereumAddressFromKey(userPublicKey), domain, new Timestamp(nonceMinTime), new Timestamp(nonceMaxTime))) {
       logger.error("Nonce validation failed");
       return false;
     }
@@ -34,6 +34,8 @@ public class Eip712AttestationRequestWithUsageEncoder extends Eip712Encoder {
   static class AttestationRequestWUsageData extends FullEip712InternalData {
     private String identifier;
     private String expirationTime;
+    // The expiration time in milliseconds since the epoch, parsed on first use
+    private volatile Long expirationTimeInMs;
 
     public AttestationRequestWUsageData() { super(); }
 
@@ -61,7 +63,21 @@ public class Eip712AttestationRequestWithUsageEncoder extends Eip712Encoder {
 
     public String getExpirationTime() { return expirationTime; }
 
-    public void setExpirationTime(String expirationTime) { this.expirationTime = expirationTime; }
+    public void setExpirationTime(String expirationTime) {
+      this.expirationTime = expirationTime;
+      this.expirationTimeInMs = null;
+    }
+
+    @JsonIgnore
+    public long getExpirationTimeInMs() {
+      Long res = expirationTimeInMs;
+      if (res == null) {
+        // Parsing is deterministic, so a race is harmless
+        res = Timestamp.stringTimestampToLong(expirationTime);
+        expirationTimeInMs = res;
+      }
+      return res;
+    }
 
     @JsonIgnore
     @Override
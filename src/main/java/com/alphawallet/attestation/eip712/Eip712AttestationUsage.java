@@ -5,18 +5,28 @@ import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.SignedIdentityAttestation;
 import com.alphawallet.attestation.UseAttestation;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
+import com.alphawallet.attestation.core.RejectionCounter;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.StagedValidateable;
 import com.alphawallet.attestation.core.URLUtility;
+import com.alphawallet.attestation.core.ValidationPipeline;
+import com.alphawallet.attestation.core.ValidationReport;
+import com.alphawallet.attestation.core.ValidationStage;
 import com.alphawallet.attestation.core.Verifiable;
 import com.alphawallet.attestation.eip712.Eip712AttestationUsageEncoder.AttestationUsageData;
 import java.io.IOException;
-import java.math.BigInteger;
+import java.io.InvalidObjectException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.math.ec.ECPoint;
 import org.tokenscript.eip712.Eip712Issuer;
+import org.tokenscript.eip712.Eip712ValidationContext;
 import org.tokenscript.eip712.Eip712Validator;
 import org.tokenscript.eip712.JsonEncodable;
 
@@ -29,8 +39,9 @@ import org.tokenscript.eip712.JsonEncodable;
  * the user's identifier to the webserver.
  */
 public class Eip712AttestationUsage extends Eip712Validator implements JsonEncodable, Verifiable,
-    TokenValidateable {
+    TokenValidateable, StagedValidateable {
   private static final Logger logger = LogManager.getLogger(Eip712AttestationUsage.class);
+  private static final RejectionCounter rejections = new RejectionCounter();
 
   public static final int PLACEHOLDER_CHAIN_ID = 0;
 
@@ -38,7 +49,10 @@ public class Eip712AttestationUsage extends Eip712Validator implements JsonEncod
   private final UseAttestation useAttestation;
   private final AttestationUsageData data;
   private final String jsonEncoding;
-  private final AsymmetricKeyParameter userPublicKey;
+  // The token parsed once, from which the data, the domain and the signer are all validated
+  private final Eip712ValidationContext<AttestationUsageData> context;
+  // Recovered from the signature on first use when the token is decoded without verification
+  private volatile AsymmetricKeyParameter userPublicKey;
 
   public Eip712AttestationUsage(String attestorDomain, String identifier, UseAttestation useAttestation, AsymmetricKeyParameter signingKey) {
     this(attestorDomain, Timestamp.DEFAULT_TOKEN_TIME_LIMIT,  PLACEHOLDER_CHAIN_ID, identifier, useAttestation, signingKey);
@@ -51,8 +65,9 @@ public class Eip712AttestationUsage extends Eip712Validator implements JsonEncod
       this.maxTokenValidityInMs = maxTokenValidityInMs;
       this.useAttestation = useAttestation;
       this.jsonEncoding = makeToken(identifier, useAttestation, signingKey);
-      this.userPublicKey = retrieveUserPublicKey(jsonEncoding, AttestationUsageData.class);
-      this.data = retrieveUnderlyingObject(jsonEncoding, AttestationUsageData.class);
+      this.context = parseToken(jsonEncoding, AttestationUsageData.class);
+      this.userPublicKey = retrieveUserPublicKey(context);
+      this.data = context.getUnderlyingObject();
     } catch (Exception e ) {
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Could not encode asn1"));
@@ -68,18 +83,65 @@ public class Eip712AttestationUsage extends Eip712Validator implements JsonEncod
 
   public Eip712AttestationUsage(String attestorDomain, AsymmetricKeyParameter attestationIssuerVerificationKey,
       long maxTokenValidityInMs, long chainId, String jsonEncoding) {
+    this(attestorDomain, attestationIssuerVerificationKey, maxTokenValidityInMs, chainId, jsonEncoding, true);
+  }
+
+  private Eip712AttestationUsage(String attestorDomain, AsymmetricKeyParameter attestationIssuerVerificationKey,
+      long maxTokenValidityInMs, long chainId, String jsonEncoding, boolean verify) {
     super(attestorDomain, new Eip712AttestationUsageEncoder(chainId));
     try {
       this.maxTokenValidityInMs = maxTokenValidityInMs;
       this.jsonEncoding = jsonEncoding;
-      this.userPublicKey = retrieveUserPublicKey(jsonEncoding, AttestationUsageData.class);
-      this.data = retrieveUnderlyingObject(jsonEncoding, AttestationUsageData.class);
-      this.useAttestation = new UseAttestation(URLUtility.decodeData(data.getPayload()), attestationIssuerVerificationKey);
+      this.context = parseToken(jsonEncoding, AttestationUsageData.class);
+      if (verify) {
+        this.userPublicKey = retrieveUserPublicKey(context);
+      }
+      this.data = context.getUnderlyingObject();
+      byte[] useAttestationEncoding = URLUtility.decodeData(data.getPayload());
+      this.useAttestation = verify ? new UseAttestation(useAttestationEncoding, attestationIssuerVerificationKey)
+          : UseAttestation.decodeUnverified(useAttestationEncoding, attestationIssuerVerificationKey);
+      if (useAttestation == null) {
+        throw RejectedEncodingException.INSTANCE;
+      }
     } catch (Exception e ) {
+      if (!verify) {
+        throw RejectedEncodingException.INSTANCE;
+      }
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Could not decode asn1"));
     }
-    constructorCheck();
+    if (verify) {
+      constructorCheck();
+    }
+  }
+
+  /**
+   * Decodes and validates a token stage by stage, such that e.g. expired tokens or tokens for
+   * another domain are rejected before any signature or proof is verified
+   */
+  public static ValidationReport<Eip712AttestationUsage> validate(String attestorDomain,
+      AsymmetricKeyParameter attestationIssuerVerificationKey, long maxTokenValidityInMs, long chainId,
+      String jsonEncoding) {
+    return ValidationPipeline.validate(() -> new Eip712AttestationUsage(attestorDomain,
+        attestationIssuerVerificationKey, maxTokenValidityInMs, chainId, jsonEncoding, false));
+  }
+
+  /**
+   * Decodes and validates a token like validate, but without timing the stages.
+   * Invalid tokens are neither logged nor thrown, the reason is returned and counted instead.
+   */
+  public static DecodeResult<Eip712AttestationUsage> tryDecode(String attestorDomain,
+      AsymmetricKeyParameter attestationIssuerVerificationKey, long maxTokenValidityInMs, long chainId,
+      String jsonEncoding) {
+    return ValidationPipeline.tryValidate(() -> new Eip712AttestationUsage(attestorDomain,
+        attestationIssuerVerificationKey, maxTokenValidityInMs, chainId, jsonEncoding, false), rejections);
+  }
+
+  /**
+   * Returns the amount of tokens rejected by tryDecode for reason
+   */
+  public static long getRejections(RejectionReason reason) {
+    return rejections.get(reason);
   }
 
   void constructorCheck() throws IllegalArgumentException {
@@ -101,14 +163,9 @@ public class Eip712AttestationUsage extends Eip712Validator implements JsonEncod
   }
 
   private boolean proofLinking() {
-    BigInteger candidateExponent = AttestationCrypto.mapToCurveMultiplier(getType(), getIdentifier());
-    ECPoint commitmentPoint = AttestationCrypto.decodePoint(getAttestation().getUnsignedAttestation().getCommitment());
-    ECPoint candidateRiddle = commitmentPoint.subtract(AttestationCrypto.G.multiply(candidateExponent));
-    if (!candidateRiddle.equals(getPok().getRiddle())) {
-      logger.error("Could not validate proof linking to attestation commitment");
-      return false;
-    }
-    return true;
+    ECPoint commitmentPoint = getAttestation().getUnsignedAttestation().getCommitmentPoint();
+    ECPoint candidateRiddle = commitmentPoint.subtract(AttestationCrypto.mapToCurvePoint(getType(), getIdentifier()));
+    return candidateRiddle.equals(getPok().getRiddle());
   }
 
   public String getIdentifier() {
@@ -116,7 +173,28 @@ public class Eip712AttestationUsage extends Eip712Validator implements JsonEncod
   }
 
   public AsymmetricKeyParameter getUserPublicKey() {
-    return userPublicKey;
+    AsymmetricKeyParameter res = userPublicKey;
+    if (res == null) {
+      try {
+        // Recovery is deterministic, so a race is harmless
+        res = retrieveUserPublicKey(context);
+      } catch (InvalidObjectException e) {
+        throw ExceptionUtil.makeRuntimeException(logger, "Could not recover the public key of the user", e);
+      }
+      userPublicKey = res;
+    }
+    return res;
+  }
+
+  // Recovers the public key of the user without logging if it cannot be recovered
+  private AsymmetricKeyParameter tryGetUserPublicKey() {
+    AsymmetricKeyParameter res = userPublicKey;
+    if (res == null) {
+      // Recovery is deterministic, so a race is harmless
+      res = recoverUserPublicKey(context);
+      userPublicKey = res;
+    }
+    return res;
   }
 
   public FullProofOfExponent getPok() {
@@ -142,30 +220,26 @@ public class Eip712AttestationUsage extends Eip712Validator implements JsonEncod
 
   @Override
   public boolean checkTokenValidity() {
-    long nonceMinTime = Timestamp.stringTimestampToLong(data.getExpirationTime()) - maxTokenValidityInMs;
-    long nonceMaxTime = Timestamp.stringTimestampToLong(data.getExpirationTime());
     if (!useAttestation.checkValidity()) {
       logger.error("Not not validate underlying object");
       return false;
     }
-    if (!data.getDescription().equals(encoder.getUsageValue())) {
+    if (!validDescription()) {
       logger.error("Description field incorrect");
       return false;
     }
-    Timestamp time = new Timestamp(data.getTimestamp());
-    time.setValidity(maxTokenValidityInMs);
-    if (!time.validateAgainstExpiration(Timestamp.stringTimestampToLong(data.getExpirationTime()))) {
-      logger.error("Timestamp not valid");
+    String error = getTimestamp().findExpirationError(data.getExpirationTimeInMs());
+    if (error != null) {
+      logger.error("Timestamp not valid: " + error);
       return false;
     }
-    if (!SignatureUtility.verifyKeyAgainstAddress(
-        userPublicKey, useAttestation.getAttestation().getUnsignedAttestation().getAddress())) {
+    if (!userKeyMatchesAttestation(getUserPublicKey())) {
       logger.error("Could not verify signature");
       return false;
     }
-    if (!Nonce.validateNonce(useAttestation.getPok().getNonce(),
-        (useAttestation.getAttestation().getUnsignedAttestation()).getAddress(), domain, new Timestamp(nonceMinTime), new Timestamp(nonceMaxTime))) {
-      logger.error("Nonce validation failed");
+    error = findNonceError();
+    if (error != null) {
+      logger.error("Nonce validation failed: " + error);
       return false;
     }
     if (!proofLinking()) {
@@ -175,6 +249,61 @@ public class Eip712AttestationUsage extends Eip712Validator implements JsonEncod
     return true;
   }
 
+  /**
+   * Runs the checks of the token itself before those of the underlying UseAttestation, since the
+   * checks of the token are the cheaper ones in every stage
+   */
+  @Override
+  public boolean checkStage(ValidationStage stage) {
+    return checkTokenStage(stage) && useAttestation.checkStage(stage);
+  }
+
+  private boolean checkTokenStage(ValidationStage stage) {
+    switch (stage) {
+      case STRUCTURE:
+        return validDescription();
+      case TIME:
+        return getTimestamp().findExpirationError(data.getExpirationTimeInMs()) == null;
+      case DOMAIN:
+        return verifyDomain(context);
+      case NONCE:
+        return findNonceError() == null;
+      case SIGNATURE:
+        AsymmetricKeyParameter key = tryGetUserPublicKey();
+        return key != null && userKeyMatchesAttestation(key);
+      case PROOF:
+        return proofLinking();
+      default:
+        return true;
+    }
+  }
+
+  private boolean validDescription() {
+    return data.getDescription().equals(encoder.getUsageValue());
+  }
+
+  private Timestamp getTimestamp() {
+    Timestamp time = new Timestamp(data.getTimestampInMs());
+    time.setValidity(maxTokenValidityInMs);
+    return time;
+  }
+
+  private boolean userKeyMatchesAttestation(AsymmetricKeyParameter key) {
+    EthereumAddress address = useAttestation.getAttestation().getUnsignedAttestation().tryGetEthereumAddress();
+    return address != null && SignatureUtility.verifyKeyAgainstAddress(key, address);
+  }
+
+  private String findNonceError() {
+    long nonceMinTime = data.getExpirationTimeInMs() - maxTokenValidityInMs;
+    long nonceMaxTime = data.getExpirationTimeInMs();
+    EthereumAddress address = useAttestation.getAttestation().getUnsignedAttestation().tryGetEthereumAddress();
+    if (address == null) {
+      return "The attestation has no valid subject public key";
+    }
+    return Nonce.findNonceError(useAttestation.getPok().getNonce(), address, domain,
+        new Timestamp(nonceMinTime), new Timestamp(nonceMaxTime), new byte[0]);
+  }
+
   @Override
   public boolean verify() {
     if (!useAttestation.verify()) {
@@ -33,6 +33,8 @@ public class Eip712AttestationUsageEncoder extends Eip712Encoder {
   static class AttestationUsageData extends FullEip712InternalData {
     private String identifier;
     private String expirationTime;
+    // The expiration time in milliseconds since the epoch, parsed on first use
+    private volatile Long expirationTimeInMs;
 
     public AttestationUsageData() { super(); }
 
@@ -58,7 +60,21 @@ public class Eip712AttestationUsageEncoder extends Eip712Encoder {
 
     public String getExpirationTime() { return expirationTime; }
 
-    public void setExpirationTime(String expirationTime) { this.expirationTime = expirationTime; }
+    public void setExpirationTime(String expirationTime) {
+      this.expirationTime = expirationTime;
+      this.expirationTimeInMs = null;
+    }
+
+    @JsonIgnore
+    public long getExpirationTimeInMs() {
+      Long res = expirationTimeInMs;
+      if (res == null) {
+        // Parsing is deterministic, so a race is harmless
+        res = Timestamp.stringTimestampToLong(expirationTime);
+        expirationTimeInMs = res;
+      }
+      return res;
+    }
 
     @JsonIgnore
     @Override
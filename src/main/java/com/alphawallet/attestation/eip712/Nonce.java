@@ -2,10 +2,11 @@ package com.alphawallet.attestation.eip712;
 
 import com.alphawallet.attestation.ValidationTools;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.BoundedCache;
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.ExceptionUtil;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -14,28 +15,34 @@ public class Nonce {
 
   public static final long DEFAULT_NONCE_TIME_LIMIT_MS = 1000*60*20; // 20 min
 
-  private static final int senderAddressIndexStart = 0;
-  private static final int senderAddressIndexStop = ValidationTools.ADDRESS_LENGTH_IN_BYTES;
-  private static final int receiverIdentifierIndexStart = senderAddressIndexStop;
-  private static final int receiverIdentifierIndexStop = receiverIdentifierIndexStart + AttestationCrypto.BYTES_IN_DIGEST;
-  private static final int timestampIndexStart = receiverIdentifierIndexStop;
-  private static final int timestampIndexStop = timestampIndexStart + Long.BYTES;
-  private static final int otherDataIndexStart = timestampIndexStop;
+  static final int senderAddressIndexStart = 0;
+  static final int senderAddressIndexStop = ValidationTools.ADDRESS_LENGTH_IN_BYTES;
+  static final int receiverIdentifierIndexStart = senderAddressIndexStop;
+  static final int receiverIdentifierIndexStop = receiverIdentifierIndexStart + AttestationCrypto.BYTES_IN_DIGEST;
+  static final int timestampIndexStart = receiverIdentifierIndexStop;
+  static final int timestampIndexStop = timestampIndexStart + Long.BYTES;
+  static final int otherDataIndexStart = timestampIndexStop;
+
+  // Maximum amount of receiver identifiers for which the digest is cached. Validators check
+  // nonces against their own fixed domain, so only a few identifiers are expected.
+  private static final int RECEIVER_DIGEST_CACHE_SIZE = 100;
+  private static final BoundedCache<String, byte[]> receiverDigests = new BoundedCache<>(RECEIVER_DIGEST_CACHE_SIZE);
 
   public static byte[] makeNonce(String senderAddress, String receiverIdentifier, Timestamp timestamp) {
     return makeNonce(senderAddress, receiverIdentifier, timestamp, new byte[0]);
   }
 
   public static byte[] makeNonce(String senderAddress, String receiverIdentifier, Timestamp timestamp, byte[] otherData) {
-    // Ensure that the address is valid, since this will throw an exception if not
-    if (!ValidationTools.isAddress(senderAddress)) {
-      throw ExceptionUtil.throwException(logger, new IllegalArgumentException("Address is not valid"));
-    }
+    return makeNonce(parseAddress(senderAddress), receiverIdentifier, timestamp, otherData);
+  }
+
+  public static byte[] makeNonce(EthereumAddress senderAddress, String receiverIdentifier, Timestamp timestamp, byte[] otherData) {
     ByteBuffer buffer = ByteBuffer.allocate(otherDataIndexStart + otherData.length);
+    senderAddress.writeAscii(buffer.array(), senderAddressIndexStart);
+    buffer.position(receiverIdentifierIndexStart);
     // Hash to ensure all variable length components is encoded with constant length
-    buffer.put(senderAddress.toUpperCase().getBytes(StandardCharsets.UTF_8));
-    buffer.put(AttestationCrypto.hashWithKeccak(receiverIdentifier.getBytes(StandardCharsets.UTF_8)));
-    buffer.put(longToBytes(timestamp.getTime()));
+    buffer.put(receiverIdentifierDigest(receiverIdentifier));
+    buffer.putLong(timestamp.getTime());
     buffer.put(otherData);
     return buffer.array();
   }
@@ -47,52 +54,72 @@ public class Nonce {
 
   public static boolean validateNonce(byte[] nonce,
       String senderAddress, String receiverIdentifier, Timestamp minTime, Timestamp maxTime, byte[] otherData) {
-    if (!validateAddress(nonce, senderAddress)) {
-      logger.error("Could not validate address");
+    return validateNonce(nonce, parseAddress(senderAddress), receiverIdentifier, minTime, maxTime, otherData);
+  }
+
+  public static boolean validateNonce(byte[] nonce, EthereumAddress senderAddress,
+      String receiverIdentifier, Timestamp minTime, Timestamp maxTime) {
+    return validateNonce(nonce, senderAddress, receiverIdentifier, minTime, maxTime, new byte[0]);
+  }
+
+  public static boolean validateNonce(byte[] nonce,
+      EthereumAddress senderAddress, String receiverIdentifier, Timestamp minTime, Timestamp maxTime, byte[] otherData) {
+    String error = findNonceError(nonce, senderAddress, receiverIdentifier, minTime, maxTime, otherData);
+    if (error != null) {
+      logger.error(error);
       return false;
     }
-    if (!validateReceiverIdentifier(nonce, receiverIdentifier)) {
-      logger.error("Receiver identifier incorrect");
-      return false;
+    return true;
+  }
+
+  /**
+   * Returns why the nonce is not valid, or null if it is, without logging
+   */
+  static String findNonceError(byte[] nonce,
+      EthereumAddress senderAddress, String receiverIdentifier, Timestamp minTime, Timestamp maxTime, byte[] otherData) {
+    NonceView view = new NonceView(nonce);
+    if (!view.isComplete()) {
+      return "Nonce is too short";
     }
-    if (!validateTimestamp(nonce, minTime, maxTime)) {
-      logger.error("Could not validate time stamp");
-      return false;
+    if (!view.hasSenderAddress(senderAddress)) {
+      return "Could not validate address";
     }
-    if (!validateOtherData(nonce, otherData)) {
-      logger.error("Could not validate auxiliary data");
-      return false;
+    if (!view.hasReceiverIdentifier(receiverIdentifier)) {
+      return "Receiver identifier incorrect";
     }
-    return true;
+    if (!validateTimestamp(view.getTime(), minTime, maxTime)) {
+      return "Could not validate time stamp";
+    }
+    if (!view.hasOtherData(otherData)) {
+      return "Could not validate auxiliary data";
+    }
+    return null;
   }
 
-  static boolean validateAddress(byte[] nonce, String address) {
-    byte[] referenceAddress = Arrays.copyOfRange(nonce, senderAddressIndexStart, senderAddressIndexStop);
+  // Ensure that the address is valid, since this will throw an exception if not
+  private static EthereumAddress parseAddress(String address) {
     if (!ValidationTools.isAddress(address)) {
       throw ExceptionUtil.throwException(logger, new IllegalArgumentException("Address is not valid"));
     }
-    byte[] recomputedKeyDigest = address.toUpperCase().getBytes(StandardCharsets.UTF_8);
-    return Arrays.equals(referenceAddress, recomputedKeyDigest);
+    return EthereumAddress.fromString(address);
   }
 
-  static boolean validateReceiverIdentifier(byte[] nonce, String receiverIdentifier) {
-    byte[] receiverIdentifierDigest = Arrays.copyOfRange(nonce, receiverIdentifierIndexStart, receiverIdentifierIndexStop);
-    byte[] recomputedReceiverIdentifierDigest = AttestationCrypto.hashWithKeccak(
-        receiverIdentifier.getBytes(StandardCharsets.UTF_8));
-    return Arrays.equals(receiverIdentifierDigest, recomputedReceiverIdentifierDigest);
+  /**
+   * Returns the Keccak digest of the receiver identifier, which must not be modified
+   */
+  static byte[] receiverIdentifierDigest(String receiverIdentifier) {
+    return receiverDigests.computeIfAbsent(receiverIdentifier, identifier -> {
+      byte[] identifierBytes = identifier.getBytes(StandardCharsets.UTF_8);
+      byte[] digest = new byte[AttestationCrypto.BYTES_IN_DIGEST];
+      AttestationCrypto.hashWithKeccak(identifierBytes, 0, identifierBytes.length, digest, 0);
+      return digest;
+    });
   }
 
-  static boolean validateTimestamp(byte[] nonce, Timestamp minTime, Timestamp maxTime) {
-    long timestamp = bytesToLong(Arrays.copyOfRange(nonce, timestampIndexStart, timestampIndexStop));
+  static boolean validateTimestamp(long timestamp, Timestamp minTime, Timestamp maxTime) {
     Timestamp nonceStamp = new Timestamp(timestamp);
     nonceStamp.setValidity(maxTime.getTime()-minTime.getTime());
-    return nonceStamp.validateAgainstExpiration(maxTime.getTime());
-  }
-
-  static boolean validateOtherData(byte[] nonce, byte[] otherData) {
-    byte[] receiverOtherData = Arrays.copyOfRange(nonce,
-         otherDataIndexStart, otherDataIndexStart + otherData.length);
-    return Arrays.equals(receiverOtherData, otherData);
+    return nonceStamp.findExpirationError(maxTime.getTime()) == null;
   }
 
   public static byte[] longToBytes(long input) {
@@ -102,14 +129,16 @@ public class Nonce {
   }
 
   public static long bytesToLong(byte[] input) {
-    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
-    buffer.put(Arrays.copyOfRange(input, 0, Long.BYTES));
-    buffer.flip();
-    return buffer.getLong();
+    long res = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      // Shorter input is padded with zeros
+      res = (res << 8) | (i < input.length ? input[i] & 0xFF : 0);
+    }
+    return res;
   }
 
   public static Timestamp getTimestamp(byte[] nonce) {
-    return new Timestamp(bytesToLong(Arrays.copyOfRange(nonce, timestampIndexStart, timestampIndexStop)));
+    return new Timestamp(new NonceView(nonce).getTime());
   }
 
 }
@@ -0,0 +1,62 @@
+package com.alphawallet.attestation.eip712;
+
+import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.EthereumAddress;
+import java.util.Arrays;
+
+/**
+ * Read-only view of the components of a nonce constructed by Nonce.makeNonce.
+ * The components are compared in place in the underlying array, which is neither copied nor
+ * modified, so validating a nonce does not allocate.
+ */
+public final class NonceView {
+  private final byte[] nonce;
+
+  public NonceView(byte[] nonce) {
+    this.nonce = nonce;
+  }
+
+  /**
+   * Returns whether the nonce is long enough to hold all components but the auxiliary data
+   */
+  public boolean isComplete() {
+    return nonce.length >= Nonce.otherDataIndexStart;
+  }
+
+  public boolean hasSenderAddress(EthereumAddress address) {
+    return address.matchesAscii(nonce, Nonce.senderAddressIndexStart);
+  }
+
+  public boolean hasReceiverIdentifier(String receiverIdentifier) {
+    if (nonce.length < Nonce.receiverIdentifierIndexStop) {
+      return false;
+    }
+    byte[] digest = Nonce.receiverIdentifierDigest(receiverIdentifier);
+    return Arrays.equals(nonce, Nonce.receiverIdentifierIndexStart, Nonce.receiverIdentifierIndexStop,
+        digest, 0, AttestationCrypto.BYTES_IN_DIGEST);
+  }
+
+  /**
+   * Returns the time of the nonce in milliseconds since the epoch.
+   * The time of a nonce which is not complete is padded with zeros.
+   */
+  public long getTime() {
+    long res = 0;
+    for (int i = Nonce.timestampIndexStart; i < Nonce.timestampIndexStop; i++) {
+      res = (res << 8) | (i < nonce.length ? nonce[i] & 0xFF : 0);
+    }
+    return res;
+  }
+
+  /**
+   * Returns whether the auxiliary data of the nonce starts with otherData
+   */
+  public boolean hasOtherData(byte[] otherData) {
+    int otherDataIndexStop = Nonce.otherDataIndexStart + otherData.length;
+    if (nonce.length < otherDataIndexStop) {
+      return false;
+    }
+    return Arrays.equals(nonce, Nonce.otherDataIndexStart, otherDataIndexStop,
+        otherData, 0, otherData.length);
+  }
+}
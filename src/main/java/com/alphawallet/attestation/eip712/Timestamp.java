@@ -2,12 +2,17 @@ package com.alphawallet.attestation.eip712;
 
 
 import com.alphawallet.attestation.core.ExceptionUtil;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
 import java.time.Clock;
-import java.util.Date;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
 import java.util.Locale;
-import java.util.TimeZone;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -15,18 +20,24 @@ public class Timestamp {
   private static final Logger logger = LogManager.getLogger(Timestamp.class);
 
   public static final int ALLOWED_ROUNDING = 1000; // 1 sec, since we are always rounding to the nearest second in the string representation
-  // Timestamp with millisecond accuracy and timezone info
-  public static final SimpleDateFormat TIMESTAMP_FORMAT = new SimpleDateFormat("EEE MMM d yyyy HH:mm:ss 'GMT'Z", Locale.US);
+  // Timestamp with second accuracy and timezone info. The formatter is immutable and thus thread-safe.
+  // The day of the week is not used when parsing, and text following the timestamp is ignored.
+  // The year has at least four digits and no sign, i.e. "EEE MMM d yyyy HH:mm:ss 'GMT'Z".
+  public static final DateTimeFormatter TIMESTAMP_FORMAT = new DateTimeFormatterBuilder()
+      .appendPattern("EEE MMM d ")
+      .appendValue(ChronoField.YEAR, 4, 10, SignStyle.NORMAL)
+      .appendPattern(" HH:mm:ss 'GMT'Z")
+      .toFormatter(Locale.US)
+      .withResolverStyle(ResolverStyle.STRICT)
+      .withResolverFields(ChronoField.YEAR, ChronoField.MONTH_OF_YEAR, ChronoField.DAY_OF_MONTH,
+          ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR, ChronoField.SECOND_OF_MINUTE,
+          ChronoField.OFFSET_SECONDS);
 
   // See RFC 5282, https://tools.ietf.org/html/rfc5280#section-4.1.2.5, based on the GeneralizedTime value of 99991231235959Z
   public static final long UNLIMITED = 253402297199000L;
   public static final long DEFAULT_TOKEN_TIME_LIMIT = 1000 * 60 * 60 * 24 * 365; // 1 year
   public static final long DEFAULT_TIME_LIMIT_MS = 1000*60*20; // 20 minutes
 
-  static {
-    TIMESTAMP_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
-  }
-
   private final long time;
   private long validity = 0;
 
@@ -58,38 +69,56 @@ public class Timestamp {
   }
 
   public String getTimeAsString() {
-    return Timestamp.TIMESTAMP_FORMAT.format(new Date(time));
+    return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(time).atOffset(ZoneOffset.UTC));
   }
 
   public boolean validateTimestamp() {
+    return logged(findTimestampError());
+  }
+
+  /**
+   * Returns why the timestamp is not valid, or null if it is, without logging
+   */
+  String findTimestampError() {
     long currentTime = getCurrentTime();
     if (time > currentTime + ALLOWED_ROUNDING) {
-      logger.error("Timestamp is from the future");
-      return false;
+      return "Timestamp is from the future";
     }
     // Slack only goes into the future
     if (time < currentTime - ALLOWED_ROUNDING - validity) {
-      logger.error("Timestamp is expired");
-      return false;
+      return "Timestamp is expired";
     }
-    return true;
+    return null;
   }
 
   public boolean validateAgainstExpiration(long expirationTimeInMs) {
+    return logged(findExpirationError(expirationTimeInMs));
+  }
+
+  /**
+   * Returns why the timestamp is not valid against the expiration time, or null if it is, without
+   * logging
+   */
+  String findExpirationError(long expirationTimeInMs) {
     long currentTime = getCurrentTime();
     // If timestamp is in the future
     if (time > currentTime + ALLOWED_ROUNDING) {
-      logger.error("Timestamp is from the future");
-      return false;
+      return "Timestamp is from the future";
     }
     // If token has expired
     if (expirationTimeInMs < currentTime - ALLOWED_ROUNDING) {
-      logger.error("Expiration time has passed");
-      return false;
+      return "Expiration time has passed";
     }
     // If the token is valid for too long
     if (expirationTimeInMs - time > validity + ALLOWED_ROUNDING) {
-      logger.error("Lifetime is larger than allowed");
+      return "Lifetime is larger than allowed";
+    }
+    return null;
+  }
+
+  private static boolean logged(String error) {
+    if (error != null) {
+      logger.error(error);
       return false;
     }
     return true;
@@ -97,8 +126,8 @@ public class Timestamp {
 
   public static long stringTimestampToLong(String timestamp) {
     try {
-      return TIMESTAMP_FORMAT.parse(timestamp).getTime();
-    } catch (ParseException e) {
+      return Instant.from(TIMESTAMP_FORMAT.parse(timestamp, new ParsePosition(0))).toEpochMilli();
+    } catch (DateTimeException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode timestamp", e);
     }
   }
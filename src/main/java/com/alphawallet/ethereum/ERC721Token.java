@@ -12,6 +12,8 @@ import java.math.BigInteger;
 public class ERC721Token implements ASNEncodable {
     public String address;
     public BigInteger tokenId;
+    // The memoized encoding along with the field values it encodes
+    private volatile MemoizedEncoding encoding;
 
     public ERC721Token(String address, String tokenId)
     {
@@ -40,14 +42,39 @@ public class ERC721Token implements ASNEncodable {
         return data;
     }
 
+    /**
+     * The encoding is memoized for as long as the public fields hold the same values, so the same
+     * array is returned on repeated calls and must not be modified.
+     */
     @Override
     public byte[] getDerEncoding()
     {
-        ASN1EncodableVector data = getTokenVector();
-        try {
-            return new DERSequence(data).getEncoded();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        MemoizedEncoding res = encoding;
+        if (res == null || res.address != address || res.tokenId != tokenId) {
+            ASN1EncodableVector data = getTokenVector();
+            try {
+                res = new MemoizedEncoding(address, tokenId, new DERSequence(data).getEncoded());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            encoding = res;
+        }
+        return res.encoded;
+    }
+
+    /**
+     * An encoding along with the field values it was computed from. Both values are immutable, so
+     * the encoding is current exactly when the token still holds the same references.
+     */
+    private static final class MemoizedEncoding {
+        private final String address;
+        private final BigInteger tokenId;
+        private final byte[] encoded;
+
+        private MemoizedEncoding(String address, BigInteger tokenId, byte[] encoded) {
+            this.address = address;
+            this.tokenId = tokenId;
+            this.encoded = encoded;
         }
     }
 }
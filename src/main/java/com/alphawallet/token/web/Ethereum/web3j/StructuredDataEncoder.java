@@ -44,6 +44,9 @@ import org.web3j.utils.Numeric;
  */
 
 public class StructuredDataEncoder {
+    // Mappers are thread-safe once configured, and expensive to construct
+    private static final ObjectMapper mapper = new ObjectMapper();
+
     public final StructuredData.EIP712Message jsonMessageObject;
 
     // Matches array declarations like arr[5][10], arr[][], arr[][34][], etc.
@@ -74,6 +77,12 @@ public class StructuredDataEncoder {
         this.jsonMessageObject = parseJSONMessage(jsonMessageInString);
     }
 
+    public StructuredDataEncoder(StructuredData.EIP712Message jsonMessageObject) throws RuntimeException {
+        // Validate an already parsed message
+        validateStructuredData(jsonMessageObject);
+        this.jsonMessageObject = jsonMessageObject;
+    }
+
     public Set<String> getDependencies(String primaryType) {
         // Find all the dependencies of a type
         HashMap<String, List<StructuredData.Entry>> types = jsonMessageObject.getTypes();
@@ -411,9 +420,8 @@ public class StructuredDataEncoder {
 
     @SuppressWarnings("unchecked")
     public byte[] hashDomain() throws RuntimeException {
-        ObjectMapper oMapper = new ObjectMapper();
         HashMap<String, Object> data =
-            oMapper.convertValue(jsonMessageObject.getDomain(), HashMap.class);
+            mapper.convertValue(jsonMessageObject.getDomain(), HashMap.class);
 
         if (data.get("chainId") == null) {
             data.remove("chainId");
@@ -451,8 +459,6 @@ public class StructuredDataEncoder {
 
     public StructuredData.EIP712Message parseJSONMessage(String jsonMessageInString)
         throws IOException, RuntimeException {
-        ObjectMapper mapper = new ObjectMapper();
-
         // convert JSON string to EIP712Message object
         StructuredData.EIP712Message tempJSONMessageObject =
             mapper.readValue(jsonMessageInString, StructuredData.EIP712Message.class);
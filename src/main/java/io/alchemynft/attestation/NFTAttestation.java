@@ -2,6 +2,8 @@ package io.alchemynft.attestation;
 
 import com.alphawallet.attestation.SignedIdentityAttestation;
 import com.alphawallet.attestation.core.ASNEncodable;
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.DerivedEncoding;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.Validateable;
 import com.alphawallet.ethereum.ERC721Token;
@@ -14,6 +16,7 @@ import java.io.IOException;
 public class NFTAttestation implements ASNEncodable, Validateable {
     private final SignedIdentityAttestation att;
     private final DERSequence tokens;
+    private final DerivedEncoding encoding = new DerivedEncoding();
 
     public NFTAttestation(SignedIdentityAttestation att, ERC721Token[] nftTokens)
     {
@@ -38,16 +41,18 @@ public class NFTAttestation implements ASNEncodable, Validateable {
         this.tokens = DERSequence.convert(tokensEnc);
     }
 
+    /**
+     * Returns the encoding, which is memoized for as long as the signed attestation is not modified
+     */
     @Override
     public byte[] getDerEncoding() {
-        try {
-            ASN1EncodableVector res = new ASN1EncodableVector();
-            res.add(ASN1Primitive.fromByteArray(att.getDerEncoding()));
-            res.add(tokens);
-            return new DERSequence(res).getEncoded();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return encoding.get(att.getDerEncoding(), rawAtt -> {
+            try {
+                return DERView.encodeSequence(rawAtt, tokens.getEncoded());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     public AlgorithmIdentifier getSigningAlgorithm() {
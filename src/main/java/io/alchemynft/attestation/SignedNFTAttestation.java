@@ -1,14 +1,14 @@
 package io.alchemynft.attestation;
 
 import com.alphawallet.attestation.core.ASNEncodable;
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.DerivedEncoding;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.Validateable;
 import com.alphawallet.attestation.core.Verifiable;
 import io.alchemynft.attestation.NFTAttestation;
-import org.bouncycastle.asn1.ASN1EncodableVector;
-import org.bouncycastle.asn1.ASN1Primitive;
-import org.bouncycastle.asn1.DERBitString;
-import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 
@@ -16,6 +16,7 @@ public class SignedNFTAttestation implements ASNEncodable, Verifiable, Validatea
     private final NFTAttestation att;
     private final byte[] signature;
     private final AsymmetricKeyParameter attestationVerificationKey;
+    private final DerivedEncoding encoding = new DerivedEncoding();
 
     public SignedNFTAttestation(NFTAttestation att, AsymmetricCipherKeyPair subjectSigningKey) {
         this.att = att;
@@ -51,19 +52,18 @@ public class SignedNFTAttestation implements ASNEncodable, Verifiable, Validatea
      */
     public AsymmetricKeyParameter getAttestationVerificationKey() { return attestationVerificationKey; }
 
+    /**
+     * Returns the encoding, which is memoized for as long as the unsigned attestation is not modified
+     */
     @Override
     public byte[] getDerEncoding() {
-        return constructSignedAttestation(this.att, this.signature);
+        return encoding.get(att.getDerEncoding(), rawAtt -> constructSignedAttestation(rawAtt, att.getSigningAlgorithm(), signature));
     }
 
-    static byte[] constructSignedAttestation(NFTAttestation unsignedAtt, byte[] signature) {
+    static byte[] constructSignedAttestation(byte[] rawAtt, AlgorithmIdentifier signingAlgorithm, byte[] signature) {
         try {
-            byte[] rawAtt = unsignedAtt.getDerEncoding();
-            ASN1EncodableVector res = new ASN1EncodableVector();
-            res.add(ASN1Primitive.fromByteArray(rawAtt));
-            res.add(unsignedAtt.getSigningAlgorithm());
-            res.add(new DERBitString(signature));
-            return new DERSequence(res).getEncoded();
+            return DERView.encodeSequence(rawAtt, signingAlgorithm.getEncoded(ASN1Encoding.DER),
+                DERView.encodeBitString(signature));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -3,9 +3,15 @@ package org.devcon.ticket;
 import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.core.Attestable;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
 import com.alphawallet.attestation.core.ExceptionUtil;
+import com.alphawallet.attestation.core.RejectedEncodingException;
+import com.alphawallet.attestation.core.RejectionCounter;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.URLUtility;
+import com.alphawallet.attestation.core.ValidationPipeline;
+import com.alphawallet.attestation.core.ValidationStage;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Arrays;
@@ -23,19 +29,29 @@ import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
+import org.bouncycastle.math.ec.ECPoint;
 
 public class Ticket implements Attestable {
   private static final Logger logger = LogManager.getLogger(Ticket.class);
+  private static final RejectionCounter rejections = new RejectionCounter();
 
   private final BigInteger ticketId;
   private final int ticketClass;
   private final String devconId;
   private final byte[] commitment;
-  private final AlgorithmIdentifier algorithm;
+  // Decoded lazily, since not all uses need the point
+  private volatile ECPoint commitmentPoint;
   private final byte[] signature;
   public static final String magicLinkURLPrefix = "https://ticket.devcon.org/";
   private final AsymmetricKeyParameter publicKey;
-  private final byte[] encoded;
+  // Encoded lazily when decoding without verification, since the ticket may be rejected before
+  private volatile AlgorithmIdentifier algorithm;
+  // The encoding of the ticket without commitment, which is what gets signed
+  private volatile byte[] ticketEncoding;
+  private volatile byte[] encoded;
+  // Encoded lazily, since not all uses need them
+  private volatile byte[] encodedWithPK;
+  private volatile String urlEncoding;
 
   /**
    *  @param mail The mail address of the recipient
@@ -60,7 +76,8 @@ public class Ticket implements Attestable {
     }
     ASN1Sequence asn1Tic = makeTicket();
     try {
-      this.signature = SignatureUtility.signWithEthereum(asn1Tic.getEncoded(), keys.getPrivate());
+      this.ticketEncoding = asn1Tic.getEncoded();
+      this.signature = SignatureUtility.signWithEthereum(ticketEncoding, keys.getPrivate());
       this.encoded = encodeSignedTicket(asn1Tic);
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode signature", e);
@@ -73,10 +90,24 @@ public class Ticket implements Attestable {
   }
 
   public Ticket(String devconId, BigInteger ticketId, int ticketClass, byte[] commitment, byte[] signature, AsymmetricKeyParameter publicKey) {
+    this(devconId, ticketId, ticketClass, commitment, signature, publicKey, true);
+  }
+
+  Ticket(String devconId, BigInteger ticketId, int ticketClass, byte[] commitment, byte[] signature,
+      AsymmetricKeyParameter publicKey, boolean verify) {
     this.ticketId = ticketId;
     this.ticketClass = ticketClass;
     this.devconId = devconId;
     this.commitment = commitment;
+    this.signature = signature;
+    this.publicKey = publicKey;
+    if (!verify) {
+      // The key info is only encoded when needed, but a ticket without any key is malformed
+      if (publicKey == null) {
+        throw RejectedEncodingException.INSTANCE;
+      }
+      return;
+    }
     try {
       SubjectPublicKeyInfo spki = SubjectPublicKeyInfoFactory.createSubjectPublicKeyInfo(
           publicKey);
@@ -84,19 +115,35 @@ public class Ticket implements Attestable {
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not decode spki", e);
     }
-    this.signature = signature;
     ASN1Sequence ticket = makeTicket();
     try {
+      this.ticketEncoding = ticket.getEncoded();
       this.encoded = encodeSignedTicket(ticket);
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not encode ticket", e);
     }
-    this.publicKey = publicKey;
     if (!verify()) {
       throw ExceptionUtil.throwException(logger, new IllegalArgumentException("Signature is invalid"));
     }
   }
 
+  /**
+   * Decodes and validates a ticket, optionally with the public key info, through
+   * ValidationPipeline. Invalid tickets are neither logged nor thrown, the reason is returned
+   * and counted instead.
+   * @param publicKey The key expected to have signed the ticket, or null if the ticket includes it
+   */
+  public static DecodeResult<Ticket> tryDecode(byte[] encoding, AsymmetricKeyParameter publicKey) {
+    return ValidationPipeline.tryValidate(() -> new TicketDecoder(publicKey).decodeUnverified(encoding), rejections);
+  }
+
+  /**
+   * Returns the amount of tickets rejected by tryDecode for reason
+   */
+  public static long getRejections(RejectionReason reason) {
+    return rejections.get(reason);
+  }
+
   private ASN1Sequence makeTicket() {
     ASN1EncodableVector ticket = new ASN1EncodableVector();
     ticket.add(new DERUTF8String(devconId));
@@ -113,7 +160,27 @@ public class Ticket implements Attestable {
     return new DERSequence(signedTicket).getEncoded();
   }
 
+  private byte[] getTicketEncoding() {
+    // Encoding concurrently in more than one thread is harmless since the result is the same
+    if (ticketEncoding == null) {
+      try {
+        ticketEncoding = makeTicket().getEncoded();
+      } catch (IOException e) {
+        throw ExceptionUtil.makeRuntimeException(logger, "Could not encode ticket", e);
+      }
+    }
+    return ticketEncoding;
+  }
+
   public byte[] getDerEncodingWithPK() {
+    // Encoding concurrently in more than one thread is harmless since the result is the same
+    if (encodedWithPK == null) {
+      encodedWithPK = encodeWithPK();
+    }
+    return encodedWithPK;
+  }
+
+  private byte[] encodeWithPK() {
     try {
       ASN1Sequence ticket = makeTicket();
       ASN1EncodableVector signedTicket = new ASN1EncodableVector();
@@ -133,15 +200,29 @@ public class Ticket implements Attestable {
 
   @Override
   public byte[] getDerEncoding() {
+    if (encoded == null) {
+      try {
+        encoded = encodeSignedTicket(makeTicket());
+      } catch (IOException e) {
+        throw ExceptionUtil.makeRuntimeException(logger, "Could not encode ticket", e);
+      }
+    }
     return encoded;
   }
 
   public String getUrlEncoding()  {
+    if (urlEncoding == null) {
+      urlEncoding = encodeUrl();
+    }
+    return urlEncoding;
+  }
+
+  private String encodeUrl() {
     try {
       SubjectPublicKeyInfo keyInfo = SubjectPublicKeyInfoFactory
           .createSubjectPublicKeyInfo(this.publicKey);
       return URLUtility
-          .encodeList(Arrays.asList(this.encoded, keyInfo.getPublicKeyData().getEncoded()));
+          .encodeList(Arrays.asList(getDerEncoding(), keyInfo.getPublicKeyData().getEncoded()));
     } catch (IOException e) {
       throw ExceptionUtil.makeRuntimeException(logger, "Could not encode public key", e);
     }
@@ -149,19 +230,20 @@ public class Ticket implements Attestable {
 
   @Override
   public boolean verify() {
-    try {
-      ASN1Sequence ticket = makeTicket();
-      if (!SignatureUtility.verifyEthereumSignature(ticket.getEncoded(), signature, this.publicKey)) {
-        logger.error("Could not verify signature");
-        return false;
-      }
-    } catch (IOException e) {
-      logger.error("Could not decode signature");
+    if (!SignatureUtility.verifyEthereumSignature(getTicketEncoding(), signature, this.publicKey)) {
+      logger.error("Could not verify signature");
       return false;
     }
     return true;
   }
 
+  @Override
+  public boolean checkStage(ValidationStage stage) {
+    // The ticket is always valid on its own, so only the signature is checked
+    return stage != ValidationStage.SIGNATURE || SignatureUtility.isValidEthereumSignature(
+        getTicketEncoding(), signature, SignatureUtility.ethereumAddressFromKey(publicKey), 0);
+  }
+
   @Override
   public boolean checkValidity() {
     // The ticket is always valid on its own. It depends on which conference it is used
@@ -185,7 +267,23 @@ public class Ticket implements Attestable {
     return commitment;
   }
 
+  @Override
+  public ECPoint getCommitmentPoint() {
+    // Decoding concurrently in more than one thread is harmless since the point is immutable
+    if (commitmentPoint == null) {
+      commitmentPoint = AttestationCrypto.decodePoint(commitment);
+    }
+    return commitmentPoint;
+  }
+
   public AlgorithmIdentifier getAlgorithm() {
+    if (algorithm == null) {
+      try {
+        algorithm = SubjectPublicKeyInfoFactory.createSubjectPublicKeyInfo(publicKey).getAlgorithm();
+      } catch (IOException e) {
+        throw ExceptionUtil.makeRuntimeException(logger, "Could not decode spki", e);
+      }
+    }
     return algorithm;
   }
 
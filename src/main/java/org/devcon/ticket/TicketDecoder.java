@@ -35,6 +35,15 @@ public class TicketDecoder implements AttestableObjectDecoder<Ticket> {
 
   @Override
   public Ticket decode(byte[] encoding) throws IOException {
+    return decode(encoding, true);
+  }
+
+  @Override
+  public Ticket decodeUnverified(byte[] encoding) throws IOException {
+    return decode(encoding, false);
+  }
+
+  private Ticket decode(byte[] encoding, boolean verify) throws IOException {
     ASN1InputStream input = new ASN1InputStream(encoding);
     ASN1Sequence asn1 = ASN1Sequence.getInstance(input.readObject());
     ASN1Sequence ticket = ASN1Sequence.getInstance(asn1.getObjectAt(0));
@@ -54,47 +63,66 @@ public class TicketDecoder implements AttestableObjectDecoder<Ticket> {
 
      */
     byte[] commitment = (ASN1OctetString.getInstance(asn1.getObjectAt(1))).getOctets();
-    byte[] signature = parsePKandSignature(asn1);
-    return new Ticket(devconId, ticketId, ticketClassInt, commitment, signature, publicKey);
+    byte[] signature = parsePKandSignature(asn1, verify);
+    if (signature == null) {
+      return null;
+    }
+    return new Ticket(devconId, ticketId, ticketClassInt, commitment, signature, publicKey, verify);
   }
 
   /**
    * Returns the signature and ensures that the optional public key is properly restored
    * @param input The encoded Ticket
-   * @return
+   * @param verify Whether invalid encodings should be logged and thrown
+   * @return The signature, or null if the encoding is invalid and verify is not set
    */
-  private byte[] parsePKandSignature(ASN1Sequence input) throws IOException, IllegalArgumentException{
+  private byte[] parsePKandSignature(ASN1Sequence input, boolean verify) throws IOException, IllegalArgumentException{
     byte[] signature;
     ASN1Encodable object = input.getObjectAt(2);
     if (object instanceof ASN1Sequence) {
       // The optional PublicKeyInfo is included
-      parseEncodingOfPKInfo((ASN1Sequence) object);
+      if (!parseEncodingOfPKInfo((ASN1Sequence) object, verify)) {
+        return null;
+      }
       signature = DERBitString.getInstance(input.getObjectAt(3)).getBytes();
     } else if (object instanceof DERBitString) {
       // Only the signature is included
       signature = DERBitString.getInstance(input.getObjectAt(2)).getBytes();
     } else {
+      if (!verify) {
+        return null;
+      }
       throw ExceptionUtil.throwException(logger,
           new IllegalArgumentException("Invalid ticket encoding"));
     }
     return signature;
   }
 
-  private void parseEncodingOfPKInfo(ASN1Sequence publicKeyInfo) throws IOException, IllegalArgumentException {
+  /**
+   * Restores the public key of the encoding and ensures that it is the one supplied, if any
+   * @return Whether the key is the one supplied, which is only false if verify is not set
+   */
+  private boolean parseEncodingOfPKInfo(ASN1Sequence publicKeyInfo, boolean verify) throws IOException, IllegalArgumentException {
     AlgorithmIdentifier algorithm = AlgorithmIdentifier.getInstance(publicKeyInfo.getObjectAt(0));
     byte[] publicKeyBytes = DERBitString.getInstance(publicKeyInfo.getObjectAt(1)).getEncoded();
     AsymmetricKeyParameter decodedPublicKey = SignatureUtility.restoreDefaultKey(algorithm, publicKeyBytes);
+    // Ensure that the right type of public key is given. Restored keys are interned, so once the
+    // decoder holds a restored key, the same key is decoded as the same object and the SPKI
+    // encodings only need to be compared for a key supplied by the caller.
+    if (publicKey != null && publicKey != decodedPublicKey) {
       SubjectPublicKeyInfo decodedSpki = SubjectPublicKeyInfoFactory
           .createSubjectPublicKeyInfo(decodedPublicKey);
-    // Ensure that the right type of public key is given
-    if (publicKey != null) {
       SubjectPublicKeyInfo referenceSpki = SubjectPublicKeyInfoFactory
           .createSubjectPublicKeyInfo(publicKey);
       if (!Arrays.equals(referenceSpki.getEncoded(), decodedSpki.getEncoded())) {
+        if (!verify) {
+          return false;
+        }
         throw ExceptionUtil.throwException(logger, new IllegalArgumentException(
             "The public key is not of the same as supplied as argument"));
       }
     }
     publicKey = decodedPublicKey;
+    return true;
   }
 }
@@ -3,6 +3,7 @@ package org.tokenscript.auth;
 import com.alphawallet.attestation.AttestableObjectDecoder;
 import com.alphawallet.attestation.AttestedObject;
 import com.alphawallet.attestation.core.Attestable;
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.URLUtility;
 import com.alphawallet.attestation.eip712.Nonce;
@@ -10,6 +11,7 @@ import com.alphawallet.attestation.eip712.Timestamp;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.tokenscript.eip712.Eip712ValidationContext;
 import org.tokenscript.eip712.Eip712Validator;
 import org.tokenscript.eip712.FullEip712InternalData;
 
@@ -36,11 +38,12 @@ public class Eip712AuthValidator<T extends Attestable> extends Eip712Validator {
 
   public boolean validateRequest(String jsonInput) {
     try {
-      FullEip712InternalData auth = retrieveUnderlyingObject(jsonInput, FullEip712InternalData.class);
+      Eip712ValidationContext<FullEip712InternalData> context = parseToken(jsonInput, FullEip712InternalData.class);
+      FullEip712InternalData auth = context.getUnderlyingObject();
       AttestedObject<T> attestedObject = retrieveAttestedObject(auth);
-      String signerAddress = SignatureUtility.addressFromKey(attestedObject.getUserPublicKey());
+      EthereumAddress signerAddress = SignatureUtility.ethereumAddressFromKey(attestedObject.getUserPublicKey());
 
-      if (!verifySignature(jsonInput, signerAddress, FullEip712InternalData.class)) {
+      if (!verifySignature(context, signerAddress)) {
         logger.error("Could not verify signature");
         return false;
       }
@@ -70,7 +73,7 @@ public class Eip712AuthValidator<T extends Attestable> extends Eip712Validator {
       logger.error("Description is incorrect");
       return false;
     }
-    Timestamp timestamp = new Timestamp(authentication.getTimestamp());
+    Timestamp timestamp = new Timestamp(authentication.getTimestampInMs());
     timestamp.setValidity(acceptableTimeLimit);
     if (!timestamp.validateTimestamp()) {
       logger.error("Invalid timestamp");
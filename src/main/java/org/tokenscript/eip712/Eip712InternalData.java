@@ -1,12 +1,16 @@
 package org.tokenscript.eip712;
 
 import com.alphawallet.attestation.eip712.Timestamp;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
 @JsonPropertyOrder({ "description", "timestamp"})
 public class Eip712InternalData {
   private String description;
   private String timestamp;
+  // The timestamp in milliseconds since the epoch, parsed on first use.
+  // A single volatile reference, so other threads see either null or the parsed value.
+  private volatile Long timestampInMs;
 
   public Eip712InternalData() {}
 
@@ -34,6 +38,21 @@ public class Eip712InternalData {
 
   public void setTimestamp(String timestamp) {
     this.timestamp = timestamp;
+    this.timestampInMs = null;
+  }
+
+  /**
+   * Returns the timestamp in milliseconds since the epoch, such that it only gets parsed once
+   */
+  @JsonIgnore
+  public long getTimestampInMs() {
+    Long res = timestampInMs;
+    if (res == null) {
+      // Parsing is deterministic, so a race is harmless
+      res = Timestamp.stringTimestampToLong(timestamp);
+      timestampInMs = res;
+    }
+    return res;
   }
 
 }
@@ -0,0 +1,63 @@
+package org.tokenscript.eip712;
+
+import com.alphawallet.token.web.Ethereum.web3j.StructuredData.EIP712Domain;
+import com.alphawallet.token.web.Ethereum.web3j.StructuredData.EIP712Message;
+import com.alphawallet.token.web.Ethereum.web3j.StructuredDataEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A signed EIP712 token parsed once, such that the underlying object, the domain and the signature
+ * can all be validated without parsing the JSON again.
+ * The message actually signed is derived from the parsed message instead of being serialized and
+ * parsed again, and only on first use, so tokens rejected before their signature is checked are
+ * never hashed.
+ */
+public final class Eip712ValidationContext<T extends FullEip712InternalData> {
+  private final ObjectMapper mapper;
+  private final EIP712Message message;
+  private final T underlyingObject;
+  private final String signatureInHex;
+  // Derived on first use, a race is harmless since the result is the same
+  private volatile byte[] signedPrehash;
+
+  Eip712ValidationContext(ObjectMapper mapper, EIP712Message message, T underlyingObject,
+      String signatureInHex) {
+    this.mapper = mapper;
+    this.message = message;
+    this.underlyingObject = underlyingObject;
+    this.signatureInHex = signatureInHex;
+  }
+
+  public T getUnderlyingObject() {
+    return underlyingObject;
+  }
+
+  public EIP712Domain getDomain() {
+    return message.getDomain();
+  }
+
+  byte[] getSignature() {
+    // Remove the "0x" prefix
+    return Hex.decode(signatureInHex.substring(2));
+  }
+
+  /**
+   * Returns the structured data which is hashed and signed, i.e. the encoding of the domain and of
+   * the signable version of the underlying object
+   */
+  byte[] getSignedPrehash() {
+    byte[] res = signedPrehash;
+    if (res == null) {
+      // The same mapper that parsed the message converts the signable version to the map it
+      // would have been parsed into
+      Object signableMessage = mapper.convertValue(underlyingObject.getSignableVersion(), LinkedHashMap.class);
+      EIP712Message signable = new EIP712Message(message.getTypes(), message.getPrimaryType(),
+          signableMessage, message.getDomain());
+      res = new StructuredDataEncoder(signable).getStructuredData();
+      signedPrehash = res;
+    }
+    return res;
+  }
+}
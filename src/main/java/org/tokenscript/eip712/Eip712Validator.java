@@ -1,23 +1,18 @@
 package org.tokenscript.eip712;
 
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.ExceptionUtil;
 import com.alphawallet.attestation.core.SignatureUtility;
-import com.alphawallet.token.entity.EthereumTypedMessage;
-import com.alphawallet.token.web.Ethereum.web3j.StructuredData;
 import com.alphawallet.token.web.Ethereum.web3j.StructuredData.EIP712Domain;
 import com.alphawallet.token.web.Ethereum.web3j.StructuredData.EIP712Message;
-import com.alphawallet.token.web.Ethereum.web3j.StructuredData.Entry;
 import com.alphawallet.token.web.Ethereum.web3j.StructuredDataEncoder;
-import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
 import java.io.InvalidObjectException;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Objects;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
-import org.bouncycastle.util.encoders.Hex;
 
 public class Eip712Validator extends Eip712Common {
   private static final Logger logger = LogManager.getLogger(Eip712Validator.class);
@@ -37,42 +32,98 @@ public class Eip712Validator extends Eip712Common {
    */
   public <T extends Eip712InternalData> T retrieveUnderlyingObject(String signedJsonInput, Class<T> type) {
     try {
-      Eip712ExternalData allData = mapper.readValue(signedJsonInput, Eip712ExternalData.class);
-      // Use StructuredDataEncoder to ensure that the data structure gets verified
-      StructuredDataEncoder encoder = new StructuredDataEncoder(allData.getJsonSigned());
-      return mapper.convertValue(encoder.jsonMessageObject.getMessage(), type);
+      return decodeUnderlyingObject(signedJsonInput, type);
     } catch (Exception e) {
       throw ExceptionUtil.throwException(logger, new IllegalArgumentException("Could not decode json", e));
     }
   }
 
-  private boolean validateDomain(EIP712Domain domainToCheck) {
+  /**
+   * Retrieve the underlying JSON object like retrieveUnderlyingObject, but without logging if the
+   * JSON is malformed
+   */
+  protected <T extends Eip712InternalData> T decodeUnderlyingObject(String signedJsonInput, Class<T> type) throws Exception {
+    Eip712ExternalData allData = mapper.readValue(signedJsonInput, Eip712ExternalData.class);
+    return mapper.convertValue(parseSignedMessage(allData.getJsonSigned()).getMessage(), type);
+  }
+
+  /**
+   * Parses a signed token once, such that the underlying object, the domain and the signature can
+   * all be validated from the same parse, e.g. with verifyDomain and retrieveUserPublicKey.
+   * Neither the domain nor the signature is validated.
+   */
+  public <T extends FullEip712InternalData> Eip712ValidationContext<T> parseToken(String signedJsonInput, Class<T> type) throws IOException {
+    Eip712ExternalData allData = mapper.readValue(signedJsonInput, Eip712ExternalData.class);
+    EIP712Message message = parseSignedMessage(allData.getJsonSigned());
+    return new Eip712ValidationContext<>(mapper, message, mapper.convertValue(message.getMessage(), type),
+        allData.getSignatureInHex());
+  }
+
+  private EIP712Message parseSignedMessage(String jsonSigned) throws IOException {
+    // Use StructuredDataEncoder to ensure that the data structure gets verified
+    return new StructuredDataEncoder(mapper.readValue(jsonSigned, EIP712Message.class)).jsonMessageObject;
+  }
+
+  /**
+   * Returns why the domain is not the expected one, or null if it is
+   */
+  private String findDomainError(EIP712Domain domainToCheck) {
     if (!domainToCheck.getName().equals(domain)) {
-      logger.error("Domain name is not valid");
-      return false;
+      return "Domain name is not valid";
     }
     if (!domainToCheck.getVersion().equals(encoder.getProtocolVersion())) {
-      logger.error("Protocol version is wrong");
-      return false;
+      return "Protocol version is wrong";
     }
     if (!Objects.equals(domainToCheck.getChainId(), encoder.getChainId())) {
-      logger.error("Chain ID is wrong");
-      return false;
+      return "Chain ID is wrong";
     }
     if (!Objects.equals(domainToCheck.getVerifyingContract(), encoder.getVerifyingContract())) {
-      logger.error("Verifying contract is wrong");
-      return false;
+      return "Verifying contract is wrong";
     }
     if (!Objects.equals(domainToCheck.getSalt(), encoder.getSalt())) {
-      logger.error("Salt is wrong");
+      return "Salt is wrong";
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether the signed JSON is intended for the expected domain.
+   * Unlike retrieveUserPublicKey, which also validates the domain, the signer is not recovered,
+   * so tokens intended for other domains are rejected cheaply. Nothing is logged, since this
+   * is meant for staged validation of untrusted input.
+   */
+  public boolean verifyDomain(String signedJsonInput) {
+    try {
+      Eip712ExternalData data = mapper.readValue(signedJsonInput, Eip712ExternalData.class);
+      return findDomainError(mapper.readValue(data.getJsonSigned(), EIP712Message.class).getDomain()) == null;
+    } catch (Exception e) {
       return false;
     }
-    return true;
+  }
+
+  /**
+   * Returns whether the parsed token is intended for the expected domain, without logging
+   */
+  public boolean verifyDomain(Eip712ValidationContext<?> context) {
+    return findDomainError(context.getDomain()) == null;
   }
 
   public <T extends FullEip712InternalData> boolean verifySignature(String signedJsonInput, String pkAddress, Class<T> type) {
+    return verifySignature(signedJsonInput, EthereumAddress.parse(pkAddress), type);
+  }
+
+  public <T extends FullEip712InternalData> boolean verifySignature(String signedJsonInput, EthereumAddress pkAddress, Class<T> type) {
+    try {
+      return verifySignature(parseToken(signedJsonInput, type), pkAddress);
+    } catch (IOException | RuntimeException e) {
+      logger.error("Could not decode signature");
+      return false;
+    }
+  }
+
+  public boolean verifySignature(Eip712ValidationContext<?> context, EthereumAddress pkAddress) {
     try {
-      AsymmetricKeyParameter candidateKey = retrieveUserPublicKey(signedJsonInput, type);
+      AsymmetricKeyParameter candidateKey = retrieveUserPublicKey(context);
       if (!SignatureUtility.verifyKeyAgainstAddress(candidateKey, pkAddress)) {
         logger.error("Could not verify signature");
         return false;
@@ -85,50 +136,49 @@ public class Eip712Validator extends Eip712Common {
   }
 
   public <T extends FullEip712InternalData> ECPublicKeyParameters retrieveUserPublicKey(String signedJsonInput, Class<T> type) throws InvalidObjectException {
+    Eip712ValidationContext<T> context;
     try {
-      byte[] signature = getSignatureFromJson(signedJsonInput);
-      String actuallySignedJson = restoreSignableJson(signedJsonInput, type);
-      EthereumTypedMessage ethereumMessage = new EthereumTypedMessage(actuallySignedJson,null, 0, cryptoFunctions);
-      byte[] messageSigned = ethereumMessage.getPrehash();
-      return SignatureUtility.recoverEthPublicKeyFromSignature(messageSigned, signature);
-    } catch (Exception e) {
-      throw ExceptionUtil.throwException(logger, new InvalidObjectException("Could not recover a valid key"));
+      context = parseToken(signedJsonInput, type);
+    } catch (IOException | RuntimeException e) {
+      throw couldNotRecoverKey(e);
     }
+    return retrieveUserPublicKey(context);
   }
 
-  byte[] getSignatureFromJson(String signedJsonInput) throws Exception {
-    Eip712ExternalData data = mapper.readValue(signedJsonInput, Eip712ExternalData.class);
-    // Remove the "0x" prefix
-    String prunedSignature = data.getSignatureInHex().substring(2);
-    return Hex.decode(prunedSignature);
-  }
-
-  <T extends FullEip712InternalData> String restoreSignableJson(String signedJsonInput, Class<T> type) throws Exception {
-    T fullInternalData = retrieveUnderlyingObject(signedJsonInput, type);
-    Eip712ExternalData data = mapper.readValue(signedJsonInput, Eip712ExternalData.class);
-    JsonNode rootNode = mapper.readTree(data.getJsonSigned());
-    EIP712Domain eip712Domain = getDomainFromJson(rootNode);
-    StructuredData.EIP712Message message = new EIP712Message(getTypes(rootNode), getPrimaryType(rootNode),
-        fullInternalData.getSignableVersion(), eip712Domain);
-    return mapper.writeValueAsString(message);
-  }
-
-  HashMap<String, List<Entry>> getTypes(JsonNode rootOfEip712) throws Exception {
-    return mapper.readValue(rootOfEip712.get("types").toString(), HashMap.class);
+  /**
+   * Recovers the public key of the signer of a parsed token, after validating the domain
+   */
+  public ECPublicKeyParameters retrieveUserPublicKey(Eip712ValidationContext<?> context) throws InvalidObjectException {
+    try {
+      String error = findDomainError(context.getDomain());
+      if (error != null) {
+        throw new InvalidObjectException(error);
+      }
+      return SignatureUtility.recoverEthPublicKeyFromSignature(context.getSignedPrehash(), context.getSignature());
+    } catch (Exception e) {
+      throw couldNotRecoverKey(e);
+    }
   }
 
-  String getPrimaryType(JsonNode rootOfEip712) {
-    return rootOfEip712.get("primaryType").asText();
+  private InvalidObjectException couldNotRecoverKey(Exception cause) throws InvalidObjectException {
+    InvalidObjectException ioe = new InvalidObjectException("Could not recover a valid key");
+    // Keep the reason, e.g. a wrong domain, since it is not logged where it is detected
+    ioe.initCause(cause);
+    return ExceptionUtil.throwException(logger, ioe);
   }
 
   /**
-   * Retrieve and validate the domain
+   * Recovers the public key of the signer like retrieveUserPublicKey, but returns null rather than
+   * logging and throwing if no valid key can be recovered or the domain is not the expected one
    */
-  EIP712Domain getDomainFromJson(JsonNode rootOfEip712) throws Exception {
-    EIP712Domain eip712Domain = mapper.readValue(rootOfEip712.get("domain").toString(), EIP712Domain.class);
-    if (!validateDomain(eip712Domain)) {
-      throw ExceptionUtil.throwException(logger, new InvalidObjectException("Could not verify message"));
+  protected ECPublicKeyParameters recoverUserPublicKey(Eip712ValidationContext<?> context) {
+    try {
+      if (findDomainError(context.getDomain()) != null) {
+        return null;
+      }
+      return SignatureUtility.tryRecoverEthPublicKeyFromSignature(context.getSignedPrehash(), context.getSignature());
+    } catch (RuntimeException e) {
+      return null;
     }
-    return eip712Domain;
   }
 }
@@ -3,9 +3,11 @@ package com.alphawallet.attestation;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.alphawallet.attestation.core.AttestationCrypto;
 import com.alphawallet.attestation.core.SignatureUtility;
 import java.io.IOException;
 import java.lang.reflect.Field;
@@ -24,6 +26,7 @@ import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
+import org.bouncycastle.math.ec.ECPoint;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -184,4 +187,14 @@ public class IdentifierAttestationTest {
     assertEquals(decodedWithId, decoded.getAsUrlWithIdentifier());
   }
 
+  @Test
+  public void commitmentPointMemoized() throws Exception {
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), BigInteger.TEN, mail);
+    ECPoint point = att.getCommitmentPoint();
+    assertSame(point, att.getCommitmentPoint());
+    assertEquals(AttestationCrypto.curve.decodePoint(att.getCommitment()), point);
+    IdentifierAttestation decoded = new IdentifierAttestation(att.getDerEncoding());
+    assertEquals(point, decoded.getCommitmentPoint());
+    assertArrayEquals(att.getCommitment(), decoded.getCommitment());
+  }
 }
@@ -0,0 +1,48 @@
+package com.alphawallet.attestation;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.Property;
+
+/**
+ * Records the messages logged while it is attached to the root logger, such that tests can
+ * check that rejecting untrusted input does not log
+ */
+public class LogRecorder extends AbstractAppender implements AutoCloseable {
+  private final List<String> messages = new ArrayList<>();
+
+  private LogRecorder() {
+    super("LogRecorder", null, null, true, Property.EMPTY_ARRAY);
+  }
+
+  public static LogRecorder attach() {
+    LogRecorder recorder = new LogRecorder();
+    recorder.start();
+    LoggerContext context = (LoggerContext) LogManager.getContext(false);
+    context.getConfiguration().getRootLogger().addAppender(recorder, Level.ALL, null);
+    context.updateLoggers();
+    return recorder;
+  }
+
+  @Override
+  public synchronized void append(LogEvent event) {
+    messages.add(event.getLoggerName() + " - " + event.getMessage().getFormattedMessage());
+  }
+
+  public synchronized List<String> getMessages() {
+    return new ArrayList<>(messages);
+  }
+
+  @Override
+  public void close() {
+    LoggerContext context = (LoggerContext) LogManager.getContext(false);
+    context.getConfiguration().getRootLogger().removeAppender(getName());
+    context.updateLoggers();
+    stop();
+  }
+}
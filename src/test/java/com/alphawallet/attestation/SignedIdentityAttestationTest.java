@@ -1,12 +1,22 @@
 package com.alphawallet.attestation;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.RejectedEncodingException;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.ValidationPipeline;
+import com.alphawallet.attestation.core.ValidationStage;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -45,11 +55,79 @@ public class SignedIdentityAttestationTest {
     assertArrayEquals(signed.getDerEncoding(), newSigned.getDerEncoding());
   }
 
+  @Test
+  public void testVerificationCached() throws Exception {
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), BigInteger.valueOf(42), "cached@mail.com" );
+    byte[] signedEncoded = new SignedIdentityAttestation(att, issuerKeys).getDerEncoding();
+    SignedIdentityAttestation decoded = new SignedIdentityAttestation(signedEncoded, issuerKeys.getPublic());
+    long hits = SignedIdentityAttestation.getVerifiedCacheHits();
+    SignedIdentityAttestation decodedAgain = new SignedIdentityAttestation(signedEncoded, issuerKeys.getPublic());
+    assertTrue(SignedIdentityAttestation.getVerifiedCacheHits() > hits);
+    assertArrayEquals(decoded.getDerEncoding(), decodedAgain.getDerEncoding());
+    // A cached verification does not carry over to another key
+    assertThrows(IllegalArgumentException.class, () ->  new SignedIdentityAttestation(signedEncoded, subjectKeys.getPublic()));
+    // Nor to a modified attestation
+    decodedAgain.getUnsignedAttestation().setSerialNumber(1337);
+    assertFalse(decodedAgain.verify());
+    assertTrue(decoded.verify());
+  }
+
+  @Test
+  public void testEncodingMemoized() throws Exception {
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), BigInteger.valueOf(43), "memo@mail.com" );
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, issuerKeys);
+    byte[] encoding = signed.getDerEncoding();
+    assertSame(encoding, signed.getDerEncoding());
+    assertSame(att.getPrehash(), att.getPrehash());
+    assertEquals(ByteBuffer.wrap(encoding), signed.getDerEncodingView());
+    assertTrue(signed.getDerEncodingView().isReadOnly());
+    SignedIdentityAttestation decoded = new SignedIdentityAttestation(encoding, issuerKeys.getPublic());
+    assertArrayEquals(encoding, decoded.getDerEncoding());
+    // Modifying the attestation invalidates the memoized encodings
+    byte[] prehash = att.getPrehash();
+    att.setSerialNumber(1337);
+    assertNotSame(prehash, att.getPrehash());
+    assertFalse(Arrays.equals(encoding, signed.getDerEncoding()));
+    assertArrayEquals(SignedIdentityAttestation.constructSignedAttestation(att, signed.getSignature()), signed.getDerEncoding());
+  }
+
   @Test
   public void invalidAlgorithmParameter() throws Exception {
     IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), BigInteger.TEN, "some@mail.com" );
     SignedIdentityAttestation signed = new SignedIdentityAttestation(att, issuerKeys);
     assertThrows(IllegalArgumentException.class, () ->  new SignedIdentityAttestation(signed.getDerEncoding(), subjectKeys.getPublic()));
   }
+
+  @Test
+  public void unverifiedAttestationDecodedOnFirstUse() throws Exception {
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), BigInteger.valueOf(44), "lazy@mail.com" );
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, issuerKeys);
+    SignedIdentityAttestation decoded = new SignedIdentityAttestation(DERView.parse(signed.getDerEncoding()), issuerKeys.getPublic(), false);
+    IdentifierAttestation unsignedAtt = decoded.getUnsignedAttestation();
+    assertSame(unsignedAtt, decoded.getUnsignedAttestation());
+    assertArrayEquals(att.getPrehash(), unsignedAtt.getPrehash());
+    assertTrue(ValidationPipeline.validate(() -> decoded).isAccepted());
+  }
+
+  @Test
+  public void malformedUnverifiedAttestationRejectedAsParse() throws Exception {
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), BigInteger.valueOf(45), "lazy@mail.com" );
+    byte[] encoding = new SignedIdentityAttestation(att, issuerKeys).getDerEncoding().clone();
+    // Turn the INTEGER of the explicitly tagged version into an OCTET STRING of the same length
+    byte[] version = new byte[] {(byte) 0xA0, 0x03, DERView.TAG_INTEGER, 0x01, IdentifierAttestation.HIDDEN_IDENTIFIER_VERSION};
+    encoding[indexOf(encoding, version) + 2] = DERView.TAG_OCTET_STRING;
+    SignedIdentityAttestation decoded = new SignedIdentityAttestation(DERView.parse(encoding), issuerKeys.getPublic(), false);
+    assertThrows(RejectedEncodingException.class, decoded::getUnsignedAttestation);
+    assertEquals(ValidationStage.PARSE, ValidationPipeline.validate(() -> decoded).getRejectedStage());
+  }
+
+  private static int indexOf(byte[] array, byte[] target) {
+    for (int i = 0; i + target.length <= array.length; i++) {
+      if (Arrays.equals(Arrays.copyOfRange(array, i, i + target.length), target)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Not found");
+  }
   
 }
@@ -3,15 +3,22 @@ package com.alphawallet.attestation;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DERView;
+import com.alphawallet.attestation.core.DecodeResult;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
+import com.alphawallet.attestation.core.ValidationReport;
+import com.alphawallet.attestation.core.ValidationStage;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Collections;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
@@ -74,6 +81,95 @@ public class UseAttestationTest {
     assertFalse(Arrays.equals(useAttestation.getDerEncoding(), otherUseAttestation.getDerEncoding()));
   }
 
+  @Test
+  public void stagedValidation() {
+    FullProofOfExponent pok = crypto.computeAttestationProof(SECRET1, NONCE);
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), SECRET2, ID);
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, issuerKeys);
+    UseAttestation useAttestation = new UseAttestation(signed, TYPE, pok, sessionKey);
+    ValidationReport<UseAttestation> report = UseAttestation.validate(useAttestation.getDerEncoding(), issuerKeys.getPublic());
+    assertTrue(report.isAccepted());
+    assertArrayEquals(useAttestation.getDerEncoding(), report.getResult().getDerEncoding());
+    // Attestation signed by another key
+    report = UseAttestation.validate(useAttestation.getDerEncoding(), sessionKey);
+    assertEquals(ValidationStage.SIGNATURE, report.getRejectedStage());
+    assertEquals(0, report.getStageNanos(ValidationStage.PROOF));
+    report = UseAttestation.validate(new byte[] {0x30, 0x01}, issuerKeys.getPublic());
+    assertEquals(ValidationStage.PARSE, report.getRejectedStage());
+  }
+
+  @Test
+  public void tryDecode() {
+    FullProofOfExponent pok = crypto.computeAttestationProof(SECRET1, NONCE);
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), SECRET2, ID);
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, issuerKeys);
+    UseAttestation useAttestation = new UseAttestation(signed, TYPE, pok, sessionKey);
+    DecodeResult<UseAttestation> result = UseAttestation.tryDecode(useAttestation.getDerEncoding(), issuerKeys.getPublic());
+    assertTrue(result.isAccepted());
+    assertArrayEquals(useAttestation.getDerEncoding(), result.getResult().getDerEncoding());
+
+    long signatureRejections = UseAttestation.getRejections(RejectionReason.INVALID_SIGNATURE);
+    result = UseAttestation.tryDecode(useAttestation.getDerEncoding(), sessionKey);
+    assertEquals(RejectionReason.INVALID_SIGNATURE, result.getReason());
+    assertEquals(signatureRejections + 1, UseAttestation.getRejections(RejectionReason.INVALID_SIGNATURE));
+    byte[] truncated = Arrays.copyOf(useAttestation.getDerEncoding(), 100);
+    assertEquals(RejectionReason.MALFORMED, UseAttestation.tryDecode(truncated, issuerKeys.getPublic()).getReason());
+    assertNull(UseAttestation.decodeUnverified(truncated, issuerKeys.getPublic()));
+  }
+
+  @Test
+  public void malformedSessionKey() throws Exception {
+    FullProofOfExponent pok = crypto.computeAttestationProof(SECRET1, NONCE);
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), SECRET2, ID);
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, issuerKeys);
+    UseAttestation useAttestation = new UseAttestation(signed, TYPE, pok, sessionKey);
+    DERView asn1 = DERView.parse(useAttestation.getDerEncoding());
+    byte[] spki = asn1.getElement(3).getEncoded();
+
+    // A session key which is not a SubjectPublicKeyInfo is rejected while decoding
+    byte[] notSpki = DERView.encodeSequence(asn1.getElement(0), asn1.getElement(2),
+        DERView.encodeBitString(new byte[65]));
+    assertThrows(RuntimeException.class, () -> new UseAttestation(notSpki, issuerKeys.getPublic()));
+    assertEquals(RejectionReason.MALFORMED, UseAttestation.tryDecode(notSpki, issuerKeys.getPublic()).getReason());
+
+    // A well-formed key which is not on the curve is only detected when the key is restored
+    byte[] notOnCurve = spki.clone();
+    notOnCurve[notOnCurve.length - 1] ^= 0x01;
+    UseAttestation decoded = new UseAttestation(
+        DERView.encodeSequence(asn1.getElement(0), asn1.getElement(2), notOnCurve), issuerKeys.getPublic());
+    assertTrue(decoded.verify());
+    assertThrows(RuntimeException.class, decoded::getSessionPublicKey);
+  }
+
+  @Test
+  public void pointNotOnCurveRejectedQuietly() {
+    FullProofOfExponent pok = crypto.computeAttestationProof(SECRET1, NONCE);
+    IdentifierAttestation att = HelperTest.makeUnsignedStandardAtt(subjectKeys.getPublic(), issuerKeys.getPublic(), SECRET2, ID);
+    SignedIdentityAttestation signed = new SignedIdentityAttestation(att, issuerKeys);
+    UseAttestation useAttestation = new UseAttestation(signed, TYPE, pok, sessionKey);
+    byte[] encoding = useAttestation.getDerEncoding().clone();
+    byte[] riddle = pok.getRiddle().getEncoded(false);
+    int riddleEnd = indexOf(encoding, riddle) + riddle.length;
+    encoding[riddleEnd - 1] ^= 0x01;
+
+    try (LogRecorder log = LogRecorder.attach()) {
+      assertEquals(RejectionReason.MALFORMED, UseAttestation.tryDecode(encoding, issuerKeys.getPublic()).getReason());
+      // The proof is only decoded when it is verified, but is still rejected as malformed
+      assertEquals(ValidationStage.PARSE, UseAttestation.validate(encoding, issuerKeys.getPublic()).getRejectedStage());
+      assertEquals(Collections.emptyList(), log.getMessages());
+    }
+    assertThrows(IllegalArgumentException.class, () -> new UseAttestation(encoding, issuerKeys.getPublic()));
+  }
+
+  private static int indexOf(byte[] array, byte[] target) {
+    for (int i = 0; i + target.length <= array.length; i++) {
+      if (Arrays.equals(Arrays.copyOfRange(array, i, i + target.length), target)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Not found");
+  }
+
   @Test
   public void badPok() {
     FullProofOfExponent pok = crypto.computeAttestationProof(SECRET1, NONCE);
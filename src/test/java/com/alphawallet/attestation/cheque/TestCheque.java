@@ -3,9 +3,15 @@ package com.alphawallet.attestation.cheque;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
+import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.URLUtility;
 import java.io.IOException;
@@ -13,11 +19,20 @@ import java.lang.reflect.Field;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
+import org.bouncycastle.math.ec.ECPoint;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -53,6 +68,44 @@ public class TestCheque {
     assertArrayEquals(cheque.getDerEncoding(), otherConstructorCheque.getDerEncoding());
   }
 
+  @Test
+  public void testTryDecode() {
+    Cheque cheque = new Cheque("test@test.ts", AttestationType.EMAIL, 1000, 3600000, senderKeys, BigInteger.TEN);
+    DecodeResult<Cheque> result = Cheque.tryDecode(cheque.getDerEncoding());
+    assertTrue(result.isAccepted());
+    assertArrayEquals(cheque.getDerEncoding(), result.getResult().getDerEncoding());
+
+    Cheque expired = new Cheque("test@test.ts", AttestationType.EMAIL, 1000, -1000, senderKeys, BigInteger.TEN);
+    long timeRejections = Cheque.getRejections(RejectionReason.INVALID_TIME);
+    assertEquals(RejectionReason.INVALID_TIME, Cheque.tryDecode(expired.getDerEncoding()).getReason());
+    assertEquals(timeRejections + 1, Cheque.getRejections(RejectionReason.INVALID_TIME));
+
+    byte[] wrongSignature = cheque.getDerEncoding().clone();
+    // Change the r value of the signature, which is the last element
+    wrongSignature[wrongSignature.length - 40] ^= 0x01;
+    assertEquals(RejectionReason.INVALID_SIGNATURE, Cheque.tryDecode(wrongSignature).getReason());
+    assertEquals(RejectionReason.MALFORMED, Cheque.tryDecode(new byte[] {0x30, 0x03, 0x02, 0x01}).getReason());
+  }
+
+  @Test
+  public void testDecodeUnverifiedSubSecondValidity() throws IOException {
+    Cheque cheque = new Cheque("test@test.ts", AttestationType.EMAIL, 1000, 3600000, senderKeys, BigInteger.TEN);
+    // A validity with a fraction of a second, which Cheque cannot encode
+    String notValidBefore = new ASN1GeneralizedTime(new Date(cheque.getNotValidBefore())).getTimeString();
+    ASN1Sequence validity = new DERSequence(new ASN1Encodable[] {
+        new ASN1GeneralizedTime(notValidBefore.replace("Z", ".5Z")),
+        new ASN1GeneralizedTime(new Date(cheque.getNotValidAfter()))});
+    ASN1Sequence unsigned = new DERSequence(new ASN1Encodable[] {new ASN1Integer(cheque.getAmount()),
+        validity, new DEROctetString(cheque.getCommitment())});
+    byte[] encoding = new DERSequence(new ASN1Encodable[] {unsigned,
+        SubjectPublicKeyInfoFactory.createSubjectPublicKeyInfo(senderKeys.getPublic()).getPublicKeyData(),
+        new DERBitString(cheque.getSignature())}).getEncoded();
+    assertThrows(IllegalArgumentException.class, () -> new ChequeDecoder().decode(encoding));
+    // Decoding without verifying rejects the cheque by returning null instead
+    assertNull(new ChequeDecoder().decodeUnverified(encoding));
+    assertEquals(RejectionReason.MALFORMED, Cheque.tryDecode(encoding).getReason());
+  }
+
   @Test
   public void testChequeURLConsistentEncoding() throws IOException {
     BigInteger senderSecret = new BigInteger("112");
@@ -103,4 +156,11 @@ public class TestCheque {
     assertFalse(cheque.checkValidity());
   }
 
+  @Test
+  public void commitmentPointMemoized() {
+    Cheque cheque = new Cheque("test@test.ts", AttestationType.EMAIL, 1000, 3600000, senderKeys, BigInteger.TEN);
+    ECPoint point = cheque.getCommitmentPoint();
+    assertSame(point, cheque.getCommitmentPoint());
+    assertEquals(AttestationCrypto.curve.decodePoint(cheque.getCommitment()), point);
+  }
 }
@@ -0,0 +1,274 @@
+package com.alphawallet.attestation.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests of the limb based BN256 engine against BigInteger and BouncyCastle
+ */
+public class BN256Test {
+  private static final BigInteger P = AttestationCrypto.fieldSize;
+  private static final BigInteger N = AttestationCrypto.curveOrder;
+  private static final int ITERATIONS = 200;
+  private SecureRandom rand;
+
+  @BeforeEach
+  public void setupRandom() throws Exception {
+    rand = SecureRandom.getInstance("SHA1PRNG", "SUN");
+    rand.setSeed("seed".getBytes());
+  }
+
+  private List<BigInteger> fieldElements() {
+    List<BigInteger> res = new ArrayList<>(Arrays.asList(BigInteger.ZERO, BigInteger.ONE,
+        BigInteger.valueOf(2), P.subtract(BigInteger.ONE), P.subtract(BigInteger.valueOf(2)),
+        P.shiftRight(1), BigInteger.ONE.shiftLeft(64), BigInteger.ONE.shiftLeft(253)));
+    for (int i = 0; i < ITERATIONS; i++) {
+      res.add(new BigInteger(256 + 128, rand).mod(P));
+    }
+    return res;
+  }
+
+  private static long[] toField(BigInteger value) {
+    long[] res = BN256Field.create();
+    BN256Field.fromBigInteger(res, value);
+    return res;
+  }
+
+  @Test
+  public void fieldArithmetic() {
+    List<BigInteger> elements = fieldElements();
+    long[] res = BN256Field.create();
+    for (int i = 0; i < elements.size(); i++) {
+      BigInteger a = elements.get(i);
+      BigInteger b = elements.get((i * 7 + 3) % elements.size());
+      long[] x = toField(a);
+      long[] y = toField(b);
+      assertEquals(a, BN256Field.toBigInteger(x));
+      BN256Field.mul(res, x, y);
+      assertEquals(a.multiply(b).mod(P), BN256Field.toBigInteger(res));
+      BN256Field.square(res, x);
+      assertEquals(a.multiply(a).mod(P), BN256Field.toBigInteger(res));
+      BN256Field.add(res, x, y);
+      assertEquals(a.add(b).mod(P), BN256Field.toBigInteger(res));
+      BN256Field.sub(res, x, y);
+      assertEquals(a.subtract(b).mod(P), BN256Field.toBigInteger(res));
+      BN256Field.negate(res, x);
+      assertEquals(a.negate().mod(P), BN256Field.toBigInteger(res));
+      BN256Field.inverse(res, x);
+      assertEquals(a.signum() == 0 ? BigInteger.ZERO : a.modInverse(P), BN256Field.toBigInteger(res));
+      assertEquals(a.testBit(0) ? 1 : 0, BN256Field.parity(x));
+      // Check that the result may alias the inputs
+      BN256Field.mul(x, x, x);
+      assertEquals(a.multiply(a).mod(P), BN256Field.toBigInteger(x));
+    }
+  }
+
+  @Test
+  public void squareRoot() {
+    long[] res = BN256Field.create();
+    for (BigInteger a : fieldElements()) {
+      BigInteger square = a.multiply(a).mod(P);
+      assertTrue(BN256Field.sqrt(res, toField(square)));
+      BigInteger root = BN256Field.toBigInteger(res);
+      assertTrue(root.equals(a) || root.equals(P.subtract(a).mod(P)));
+    }
+    // -1 is not a square since p = 3 mod 4
+    assertFalse(BN256Field.sqrt(res, toField(P.subtract(BigInteger.ONE))));
+  }
+
+  @Test
+  public void fieldEncoding() {
+    byte[] encoded = new byte[BN256Field.BYTES];
+    long[] decoded = BN256Field.create();
+    for (BigInteger a : fieldElements()) {
+      BN256Field.toBytes(toField(a), encoded, 0);
+      assertEquals(a, new BigInteger(1, encoded));
+      assertTrue(BN256Field.fromBytes(decoded, encoded, 0));
+      assertEquals(a, BN256Field.toBigInteger(decoded));
+    }
+    byte[] modulus = new byte[BN256Field.BYTES];
+    byte[] modulusBytes = P.toByteArray();
+    System.arraycopy(modulusBytes, 0, modulus, BN256Field.BYTES - modulusBytes.length, modulusBytes.length);
+    assertFalse(BN256Field.fromBytes(decoded, modulus, 0));
+    assertThrows(IllegalArgumentException.class, () -> toField(P));
+    assertThrows(IllegalArgumentException.class, () -> toField(BigInteger.ONE.negate()));
+  }
+
+  private List<BigInteger> scalars() {
+    List<BigInteger> res = new ArrayList<>(Arrays.asList(BigInteger.ZERO, BigInteger.ONE,
+        BigInteger.valueOf(15), BigInteger.valueOf(16), N.subtract(BigInteger.ONE), N,
+        N.add(BigInteger.ONE), BigInteger.ONE.shiftLeft(255)));
+    for (int i = 0; i < ITERATIONS / 10; i++) {
+      res.add(new BigInteger(256 + 128, rand).mod(N));
+    }
+    return res;
+  }
+
+  @Test
+  public void fixedBaseMultiplication() {
+    BN256FixedBase table = new BN256FixedBase(AttestationCrypto.H);
+    for (BigInteger k : scalars()) {
+      ECPoint expected = AttestationCrypto.H.multiply(k).normalize();
+      assertEquals(expected, table.multiply(k).toECPoint());
+      assertArrayEquals(expected.getEncoded(false), table.multiply(k).getEncoded());
+    }
+    assertTrue(table.multiply(N.negate()).isInfinity());
+  }
+
+  @Test
+  public void variableBaseMultiplication() {
+    ECPoint base = AttestationCrypto.G.multiply(new BigInteger(256, rand)).normalize();
+    for (BigInteger k : scalars()) {
+      BN256Point point = BN256Point.fromECPoint(base);
+      point.multiply(k);
+      assertEquals(base.multiply(k).normalize(), point.toECPoint());
+    }
+    BN256Point infinity = new BN256Point();
+    infinity.multiply(BigInteger.TEN);
+    assertTrue(infinity.isInfinity());
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.fromECPoint(base).multiply(BigInteger.ONE.negate()));
+  }
+
+  @Test
+  public void addition() {
+    ECPoint p1 = AttestationCrypto.G.multiply(new BigInteger(256, rand)).normalize();
+    ECPoint p2 = AttestationCrypto.H.multiply(new BigInteger(256, rand)).normalize();
+    // Jacobian points with Z different from 1
+    BN256Point jacobian1 = BN256Point.fromECPoint(p1);
+    jacobian1.twice();
+    BN256Point jacobian2 = BN256Point.fromECPoint(p2);
+    jacobian2.twice();
+    ECPoint double1 = p1.twice().normalize();
+    ECPoint double2 = p2.twice().normalize();
+
+    BN256Point sum = new BN256Point(jacobian1);
+    sum.add(jacobian2);
+    assertEquals(double1.add(double2).normalize(), sum.toECPoint());
+    sum = new BN256Point(jacobian1);
+    sum.add(BN256Point.fromECPoint(p2));
+    assertEquals(double1.add(p2).normalize(), sum.toECPoint());
+    // Adding a point to itself
+    sum = new BN256Point(jacobian1);
+    sum.add(sum);
+    assertEquals(double1.twice().normalize(), sum.toECPoint());
+    sum = new BN256Point(jacobian1);
+    sum.add(new BN256Point(jacobian1));
+    assertEquals(double1.twice().normalize(), sum.toECPoint());
+    sum = BN256Point.fromECPoint(p1);
+    sum.add(BN256Point.fromECPoint(p1));
+    assertEquals(double1, sum.toECPoint());
+    // Adding the negation
+    BN256Point negation = new BN256Point(jacobian1);
+    negation.negate();
+    sum = new BN256Point(jacobian1);
+    sum.add(negation);
+    assertTrue(sum.isInfinity());
+    assertEquals(double1.negate(), negation.toECPoint());
+    sum = BN256Point.fromECPoint(p1.negate());
+    sum.add(BN256Point.fromECPoint(p1));
+    assertTrue(sum.isInfinity());
+    // Infinity is the neutral element
+    sum = new BN256Point();
+    sum.add(jacobian2);
+    assertEquals(double2, sum.toECPoint());
+    sum.add(new BN256Point());
+    assertEquals(double2, sum.toECPoint());
+    assertTrue(sum.isEqual(jacobian2));
+    assertFalse(sum.isEqual(jacobian1));
+    assertFalse(sum.isEqual(new BN256Point()));
+    assertTrue(new BN256Point().isEqual(new BN256Point()));
+  }
+
+  @Test
+  public void normalizeAll() {
+    BN256Point[] points = new BN256Point[5];
+    ECPoint[] expected = new ECPoint[points.length];
+    for (int i = 0; i < points.length; i++) {
+      ECPoint point = AttestationCrypto.G.multiply(new BigInteger(256, rand)).normalize();
+      points[i] = BN256Point.fromECPoint(point);
+      expected[i] = point;
+      if (i % 2 == 0) {
+        points[i].twice();
+        expected[i] = point.twice().normalize();
+      }
+    }
+    points[3] = new BN256Point();
+    expected[3] = AttestationCrypto.curve.getInfinity();
+    BN256Point.normalizeAll(points);
+    for (int i = 0; i < points.length; i++) {
+      assertTrue(points[i].isNormalized());
+      assertEquals(expected[i], points[i].toECPoint());
+    }
+  }
+
+  @Test
+  public void decoding() {
+    for (BigInteger k : scalars()) {
+      ECPoint point = AttestationCrypto.G.multiply(k).normalize();
+      byte[] uncompressed = point.getEncoded(false);
+      assertArrayEquals(uncompressed, BN256Point.decode(uncompressed).getEncoded());
+      assertArrayEquals(uncompressed, BN256Point.decode(point.getEncoded(true)).getEncoded());
+      assertEquals(AttestationCrypto.curve.decodePoint(uncompressed), AttestationCrypto.decodePoint(uncompressed));
+      if (!point.isInfinity()) {
+        // Hybrid encoding
+        byte[] hybrid = uncompressed.clone();
+        hybrid[0] = (byte) (point.getAffineYCoord().testBitZero() ? 0x07 : 0x06);
+        assertArrayEquals(uncompressed, BN256Point.decode(hybrid).getEncoded());
+        hybrid[0] ^= 1;
+        assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(hybrid));
+      }
+    }
+  }
+
+  @Test
+  public void invalidEncodings() {
+    byte[] valid = AttestationCrypto.H.getEncoded(false);
+    byte[] notOnCurve = valid.clone();
+    notOnCurve[notOnCurve.length - 1] ^= 1;
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(notOnCurve));
+    assertThrows(IllegalArgumentException.class, () -> AttestationCrypto.curve.decodePoint(notOnCurve));
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(Arrays.copyOf(valid, valid.length - 1)));
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(new byte[0]));
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(new byte[] {0x00, 0x00}));
+    byte[] wrongType = valid.clone();
+    wrongType[0] = 0x05;
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(wrongType));
+    // An x-coordinate which is not less than the field size
+    byte[] tooLarge = new byte[BN256Point.COMPRESSED_LENGTH];
+    Arrays.fill(tooLarge, (byte) 0xff);
+    tooLarge[0] = 0x02;
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(tooLarge));
+    // x = 4 gives x^3 + 3 = 67 which is not a square modulo the field size
+    byte[] noRoot = new byte[BN256Point.COMPRESSED_LENGTH];
+    noRoot[0] = 0x02;
+    noRoot[noRoot.length - 1] = 4;
+    assertEquals(BigInteger.valueOf(67).modPow(P.subtract(BigInteger.ONE).shiftRight(1), P), P.subtract(BigInteger.ONE));
+    assertThrows(IllegalArgumentException.class, () -> BN256Point.decode(noRoot));
+  }
+
+  @Test
+  public void commitmentMatchesReference() {
+    for (int i = 0; i < 10; i++) {
+      BigInteger secret = new BigInteger(256 + 128, rand);
+      String identity = "user" + i + "@test.ts";
+      ECPoint reference = AttestationCrypto.G.multiply(AttestationCrypto.mapToCurveMultiplier(AttestationType.EMAIL, identity))
+          .add(AttestationCrypto.H.multiply(secret));
+      assertArrayEquals(reference.getEncoded(false), AttestationCrypto.makeCommitment(identity, AttestationType.EMAIL, secret));
+      ECPoint hiding = AttestationCrypto.H.multiply(secret);
+      assertArrayEquals(reference.getEncoded(false), AttestationCrypto.makeCommitment(identity, AttestationType.EMAIL, hiding));
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package com.alphawallet.attestation.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class BoundedCacheTest {
+
+  @Test
+  public void sunshine() {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+    assertNull(cache.get("a"));
+    cache.put("a", 1);
+    assertEquals(1, cache.get("a"));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(1, cache.size());
+    assertEquals(10, cache.getMaxSize());
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNull(cache.get("a"));
+  }
+
+  @Test
+  public void computeOnlyOnMiss() {
+    BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+    AtomicInteger computations = new AtomicInteger();
+    for (int i = 0; i < 5; i++) {
+      assertEquals(3, cache.computeIfAbsent("abc", key -> {
+        computations.incrementAndGet();
+        return key.length();
+      }));
+    }
+    assertEquals(1, computations.get());
+    assertEquals(4, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void evictOldest() {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(3);
+    for (int i = 0; i < 5; i++) {
+      cache.put(i, i);
+    }
+    assertEquals(3, cache.size());
+    assertNull(cache.get(0));
+    assertNull(cache.get(1));
+    assertEquals(4, cache.get(4));
+    // Overwriting does not count as an insertion
+    cache.put(2, 42);
+    assertEquals(3, cache.size());
+    assertEquals(42, cache.putIfAbsent(2, 0));
+  }
+
+  @Test
+  public void expiry() {
+    MutableClock clock = new MutableClock(1000);
+    BoundedCache<String, Integer> cache = new BoundedCache<>(10, clock);
+    cache.put("a", 1, 2000);
+    cache.put("b", 2);
+    assertEquals(1, cache.get("a"));
+    clock.millis = 2000;
+    assertNull(cache.get("a"));
+    assertEquals(2, cache.get("b"));
+    // An expired entry gets replaced
+    cache.put("c", 3, 2500);
+    clock.millis = 3000;
+    assertNull(cache.putIfAbsent("c", 4, 4000));
+    assertEquals(4, cache.get("c"));
+    assertEquals(4, cache.putIfAbsent("c", 5));
+  }
+
+  @Test
+  public void expiredKeysDoNotAccumulate() {
+    MutableClock clock = new MutableClock(0);
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(5, clock);
+    for (int i = 0; i < 1000; i++) {
+      cache.put(i, i, i + 1);
+      clock.millis = i + 1;
+      assertNull(cache.get(i));
+    }
+    assertEquals(0, cache.size());
+    cache.put(-1, -1);
+    assertEquals(-1, cache.get(-1));
+  }
+
+  @Test
+  public void reinsertedEntrySurvivesStaleQueueEntry() {
+    MutableClock clock = new MutableClock(0);
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(3, clock);
+    cache.put(0, 0, 10);
+    cache.put(1, 1);
+    cache.put(2, 2);
+    clock.millis = 10;
+    assertNull(cache.get(0));
+    assertNull(cache.putIfAbsent(0, 42));
+    // Evicting for this insertion polls the queue entry of the expired value first, which must not
+    // evict the value inserted since
+    cache.put(3, 3);
+    assertEquals(3, cache.size());
+    assertEquals(42, cache.get(0));
+    assertNull(cache.get(1));
+    assertEquals(2, cache.get(2));
+  }
+
+  @Test
+  public void concurrentInsertion() throws Exception {
+    BoundedCache<Integer, Integer> cache = new BoundedCache<>(100);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          int key = i % 500;
+          assertEquals(key, cache.computeIfAbsent(key, k -> k));
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(cache.size() <= 100);
+    assertEquals(40000, cache.getHits() + cache.getMisses());
+  }
+
+  @Test
+  public void invalidSize() {
+    assertThrows(IllegalArgumentException.class, () -> new BoundedCache<>(0));
+  }
+
+  private static class MutableClock extends Clock {
+    private long millis;
+
+    private MutableClock(long millis) {
+      this.millis = millis;
+    }
+
+    @Override
+    public long millis() {
+      return millis;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+}
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.alphawallet.attestation.FullProofOfExponent;
@@ -13,8 +15,11 @@ import com.alphawallet.attestation.UsageProofOfExponent;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.bouncycastle.asn1.DERBitString;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
@@ -133,6 +138,20 @@ public class CryptoTest {
     assertFalse(Arrays.equals(point, point2));
   }
 
+  @Test
+  public void testFixedBaseMultiplication() {
+    for (int i = 0; i < 20; i++) {
+      BigInteger exponent = crypto.makeSecret();
+      assertEquals(AttestationCrypto.G.multiply(exponent).normalize(), AttestationCrypto.multiplyG(exponent).normalize());
+      assertEquals(AttestationCrypto.H.multiply(exponent).normalize(), AttestationCrypto.multiplyH(exponent).normalize());
+    }
+    // Exponents larger than the curve order and negative exponents
+    BigInteger large = AttestationCrypto.curveOrder.add(SECRET1);
+    assertEquals(AttestationCrypto.G.multiply(SECRET1).normalize(), AttestationCrypto.multiplyG(large).normalize());
+    assertEquals(AttestationCrypto.H.multiply(SECRET1.negate()).normalize(), AttestationCrypto.multiplyH(SECRET1.negate()).normalize());
+    assertTrue(AttestationCrypto.multiplyG(AttestationCrypto.curveOrder).isInfinity());
+  }
+
   @Test
   public void testMakeRiddle() {
     ECPoint hiding = AttestationCrypto.H.multiply(SECRET1);
@@ -263,6 +282,73 @@ public class CryptoTest {
     assertFalse(Arrays.equals(pok1.getDerEncoding(), pok3.getDerEncoding()));
   }
 
+  @Test
+  public void testFullProofBatch() {
+    List<FullProofOfExponent> poks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      poks.add(crypto.computeAttestationProof(SECRET1.add(BigInteger.valueOf(i)), new byte[] {(byte) i}));
+    }
+    boolean[] res = AttestationCrypto.verifyFullProofBatch(poks);
+    for (boolean current : res) {
+      assertTrue(current);
+    }
+    assertEquals(0, AttestationCrypto.verifyFullProofBatch(new ArrayList<>()).length);
+
+    // Negative tests, the batch must single out exactly the invalid proofs
+    FullProofOfExponent pok = poks.get(3);
+    poks.set(3, new FullProofOfExponent(pok.getRiddle(), pok.getPoint(), pok.getChallenge().add(BigInteger.ONE), pok.getNonce()));
+    pok = poks.get(7);
+    poks.set(7, new FullProofOfExponent(pok.getRiddle().add(AttestationCrypto.G), pok.getPoint(), pok.getChallenge(), pok.getNonce()));
+    res = AttestationCrypto.verifyFullProofBatch(poks);
+    for (int i = 0; i < res.length; i++) {
+      assertEquals(i != 3 && i != 7, res[i]);
+      assertEquals(AttestationCrypto.verifyFullProof(poks.get(i)), res[i]);
+    }
+  }
+
+  @Test
+  public void testEqualityProofBatch() {
+    List<byte[]> coms1 = new ArrayList<>();
+    List<byte[]> coms2 = new ArrayList<>();
+    List<UsageProofOfExponent> poks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      BigInteger secret2 = SECRET2.add(BigInteger.valueOf(i));
+      coms1.add(AttestationCrypto.makeCommitment(ID + i, TYPE, SECRET1));
+      coms2.add(AttestationCrypto.makeCommitment(ID + i, TYPE, secret2));
+      poks.add(crypto.computeEqualityProof(coms1.get(i), coms2.get(i), SECRET1, secret2));
+    }
+    boolean[] res = AttestationCrypto.verifyEqualityProofBatch(coms1, coms2, poks);
+    for (boolean current : res) {
+      assertTrue(current);
+    }
+
+    // Negative tests, the batch must single out exactly the invalid proofs
+    coms2.set(0, AttestationCrypto.makeCommitment("other@test.ts", TYPE, SECRET2));
+    UsageProofOfExponent pok = poks.get(9);
+    poks.set(9, new UsageProofOfExponent(pok.getPoint().add(AttestationCrypto.H), pok.getChallenge(), pok.getNonce()));
+    res = AttestationCrypto.verifyEqualityProofBatch(coms1, coms2, poks);
+    for (int i = 0; i < res.length; i++) {
+      assertEquals(i != 0 && i != 9, res[i]);
+      assertEquals(AttestationCrypto.verifyEqualityProof(coms1.get(i), coms2.get(i), poks.get(i)), res[i]);
+    }
+  }
+
+  @Test
+  public void testSpeculativeProver() {
+    AttestationCrypto speculativeCrypto = new AttestationCrypto(rand, 4);
+    for (int i = 1; i < 20; i++) {
+      byte[] nonce = new byte[] {(byte) i};
+      FullProofOfExponent pok = speculativeCrypto.computeAttestationProof(SECRET1.add(BigInteger.valueOf(i)), nonce);
+      assertTrue(AttestationCrypto.verifyFullProof(pok));
+      assertTrue(pok.getPoint().isNormalized());
+      byte[] com1 = AttestationCrypto.makeCommitment(ID, TYPE, SECRET1);
+      byte[] com2 = AttestationCrypto.makeCommitment(ID, TYPE, SECRET2.multiply(BigInteger.valueOf(i)));
+      ProofOfExponent equalityPok = speculativeCrypto.computeEqualityProof(com1, com2, SECRET1, SECRET2.multiply(BigInteger.valueOf(i)), nonce);
+      assertTrue(AttestationCrypto.verifyEqualityProof(com1, com2, equalityPok));
+    }
+    assertThrows(IllegalArgumentException.class, () -> new AttestationCrypto(rand, 0));
+  }
+
   @Test
   public void testRejectionSamplingInEqualityProof() {
     for (int i = 1; i < 40; i++) {
@@ -275,6 +361,26 @@ public class CryptoTest {
     }
   }
 
+  @Test
+  public void testStreamedChallenge() throws Exception {
+    Method computeChallenge = AttestationCrypto.class.getDeclaredMethod("computeChallenge", ECPoint.class, List.class, byte[].class);
+    computeChallenge.setAccessible(true);
+    byte[] nonce = new byte[] {0x01, 0x02, 0x03};
+    // Include a point which is not normalized, a point with a short x coordinate and the point at infinity
+    ECPoint unnormalized = AttestationCrypto.H.twice();
+    ECPoint infinity = AttestationCrypto.curve.getInfinity();
+    ECPoint shortX = AttestationCrypto.curve.createPoint(BigInteger.ONE, BigInteger.valueOf(2));
+    for (ECPoint t : Arrays.asList(unnormalized, infinity, shortX, AttestationCrypto.G)) {
+      List<ECPoint> points = Arrays.asList(AttestationCrypto.H, unnormalized, infinity, shortX);
+      List<ECPoint> allPoints = new ArrayList<>(points);
+      allPoints.add(t);
+      byte[] pointBytes = AttestationCrypto.makeArray(allPoints);
+      byte[] expectedInput = Arrays.copyOf(pointBytes, pointBytes.length + nonce.length);
+      System.arraycopy(nonce, 0, expectedInput, pointBytes.length, nonce.length);
+      assertEquals(AttestationCrypto.mapToInteger(expectedInput), computeChallenge.invoke(null, t, points, nonce));
+    }
+  }
+
   @Test
   public void testMakeSecret() {
     BigInteger sec = crypto.makeSecret();
@@ -310,6 +416,46 @@ public class CryptoTest {
     assertNotEquals(value, value2);
   }
 
+  @Test
+  public void testHashingOverloads() {
+    byte[] input = new byte[100];
+    rand.nextBytes(input);
+    // Known answer for the empty string
+    assertArrayEquals(Hex.decode("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470"),
+        AttestationCrypto.hashWithKeccak(new byte[0]));
+    assertArrayEquals(Hex.decode("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"),
+        AttestationCrypto.hashWithSHA256(new byte[0]));
+
+    byte[] keccak = AttestationCrypto.hashWithKeccak(Arrays.copyOfRange(input, 10, 90));
+    byte[] sha256 = AttestationCrypto.hashWithSHA256(Arrays.copyOfRange(input, 10, 90));
+    byte[] out = new byte[AttestationCrypto.BYTES_IN_DIGEST + 5];
+    AttestationCrypto.hashWithKeccak(input, 10, 80, out, 5);
+    assertArrayEquals(keccak, Arrays.copyOfRange(out, 5, out.length));
+    AttestationCrypto.hashWithSHA256(input, 10, 80, out, 5);
+    assertArrayEquals(sha256, Arrays.copyOfRange(out, 5, out.length));
+
+    ByteBuffer heap = ByteBuffer.wrap(input, 10, 80);
+    AttestationCrypto.hashWithKeccak(heap, out, 0);
+    assertArrayEquals(keccak, Arrays.copyOfRange(out, 0, AttestationCrypto.BYTES_IN_DIGEST));
+    assertFalse(heap.hasRemaining());
+    ByteBuffer direct = ByteBuffer.allocateDirect(80);
+    direct.put(input, 10, 80).flip();
+    AttestationCrypto.hashWithSHA256(direct, out, 0);
+    assertArrayEquals(sha256, Arrays.copyOfRange(out, 0, AttestationCrypto.BYTES_IN_DIGEST));
+    assertFalse(direct.hasRemaining());
+  }
+
+  @Test
+  public void testMapToCurvePointCached() {
+    String identifier = "cached-" + ID;
+    BigInteger multiplier = AttestationCrypto.mapToCurveMultiplier(TYPE, identifier);
+    long hits = AttestationCrypto.getIdentifierCacheHits();
+    ECPoint point = AttestationCrypto.mapToCurvePoint(TYPE, identifier);
+    assertTrue(AttestationCrypto.getIdentifierCacheHits() > hits);
+    assertEquals(AttestationCrypto.G.multiply(multiplier).normalize(), point);
+    assertEquals(multiplier, AttestationCrypto.mapToCurveMultiplier(TYPE, identifier));
+  }
+
   @Test
   public void verifyLargeOutputOfMapToMultiplier() {
     int counter = 0;
@@ -437,4 +583,26 @@ public class CryptoTest {
     // Multiply with co-factor to ensure correct subgroup
     return resPoint.multiply(AttestationCrypto.cofactor).normalize();
   }
+
+  @Test
+  public void testDecodePointCached() {
+    byte[] encoded = AttestationCrypto.makeCommitment(ID, TYPE, SECRET2);
+    long hits = AttestationCrypto.getDecodedPointCacheHits();
+    ECPoint decoded = AttestationCrypto.decodePoint(encoded);
+    assertEquals(AttestationCrypto.curve.decodePoint(encoded), decoded);
+    assertSame(decoded, AttestationCrypto.decodePoint(encoded.clone()));
+    assertTrue(AttestationCrypto.getDecodedPointCacheHits() > hits);
+    // Modifying the array after decoding must not affect the cache
+    byte[] modified = encoded.clone();
+    ECPoint point = AttestationCrypto.decodePoint(modified);
+    byte[] other = AttestationCrypto.makeCommitment(ID, TYPE, SECRET1);
+    System.arraycopy(other, 0, modified, 0, other.length);
+    assertEquals(point, AttestationCrypto.decodePoint(encoded));
+    assertEquals(AttestationCrypto.curve.decodePoint(other), AttestationCrypto.decodePoint(modified));
+    // Invalid points are rejected every time
+    byte[] invalid = encoded.clone();
+    invalid[invalid.length - 1] ^= 1;
+    assertThrows(IllegalArgumentException.class, () -> AttestationCrypto.decodePoint(invalid));
+    assertThrows(IllegalArgumentException.class, () -> AttestationCrypto.decodePoint(invalid));
+  }
 }
@@ -0,0 +1,111 @@
+package com.alphawallet.attestation.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DERViewTest {
+  private SecureRandom rand;
+
+  @BeforeEach
+  public void setupCrypto() throws Exception {
+    rand = SecureRandom.getInstance("SHA1PRNG", "SUN");
+    rand.setSeed("seed".getBytes());
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] res = new byte[length];
+    rand.nextBytes(res);
+    return res;
+  }
+
+  @Test
+  public void sunshine() throws Exception {
+    BigInteger integer = new BigInteger(256, rand).negate();
+    byte[] octets = randomBytes(65);
+    byte[] bits = randomBytes(300);
+    ASN1EncodableVector vec = new ASN1EncodableVector();
+    vec.add(new ASN1Integer(integer));
+    vec.add(new DEROctetString(octets));
+    vec.add(new DERTaggedObject(true, 0, new DEROctetString(octets)));
+    vec.add(new DERBitString(bits));
+    byte[] encoding = new DERSequence(vec).getEncoded();
+
+    DERView view = DERView.parse(encoding);
+    assertEquals(DERView.TAG_SEQUENCE, view.getTag());
+    assertEquals(4, view.size());
+    assertSame(encoding, view.getEncoded());
+    assertEquals(integer, view.getElement(0).getInteger());
+    assertArrayEquals(octets, view.getElement(1).getOctets());
+    assertEquals(0xA0, view.getElement(2).getTag());
+    assertArrayEquals(octets, view.getElement(2).getElement(0).getOctets());
+    assertArrayEquals(bits, view.getElement(3).getBitStringBytes());
+    for (int i = 0; i < vec.size(); i++) {
+      assertArrayEquals(vec.get(i).toASN1Primitive().getEncoded(), view.getElement(i).getEncoded());
+    }
+    ByteBuffer buffer = view.getElement(1).getEncodedBuffer();
+    assertEquals(ByteBuffer.wrap(new DEROctetString(octets).getEncoded()), buffer);
+    assertThrows(IOException.class, () -> view.getElement(4));
+    assertThrows(IOException.class, () -> view.getElement(0).getElements());
+    assertThrows(IOException.class, () -> view.getElement(0).getOctets());
+  }
+
+  @Test
+  public void encodeSequence() throws Exception {
+    // Cover both short and long length forms
+    for (int length : new int[] {0, 10, 120, 127, 128, 255, 256, 70000}) {
+      ASN1EncodableVector vec = new ASN1EncodableVector();
+      vec.add(new DEROctetString(randomBytes(length)));
+      vec.add(new ASN1Integer(length));
+      vec.add(new DEROctetString(randomBytes(length / 2)));
+      vec.add(new DERBitString(randomBytes(length)));
+      DERView view = DERView.parse(new DERSequence(vec).getEncoded());
+
+      ASN1EncodableVector prefix = new ASN1EncodableVector();
+      prefix.add(vec.get(0));
+      prefix.add(vec.get(1));
+      prefix.add(vec.get(2));
+      assertArrayEquals(new DERSequence(prefix).getEncoded(),
+          DERView.encodeSequence(view.getElement(0), view.getElement(2)));
+      byte[] bits = randomBytes(length);
+      prefix.add(new DERBitString(bits));
+      assertArrayEquals(new DERSequence(prefix).getEncoded(),
+          DERView.encodeSequence(view.getElement(0), view.getElement(2), DERView.encodeBitString(bits)));
+      assertArrayEquals(new DERBitString(bits).getEncoded(), DERView.encodeBitString(bits));
+    }
+  }
+
+  @Test
+  public void malformedEncoding() throws Exception {
+    byte[] encoding = new DERSequence(new DEROctetString(randomBytes(200))).getEncoded();
+    for (int i = 0; i < encoding.length; i++) {
+      byte[] truncated = Arrays.copyOf(encoding, i);
+      assertThrows(IOException.class, () -> DERView.parse(truncated).getElements());
+    }
+    // Indefinite length
+    assertThrows(IOException.class, () -> DERView.parse(new byte[] {0x30, (byte) 0x80, 0x00, 0x00}));
+    // Length of more than four bytes
+    assertThrows(IOException.class, () -> DERView.parse(new byte[] {0x04, (byte) 0x85, 0x00, 0x00, 0x00, 0x00, 0x01, 0x00}));
+    // Bit string with unused bits
+    assertThrows(IOException.class, () -> DERView.parse(new byte[] {0x03, 0x02, 0x01, 0x00}).getBitStringBytes());
+    // Elements which are not consecutive
+    DERView first = DERView.parse(encoding);
+    DERView second = DERView.parse(encoding.clone());
+    assertThrows(IllegalArgumentException.class, () -> DERView.encodeSequence(first, second));
+  }
+}
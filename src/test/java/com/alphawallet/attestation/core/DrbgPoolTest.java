@@ -0,0 +1,110 @@
+package com.alphawallet.attestation.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.alphawallet.attestation.FullProofOfExponent;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+import org.junit.jupiter.api.Test;
+
+public class DrbgPoolTest {
+
+  @Test
+  public void sunshine() {
+    DrbgPool pool = new DrbgPool(new SecureRandom(), 3, DrbgPool.DEFAULT_RESEED_INTERVAL);
+    assertEquals(4, pool.getStripes());
+    byte[] first = new byte[32];
+    byte[] second = new byte[32];
+    pool.nextBytes(first);
+    pool.nextBytes(second);
+    assertFalse(Arrays.equals(first, second));
+    assertFalse(Arrays.equals(first, new byte[32]));
+    assertEquals(2, pool.getRequests());
+    assertEquals(0, pool.getContendedRequests());
+    assertEquals(8, pool.generateSeed(8).length);
+    assertSame(DrbgPool.getInstance(), DrbgPool.getInstance());
+  }
+
+  @Test
+  public void largeRequest() {
+    DrbgPool pool = new DrbgPool(new SecureRandom(), 1, DrbgPool.DEFAULT_RESEED_INTERVAL);
+    byte[] large = new byte[200000];
+    pool.nextBytes(large);
+    // The chunks must not repeat
+    assertFalse(Arrays.equals(Arrays.copyOfRange(large, 0, 32), Arrays.copyOfRange(large, 65536, 65536 + 32)));
+    assertFalse(Arrays.equals(Arrays.copyOfRange(large, large.length - 32, large.length), new byte[32]));
+  }
+
+  @Test
+  public void reseeding() {
+    DrbgPool pool = new DrbgPool(new SecureRandom(), 1, 10);
+    for (int i = 0; i < 35; i++) {
+      pool.nextInt();
+    }
+    assertEquals(3, pool.getReseeds());
+    pool.setSeed(42L);
+    pool.reseed();
+    assertEquals(5, pool.getReseeds());
+    assertNotEquals(pool.nextLong(), pool.nextLong());
+  }
+
+  @Test
+  public void usableAsSecureRandom() {
+    DrbgPool pool = new DrbgPool();
+    AttestationCrypto crypto = new AttestationCrypto(pool);
+    BigInteger secret = crypto.makeSecret();
+    FullProofOfExponent pok = crypto.computeAttestationProof(secret);
+    assertTrue(AttestationCrypto.verifyFullProof(pok));
+    AsymmetricCipherKeyPair keys = SignatureUtility.constructECKeys(pool);
+    assertTrue(keys.getPublic() instanceof ECPublicKeyParameters);
+    assertTrue(pool.getRequests() > 0);
+  }
+
+  @Test
+  public void concurrentUse() throws Exception {
+    DrbgPool pool = new DrbgPool(new SecureRandom(), 2, 100);
+    Set<BigInteger> values = ConcurrentHashMap.newKeySet();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 1000; j++) {
+            values.add(new BigInteger(128, pool));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(8000, values.size());
+    assertEquals(8000, pool.getRequests());
+    assertTrue(pool.getContendedRequests() <= pool.getRequests());
+    // Each stripe reseeds every 100 requests
+    assertTrue(pool.getReseeds() >= 8000 / 100 - 2);
+  }
+
+  @Test
+  public void invalidParameters() {
+    assertThrows(IllegalArgumentException.class, () -> new DrbgPool(new SecureRandom(), 0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new DrbgPool(new SecureRandom(), 1, 0));
+  }
+}
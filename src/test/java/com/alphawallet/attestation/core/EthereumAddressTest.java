@@ -0,0 +1,78 @@
+package com.alphawallet.attestation.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EthereumAddressTest {
+  private static final String ADDRESS = "0x7E5F4552091A69125D5DFCB7B8C2659029395BDF";
+  private SecureRandom rand;
+
+  @BeforeEach
+  public void setupCrypto() throws Exception {
+    rand = SecureRandom.getInstance("SHA1PRNG", "SUN");
+    rand.setSeed("seed".getBytes());
+  }
+
+  @Test
+  public void sunshine() {
+    EthereumAddress address = EthereumAddress.fromString(ADDRESS);
+    assertEquals(ADDRESS, address.toString());
+    assertArrayEquals(Hex.decode(ADDRESS.substring(2)), address.getBytes());
+    assertEquals(address, EthereumAddress.fromString(ADDRESS.toLowerCase()));
+    assertEquals(address, EthereumAddress.fromString("0X" + ADDRESS.substring(2)));
+    assertEquals(address.hashCode(), EthereumAddress.fromString(ADDRESS.toLowerCase()).hashCode());
+    assertEquals(address, EthereumAddress.fromBytes(address.getBytes(), 0));
+  }
+
+  @Test
+  public void randomAddresses() {
+    for (int i = 0; i < 100; i++) {
+      byte[] bytes = new byte[EthereumAddress.LENGTH + 3];
+      rand.nextBytes(bytes);
+      EthereumAddress address = EthereumAddress.fromBytes(bytes, 3);
+      String expected = "0x" + Hex.toHexString(bytes, 3, EthereumAddress.LENGTH).toUpperCase();
+      assertEquals(expected, address.toString());
+      assertEquals(address, EthereumAddress.parse(expected));
+      // Differing in any single byte makes the addresses different
+      byte[] other = address.getBytes();
+      other[i % EthereumAddress.LENGTH] ^= 0x01;
+      assertNotEquals(address, EthereumAddress.fromBytes(other, 0));
+    }
+  }
+
+  @Test
+  public void ascii() {
+    EthereumAddress address = EthereumAddress.fromString(ADDRESS.toLowerCase());
+    byte[] encoded = new byte[EthereumAddress.STRING_LENGTH + 1];
+    address.writeAscii(encoded, 1);
+    assertEquals(ADDRESS.toUpperCase(), new String(encoded, 1, EthereumAddress.STRING_LENGTH, StandardCharsets.US_ASCII));
+    assertTrue(address.matchesAscii(encoded, 1));
+    assertFalse(address.matchesAscii(encoded, 0));
+    assertFalse(address.matchesAscii(encoded, 2));
+    assertFalse(address.matchesAscii(ADDRESS.toLowerCase().getBytes(StandardCharsets.US_ASCII), 0));
+  }
+
+  @Test
+  public void invalidAddresses() {
+    assertNull(EthereumAddress.parse(ADDRESS.substring(1)));
+    assertNull(EthereumAddress.parse(ADDRESS + "0"));
+    assertNull(EthereumAddress.parse("0y" + ADDRESS.substring(2)));
+    assertNull(EthereumAddress.parse(ADDRESS.substring(0, 41) + "G"));
+    // Only ASCII digits are hex digits
+    assertNull(EthereumAddress.parse(ADDRESS.substring(0, 41) + "\u0661"));
+    assertThrows(IllegalArgumentException.class, () -> EthereumAddress.fromString("0x"));
+    assertThrows(IllegalArgumentException.class, () -> EthereumAddress.fromBytes(new byte[EthereumAddress.LENGTH], 1));
+    assertFalse(EthereumAddress.fromString(ADDRESS).equals(ADDRESS));
+  }
+}
@@ -0,0 +1,118 @@
+package com.alphawallet.attestation.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.alphawallet.attestation.FullProofOfExponent;
+import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
+import com.alphawallet.attestation.ProofOfExponent;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SchnorrPairPoolTest {
+  private static final String ID = "test@test.ts";
+  private static final AttestationType TYPE = AttestationType.EMAIL;
+  private SecureRandom rand;
+
+  @BeforeEach
+  public void setupRandom() throws Exception {
+    rand = SecureRandom.getInstance("SHA1PRNG", "SUN");
+    rand.setSeed("seed".getBytes());
+  }
+
+  @Test
+  public void sunshine() {
+    try (SchnorrPairPool pool = new SchnorrPairPool(rand, 10)) {
+      pool.fill();
+      assertEquals(10, pool.size());
+      AttestationCrypto crypto = new AttestationCrypto(rand, pool);
+      BigInteger secret1 = crypto.makeSecret();
+      BigInteger secret2 = crypto.makeSecret();
+      FullProofOfExponent pok = crypto.computeAttestationProof(secret1, new byte[] {0x01});
+      assertTrue(AttestationCrypto.verifyFullProof(pok));
+      byte[] com1 = AttestationCrypto.makeCommitment(ID, TYPE, secret1);
+      byte[] com2 = AttestationCrypto.makeCommitment(ID, TYPE, secret2);
+      ProofOfExponent equalityProof = crypto.computeEqualityProof(com1, com2, secret1, secret2);
+      assertTrue(AttestationCrypto.verifyEqualityProof(com1, com2, equalityProof));
+      assertTrue(pool.getHits() >= 2);
+      assertTrue(pool.getGenerated() >= 10);
+    }
+  }
+
+  @Test
+  public void pairsAreValid() {
+    try (SchnorrPairPool pool = new SchnorrPairPool(rand, 5)) {
+      pool.fill();
+      for (int i = 0; i < 5; i++) {
+        SchnorrPairPool.Pair pair = pool.poll();
+        assertNotNull(pair);
+        assertEquals(AttestationCrypto.H.multiply(pair.hiding).normalize(), pair.t);
+      }
+    }
+  }
+
+  @Test
+  public void singleUse() throws Exception {
+    try (SchnorrPairPool pool = new SchnorrPairPool(rand, 50, 25, 2)) {
+      pool.fill();
+      Set<BigInteger> hidings = ConcurrentHashMap.newKeySet();
+      List<BigInteger> taken = new ArrayList<>();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+        List<Future<List<BigInteger>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+          futures.add(executor.submit(() -> {
+            List<BigInteger> res = new ArrayList<>();
+            for (int j = 0; j < 25; j++) {
+              SchnorrPairPool.Pair pair = pool.poll();
+              if (pair != null) {
+                res.add(pair.hiding);
+              }
+            }
+            return res;
+          }));
+        }
+        for (Future<List<BigInteger>> future : futures) {
+          taken.addAll(future.get());
+        }
+      } finally {
+        executor.shutdown();
+      }
+      hidings.addAll(taken);
+      assertEquals(taken.size(), hidings.size());
+      assertEquals(taken.size(), pool.getHits());
+    }
+  }
+
+  @Test
+  public void fallbackWhenEmpty() {
+    SchnorrPairPool pool = new SchnorrPairPool(rand, 1);
+    pool.close();
+    assertEquals(0, pool.size());
+    assertNull(pool.poll());
+    AttestationCrypto crypto = new AttestationCrypto(rand, 4, pool);
+    FullProofOfExponent pok = crypto.computeAttestationProof(crypto.makeSecret());
+    assertTrue(AttestationCrypto.verifyFullProof(pok));
+    assertTrue(pool.getMisses() >= 5);
+    assertEquals(0, pool.getHits());
+  }
+
+  @Test
+  public void invalidParameters() {
+    assertThrows(IllegalArgumentException.class, () -> new SchnorrPairPool(rand, 0));
+    assertThrows(IllegalArgumentException.class, () -> new SchnorrPairPool(rand, 10, 11, 1));
+    assertThrows(IllegalArgumentException.class, () -> new SchnorrPairPool(rand, 10, 5, 0));
+  }
+}
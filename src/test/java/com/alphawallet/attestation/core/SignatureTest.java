@@ -1,7 +1,10 @@
 package com.alphawallet.attestation.core;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigInteger;
@@ -11,16 +14,25 @@ import java.security.Security;
 import java.security.Signature;
 import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import org.bouncycastle.asn1.sec.SECNamedCurves;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.KeccakDigest;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
 import org.bouncycastle.crypto.signers.ECDSASigner;
 import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.encoders.Hex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -127,6 +139,97 @@ public class SignatureTest {
     }
   }
 
+  @Test
+  public void fixedBaseSignerAgainstGenericMultiplication() {
+    for (int i = 1; i < 20; i++) {
+      BigInteger k = new BigInteger(256, rand).mod(SignatureUtility.ECDSA_DOMAIN.getN());
+      ECPoint expected = SignatureUtility.ECDSA_DOMAIN.getG().multiply(k).normalize();
+      ECPoint actual = Secp256k1Signer.multiplyG(k);
+      assertArrayEquals(expected.getEncoded(false), actual.getEncoded(false));
+    }
+  }
+
+  @Test
+  public void signBatch() {
+    List<byte[]> messages = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      byte[] message = new byte[100 + i];
+      message[0] = (byte) i;
+      messages.add(message);
+    }
+    List<byte[]> signatures = SignatureUtility.signBatch(messages, userKeys.getPrivate());
+    assertEquals(messages.size(), signatures.size());
+    for (int i = 0; i < messages.size(); i++) {
+      assertArrayEquals(SignatureUtility.signWithEthereum(messages.get(i), userKeys.getPrivate()), signatures.get(i));
+      assertTrue(SignatureUtility.verifyEthereumSignature(messages.get(i), signatures.get(i), userKeys.getPublic()));
+    }
+  }
+
+  @Test
+  public void signBatchWithChainId() {
+    List<byte[]> messages = Arrays.asList(new byte[] {0x01}, new byte[] {0x02}, new byte[] {0x03});
+    List<byte[]> signatures = SignatureUtility.signBatch(messages, 42, userKeys.getPrivate());
+    for (int i = 0; i < messages.size(); i++) {
+      assertArrayEquals(SignatureUtility.signWithEthereum(messages.get(i), 42, userKeys.getPrivate()), signatures.get(i));
+    }
+    assertTrue(SignatureUtility.signBatch(new ArrayList<>(), userKeys.getPrivate()).isEmpty());
+  }
+
+  @Test
+  public void verifyBatch() {
+    AsymmetricCipherKeyPair otherKeys = SignatureUtility.constructECKeysWithSmallestY(rand);
+    String address = SignatureUtility.addressFromKey(userKeys.getPublic());
+    List<byte[]> messages = new ArrayList<>();
+    List<String> addresses = new ArrayList<>();
+    for (int i = 0; i < 600; i++) {
+      byte[] message = new byte[64];
+      message[0] = (byte) i;
+      message[1] = (byte) (i >> 8);
+      messages.add(message);
+      addresses.add(i % 2 == 0 ? address : SignatureUtility.addressFromKey(otherKeys.getPublic()));
+    }
+    List<byte[]> signatures = new ArrayList<>(SignatureUtility.signBatch(messages, userKeys.getPrivate()));
+    // Tamper with a few of the signatures and messages, except for 3 which is validly signed by the other key
+    signatures.set(3, SignatureUtility.signWithEthereum(messages.get(3), otherKeys.getPrivate()));
+    messages.set(10, new byte[] {0x42});
+    signatures.set(20, Arrays.copyOf(signatures.get(20), 64));
+    signatures.set(30, SignatureUtility.signWithEthereum(messages.get(30), 2, userKeys.getPrivate()));
+    byte[] notNormalized = signatures.get(40).clone();
+    byte[] s = SignatureUtility.ECDSA_DOMAIN.getN().subtract(new BigInteger(1, Arrays.copyOfRange(notNormalized, 32, 64))).toByteArray();
+    System.arraycopy(s, s.length - 32, notNormalized, 32, 32);
+    signatures.set(40, notNormalized);
+    byte[] notOnCurve = signatures.get(50).clone();
+    Arrays.fill(notOnCurve, 0, 32, (byte) 0xFF);
+    signatures.set(50, notOnCurve);
+    addresses.set(60, null);
+    addresses.set(62, "0x" + address.substring(3));
+
+    BitSet valid = SignatureUtility.verifyEthereumSignatures(messages, signatures, addresses, 0);
+    for (int i = 0; i < messages.size(); i++) {
+      assertEquals(SignatureUtility.verifyEthereumSignature(messages.get(i), signatures.get(i), addresses.get(i), 0), valid.get(i));
+    }
+    assertEquals(294, valid.cardinality());
+  }
+
+  @Test
+  public void verifyBatchWithChainId() {
+    List<byte[]> messages = Arrays.asList(new byte[] {0x01}, new byte[] {0x02});
+    List<byte[]> signatures = SignatureUtility.signBatch(messages, 42, userKeys.getPrivate());
+    String address = SignatureUtility.addressFromKey(userKeys.getPublic()).toLowerCase();
+    List<String> addresses = Arrays.asList(address, address);
+    assertEquals(2, SignatureUtility.verifyEthereumSignatures(messages, signatures, addresses, 42).cardinality());
+    assertTrue(SignatureUtility.verifyEthereumSignatures(messages, signatures, addresses, 0).isEmpty());
+    assertTrue(SignatureUtility.verifyEthereumSignatures(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), 0).isEmpty());
+  }
+
+  @Test
+  public void verifyBatchDifferentSizes() {
+    List<byte[]> messages = Arrays.asList(new byte[] {0x01}, new byte[] {0x02});
+    List<byte[]> signatures = SignatureUtility.signBatch(messages, userKeys.getPrivate());
+    assertThrows(IllegalArgumentException.class, () -> SignatureUtility.verifyEthereumSignatures(
+        messages, signatures, Arrays.asList(SignatureUtility.addressFromKey(userKeys.getPublic())), 0));
+  }
+
   @Test
   public void addressRecovery() {
     String address = SignatureUtility.addressFromKey(userKeys.getPublic());
@@ -147,6 +250,76 @@ public class SignatureTest {
     assertEquals(address, SignatureUtility.addressFromKey(key));
   }
 
+  @Test
+  public void addressAgainstReference() throws Exception {
+    // The address of the key with private exponent 1 is well-known
+    ECPublicKeyParameters generatorKey = new ECPublicKeyParameters(SignatureUtility.ECDSA_DOMAIN.getG(), SignatureUtility.ECDSA_DOMAIN);
+    assertEquals("0x7E5F4552091A69125D5DFCB7B8C2659029395BDF", SignatureUtility.addressFromKey(generatorKey));
+    for (int i = 0; i < 10; i++) {
+      AsymmetricCipherKeyPair keys = SignatureUtility.constructECKeys(rand);
+      byte[] spkiKey = SubjectPublicKeyInfoFactory.createSubjectPublicKeyInfo(keys.getPublic()).getPublicKeyData().getOctets();
+      byte[] hash = AttestationCrypto.hashWithKeccak(Arrays.copyOfRange(spkiKey, 1, spkiKey.length));
+      String expected = "0x" + Hex.toHexString(Arrays.copyOfRange(hash, 12, 32)).toUpperCase();
+      assertEquals(expected, SignatureUtility.addressFromKey(keys.getPublic()));
+      long hits = SignatureUtility.getAddressCacheHits();
+      assertEquals(expected, SignatureUtility.addressFromKey(keys.getPublic()));
+      assertTrue(SignatureUtility.getAddressCacheHits() > hits);
+    }
+  }
+
+  @Test
+  public void restoredKeysInterned() throws Exception {
+    byte[] spki = SubjectPublicKeyInfoFactory.createSubjectPublicKeyInfo(userKeys.getPublic()).getEncoded();
+    AsymmetricKeyParameter restored = SignatureUtility.restoreKeyFromSPKI(spki);
+    assertEquals(((ECPublicKeyParameters) userKeys.getPublic()).getQ().normalize(), ((ECPublicKeyParameters) restored).getQ());
+    assertEquals(SignatureUtility.addressFromKey(userKeys.getPublic()), SignatureUtility.addressFromKey(restored));
+    // Modifying the input afterwards must not affect the cache
+    byte[] copy = spki.clone();
+    spki[spki.length - 1] ^= 0x01;
+    long hits = SignatureUtility.getKeyCacheHits();
+    assertSame(restored, SignatureUtility.restoreKeyFromSPKI(copy));
+    assertSame(restored, SignatureUtility.restoreKeyFromSPKI(SubjectPublicKeyInfo.getInstance(copy)));
+    assertEquals(hits + 2, SignatureUtility.getKeyCacheHits());
+    assertTrue(SignatureUtility.verifyEthereumSignature(new byte[] {0x42},
+        SignatureUtility.signWithEthereum(new byte[] {0x42}, userKeys.getPrivate()), restored));
+  }
+
+  @Test
+  public void restoredOtherCurveKeysInterned() throws Exception {
+    byte[] spki = SubjectPublicKeyInfoFactory.createSubjectPublicKeyInfo(largeKeys.getPublic()).getEncoded();
+    AsymmetricKeyParameter restored = SignatureUtility.restoreKeyFromSPKI(spki);
+    assertSame(restored, SignatureUtility.restoreKeyFromSPKI(spki));
+    byte[] signature = SignatureUtility.signDeterministicSHA256(new byte[] {0x42}, largeKeys.getPrivate());
+    assertTrue(SignatureUtility.verifySHA256(new byte[] {0x42}, signature, restored));
+  }
+
+  @Test
+  public void recoverPublicKeyBothParities() {
+    for (int i = 0; i < 20; i++) {
+      // Do not restrict to keys with small y-coordinate to get both parities of R
+      AsymmetricCipherKeyPair keys = SignatureUtility.constructECKeys(rand);
+      byte[] message = new byte[] {0x42, (byte) i};
+      byte[] signature = SignatureUtility.signWithEthereum(message, keys.getPrivate());
+      ECPublicKeyParameters recovered = SignatureUtility.recoverEthPublicKeyFromSignature(message, signature);
+      assertEquals(((ECPublicKeyParameters) keys.getPublic()).getQ().normalize(), recovered.getQ());
+      assertTrue(SignatureUtility.verifyEthereumSignature(message, signature, keys.getPublic()));
+    }
+  }
+
+  @Test
+  public void recoverInvalidSignature() {
+    byte[] message = new byte[] {0x42};
+    byte[] signature = SignatureUtility.signWithEthereum(message, userKeys.getPrivate());
+    // r = 0 is not a valid signature
+    byte[] zeroR = Arrays.copyOf(signature, signature.length);
+    Arrays.fill(zeroR, 0, 32, (byte) 0);
+    assertFalse(SignatureUtility.verifyEthereumSignature(message, zeroR, userKeys.getPublic()));
+    // r larger than the curve order is not a valid signature
+    byte[] largeR = Arrays.copyOf(signature, signature.length);
+    Arrays.fill(largeR, 0, 32, (byte) 0xFF);
+    assertFalse(SignatureUtility.verifyEthereumSignature(message, largeR, userKeys.getPublic()));
+  }
+
   @Test
   public void personalSigning() {
     String message = "hello world";
@@ -0,0 +1,93 @@
+package com.alphawallet.attestation.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ValidationPipelineTest {
+
+  @Test
+  public void sunshine() {
+    List<ValidationStage> checked = new ArrayList<>();
+    StagedValidateable object = stage -> checked.add(stage);
+    ValidationReport<StagedValidateable> report = ValidationPipeline.validate(() -> object);
+    assertTrue(report.isAccepted());
+    assertSame(object, report.getResult());
+    assertNull(report.getRejectedStage());
+    // Every stage but PARSE is checked, in order of cost
+    List<ValidationStage> expected = new ArrayList<>(Arrays.asList(ValidationStage.values()));
+    expected.remove(ValidationStage.PARSE);
+    assertEquals(expected, checked);
+    long total = 0;
+    for (ValidationStage stage : ValidationStage.values()) {
+      total += report.getStageNanos(stage);
+    }
+    assertEquals(total, report.getTotalNanos());
+  }
+
+  @Test
+  public void rejectionStopsPipeline() {
+    List<ValidationStage> checked = new ArrayList<>();
+    ValidationReport<StagedValidateable> report = ValidationPipeline.validate(() -> stage -> {
+      checked.add(stage);
+      return stage != ValidationStage.DOMAIN;
+    });
+    assertEquals(ValidationStage.DOMAIN, report.getRejectedStage());
+    assertNull(report.getResult());
+    assertEquals(Arrays.asList(ValidationStage.STRUCTURE, ValidationStage.TIME, ValidationStage.DOMAIN), checked);
+    assertEquals(0, report.getStageNanos(ValidationStage.NONCE));
+    assertEquals(0, report.getStageNanos(ValidationStage.SIGNATURE));
+    assertEquals(0, report.getStageNanos(ValidationStage.PROOF));
+  }
+
+  @Test
+  public void exceptionsReject() {
+    ValidationReport<StagedValidateable> report = ValidationPipeline.validate(() -> {
+      throw new IOException("Malformed");
+    });
+    assertEquals(ValidationStage.PARSE, report.getRejectedStage());
+    report = ValidationPipeline.validate(() -> stage -> {
+      if (stage == ValidationStage.SIGNATURE) {
+        throw new IllegalArgumentException("Could not recover key");
+      }
+      return true;
+    });
+    assertEquals(ValidationStage.SIGNATURE, report.getRejectedStage());
+  }
+
+  @Test
+  public void tryValidate() {
+    RejectionCounter rejections = new RejectionCounter();
+    StagedValidateable object = stage -> true;
+    DecodeResult<StagedValidateable> result = ValidationPipeline.tryValidate(() -> object, rejections);
+    assertTrue(result.isAccepted());
+    assertSame(object, result.getResult());
+    assertNull(result.getReason());
+
+    result = ValidationPipeline.tryValidate(() -> stage -> stage != ValidationStage.NONCE, rejections);
+    assertFalse(result.isAccepted());
+    assertNull(result.getResult());
+    assertEquals(RejectionReason.INVALID_NONCE, result.getReason());
+    // Rejections are shared, so rejecting does not allocate
+    assertSame(result, ValidationPipeline.tryValidate(() -> stage -> stage != ValidationStage.NONCE, rejections));
+    result = ValidationPipeline.tryValidate(() -> null, rejections);
+    assertEquals(RejectionReason.MALFORMED, result.getReason());
+    result = ValidationPipeline.tryValidate(() -> {
+      throw new IOException("Malformed");
+    }, rejections);
+    assertEquals(RejectionReason.MALFORMED, result.getReason());
+
+    assertEquals(2, rejections.get(RejectionReason.INVALID_NONCE));
+    assertEquals(2, rejections.get(RejectionReason.MALFORMED));
+    assertEquals(0, rejections.get(RejectionReason.INVALID_SIGNATURE));
+    assertEquals(4, rejections.getTotal());
+  }
+}
@@ -1,12 +1,15 @@
 package com.alphawallet.attestation.eip712;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.SignatureUtility;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -85,4 +88,31 @@ public class NonceTest {
     assertFalse(Nonce.validateNonce(nonce, address, "wrongReceiver", MIN_TIMESTAMP, MAX_TIMESTAMP));
   }
 
+  @Test
+  public void nonceView() {
+    byte[] otherData = new byte[] {0x42, 0x43};
+    byte[] nonce = Nonce.makeNonce(address, RECEIVER, TIMESTAMP, otherData);
+    byte[] copy = nonce.clone();
+    NonceView view = new NonceView(nonce);
+    assertTrue(view.isComplete());
+    assertTrue(view.hasSenderAddress(EthereumAddress.fromString(address)));
+    assertTrue(view.hasReceiverIdentifier(RECEIVER));
+    assertFalse(view.hasReceiverIdentifier("wrongReceiver"));
+    assertEquals(TIMESTAMP.getTime(), view.getTime());
+    assertTrue(view.hasOtherData(otherData));
+    assertTrue(view.hasOtherData(new byte[] {0x42}));
+    assertFalse(view.hasOtherData(new byte[] {0x42, 0x43, 0x44}));
+    // The view never modifies the nonce
+    assertArrayEquals(copy, nonce);
+  }
+
+  @Test
+  public void truncatedNonce() {
+    byte[] nonce = Nonce.makeNonce(address, RECEIVER, TIMESTAMP);
+    for (int length : new int[] {0, 10, 42, 74, 80}) {
+      byte[] truncated = Arrays.copyOf(nonce, length);
+      assertFalse(new NonceView(truncated).isComplete());
+      assertFalse(Nonce.validateNonce(truncated, address, RECEIVER, MIN_TIMESTAMP, MAX_TIMESTAMP));
+    }
+  }
 }
@@ -3,6 +3,7 @@ package com.alphawallet.attestation.eip712;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -10,8 +11,12 @@ import com.alphawallet.attestation.AttestationRequest;
 import com.alphawallet.attestation.FullProofOfExponent;
 import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.URLUtility;
+import com.alphawallet.attestation.core.ValidationReport;
+import com.alphawallet.attestation.core.ValidationStage;
 import com.alphawallet.attestation.eip712.Eip712AttestationRequestEncoder.AttestationRequestInternalData;
 import java.math.BigInteger;
 import java.security.SecureRandom;
@@ -137,6 +142,60 @@ public class TestAttestationRequestEip712 {
     Eip712Test.validateEncoding(encoder, json);
   }
 
+  @Test
+  public void stagedValidation() {
+    byte[] nonce = Nonce.makeNonce(userAddress, DOMAIN, new Timestamp());
+    FullProofOfExponent pok = crypto.computeAttestationProof(ATTESTATION_SECRET, nonce);
+    AttestationRequest attRequest = new AttestationRequest(TYPE, pok);
+    Eip712AttestationRequest request = new Eip712AttestationRequest(DOMAIN, MAIL, attRequest, userSigningKey);
+    ValidationReport<Eip712AttestationRequest> report = Eip712AttestationRequest.validate(DOMAIN,
+        Timestamp.DEFAULT_TIME_LIMIT_MS, request.getJsonEncoding());
+    assertTrue(report.isAccepted());
+    assertEquals(request.getIdentifier(), report.getResult().getIdentifier());
+    assertArrayEquals(request.getPok().getDerEncoding(), report.getResult().getPok().getDerEncoding());
+    assertTrue(report.getResult().checkValidity());
+  }
+
+  @Test
+  public void stagedValidationBadDomain() {
+    byte[] nonce = Nonce.makeNonce(userAddress, DOMAIN, new Timestamp());
+    FullProofOfExponent pok = crypto.computeAttestationProof(ATTESTATION_SECRET, nonce);
+    AttestationRequest attRequest = new AttestationRequest(TYPE, pok);
+    Eip712AttestationRequest request = new Eip712AttestationRequest(DOMAIN, MAIL, attRequest, userSigningKey);
+    ValidationReport<Eip712AttestationRequest> report = Eip712AttestationRequest.validate(
+        "http://www.someOtherDomain.com", Timestamp.DEFAULT_TIME_LIMIT_MS, request.getJsonEncoding());
+    assertEquals(ValidationStage.DOMAIN, report.getRejectedStage());
+    assertEquals(0, report.getStageNanos(ValidationStage.SIGNATURE));
+  }
+
+  @Test
+  public void stagedValidationWrongSender() {
+    AsymmetricCipherKeyPair otherKeys = SignatureUtility.constructECKeysWithSmallestY(rand);
+    byte[] nonce = Nonce.makeNonce(SignatureUtility.addressFromKey(otherKeys.getPublic()), DOMAIN, new Timestamp());
+    FullProofOfExponent pok = crypto.computeAttestationProof(ATTESTATION_SECRET, nonce);
+    AttestationRequest attRequest = new AttestationRequest(TYPE, pok);
+    Eip712AttestationRequest request = new Eip712AttestationRequest(DOMAIN, MAIL, attRequest, userSigningKey);
+    ValidationReport<Eip712AttestationRequest> report = Eip712AttestationRequest.validate(DOMAIN,
+        Timestamp.DEFAULT_TIME_LIMIT_MS, request.getJsonEncoding());
+    // The sender of the nonce can only be checked once the signer is recovered
+    assertEquals(ValidationStage.SIGNATURE, report.getRejectedStage());
+  }
+
+  @Test
+  public void tryDecodeWrongSender() {
+    AsymmetricCipherKeyPair otherKeys = SignatureUtility.constructECKeysWithSmallestY(rand);
+    byte[] nonce = Nonce.makeNonce(SignatureUtility.addressFromKey(otherKeys.getPublic()), DOMAIN, new Timestamp());
+    FullProofOfExponent pok = crypto.computeAttestationProof(ATTESTATION_SECRET, nonce);
+    AttestationRequest attRequest = new AttestationRequest(TYPE, pok);
+    Eip712AttestationRequest request = new Eip712AttestationRequest(DOMAIN, MAIL, attRequest, userSigningKey);
+    long signatureRejections = Eip712AttestationRequest.getRejections(RejectionReason.INVALID_SIGNATURE);
+    DecodeResult<Eip712AttestationRequest> result = Eip712AttestationRequest.tryDecode(DOMAIN,
+        Timestamp.DEFAULT_TIME_LIMIT_MS, request.getJsonEncoding());
+    assertEquals(RejectionReason.INVALID_SIGNATURE, result.getReason());
+    assertNull(result.getResult());
+    assertEquals(signatureRejections + 1, Eip712AttestationRequest.getRejections(RejectionReason.INVALID_SIGNATURE));
+  }
+
   @Test
   public void badDomain() {
     byte[] nonce = Nonce.makeNonce(userAddress, DOMAIN, new Timestamp());
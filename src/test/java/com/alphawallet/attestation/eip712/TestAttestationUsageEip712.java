@@ -3,6 +3,7 @@ package com.alphawallet.attestation.eip712;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -13,8 +14,12 @@ import com.alphawallet.attestation.IdentifierAttestation.AttestationType;
 import com.alphawallet.attestation.SignedIdentityAttestation;
 import com.alphawallet.attestation.UseAttestation;
 import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.URLUtility;
+import com.alphawallet.attestation.core.ValidationReport;
+import com.alphawallet.attestation.core.ValidationStage;
 import com.alphawallet.attestation.eip712.Eip712AttestationUsageEncoder.AttestationUsageData;
 import java.math.BigInteger;
 import java.security.SecureRandom;
@@ -162,6 +167,96 @@ public class TestAttestationUsageEip712 {
     assertFalse(request.checkTokenValidity());
   }
 
+  @Test
+  public void stagedValidation() {
+    UseAttestation usage = new UseAttestation(signedAttestation, TYPE, pok, sessionKey);
+    Eip712AttestationUsage request = new Eip712AttestationUsage(DOMAIN, MAIL, usage, userSigningKey);
+    ValidationReport<Eip712AttestationUsage> report = Eip712AttestationUsage.validate(DOMAIN,
+        attestorKeys.getPublic(), Timestamp.DEFAULT_TOKEN_TIME_LIMIT, Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID,
+        request.getJsonEncoding());
+    assertTrue(report.isAccepted());
+    assertNull(report.getRejectedStage());
+    assertEquals(request.getIdentifier(), report.getResult().getIdentifier());
+    assertEquals(((ECKeyParameters) request.getUserPublicKey()).getParameters(),
+        ((ECKeyParameters) report.getResult().getUserPublicKey()).getParameters());
+    assertTrue(report.getStageNanos(ValidationStage.PROOF) > 0);
+  }
+
+  @Test
+  public void stagedValidationExpiredToken() {
+    UseAttestation usage = new UseAttestation(signedAttestation, TYPE, pok, sessionKey);
+    Eip712AttestationUsage request = new Eip712AttestationUsage(DOMAIN, -1, CHAIN_ID,
+        MAIL, usage, userSigningKey);
+    ValidationReport<Eip712AttestationUsage> report = Eip712AttestationUsage.validate(DOMAIN,
+        attestorKeys.getPublic(), -1, CHAIN_ID, request.getJsonEncoding());
+    assertFalse(report.isAccepted());
+    assertNull(report.getResult());
+    assertEquals(ValidationStage.TIME, report.getRejectedStage());
+    // Neither the signature nor the proof has been checked
+    assertEquals(0, report.getStageNanos(ValidationStage.SIGNATURE));
+    assertEquals(0, report.getStageNanos(ValidationStage.PROOF));
+  }
+
+  @Test
+  public void tryDecode() {
+    UseAttestation usage = new UseAttestation(signedAttestation, TYPE, pok, sessionKey);
+    Eip712AttestationUsage request = new Eip712AttestationUsage(DOMAIN, MAIL, usage, userSigningKey);
+    DecodeResult<Eip712AttestationUsage> result = Eip712AttestationUsage.tryDecode(DOMAIN,
+        attestorKeys.getPublic(), Timestamp.DEFAULT_TOKEN_TIME_LIMIT, Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID,
+        request.getJsonEncoding());
+    assertTrue(result.isAccepted());
+    assertEquals(request.getIdentifier(), result.getResult().getIdentifier());
+
+    Eip712AttestationUsage expired = new Eip712AttestationUsage(DOMAIN, -1, CHAIN_ID,
+        MAIL, usage, userSigningKey);
+    long timeRejections = Eip712AttestationUsage.getRejections(RejectionReason.INVALID_TIME);
+    result = Eip712AttestationUsage.tryDecode(DOMAIN, attestorKeys.getPublic(), -1, CHAIN_ID,
+        expired.getJsonEncoding());
+    assertEquals(RejectionReason.INVALID_TIME, result.getReason());
+    assertNull(result.getResult());
+    assertEquals(timeRejections + 1, Eip712AttestationUsage.getRejections(RejectionReason.INVALID_TIME));
+
+    result = Eip712AttestationUsage.tryDecode("https://www.notTheRightHotel.com", attestorKeys.getPublic(),
+        Timestamp.DEFAULT_TOKEN_TIME_LIMIT, Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, request.getJsonEncoding());
+    assertEquals(RejectionReason.WRONG_DOMAIN, result.getReason());
+    result = Eip712AttestationUsage.tryDecode(DOMAIN, attestorKeys.getPublic(), Timestamp.DEFAULT_TOKEN_TIME_LIMIT,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, request.getJsonEncoding().replace(',', '.'));
+    assertEquals(RejectionReason.MALFORMED, result.getReason());
+  }
+
+  @Test
+  public void stagedValidationWrongDomain() {
+    UseAttestation usage = new UseAttestation(signedAttestation, TYPE, pok, sessionKey);
+    Eip712AttestationUsage request = new Eip712AttestationUsage(DOMAIN, MAIL, usage, userSigningKey);
+    ValidationReport<Eip712AttestationUsage> report = Eip712AttestationUsage.validate(
+        "https://www.notTheRightHotel.com", attestorKeys.getPublic(), Timestamp.DEFAULT_TOKEN_TIME_LIMIT,
+        Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID, request.getJsonEncoding());
+    assertEquals(ValidationStage.DOMAIN, report.getRejectedStage());
+  }
+
+  @Test
+  public void stagedValidationInvalidNonce() {
+    byte[] wrongNonce = Nonce.makeNonce(userAddress, "http://www.notTheRightHotel.com", new Timestamp());
+    FullProofOfExponent wrongPok = crypto.computeAttestationProof(ATTESTATION_SECRET, wrongNonce);
+    UseAttestation usage = new UseAttestation(signedAttestation, TYPE, wrongPok, sessionKey);
+    Eip712AttestationUsage request = new Eip712AttestationUsage(DOMAIN, MAIL, usage, userSigningKey);
+    ValidationReport<Eip712AttestationUsage> report = Eip712AttestationUsage.validate(DOMAIN,
+        attestorKeys.getPublic(), Timestamp.DEFAULT_TOKEN_TIME_LIMIT, Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID,
+        request.getJsonEncoding());
+    assertEquals(ValidationStage.NONCE, report.getRejectedStage());
+  }
+
+  @Test
+  public void stagedValidationMalformedToken() {
+    UseAttestation usage = new UseAttestation(signedAttestation, TYPE, pok, sessionKey);
+    Eip712AttestationUsage request = new Eip712AttestationUsage(DOMAIN, MAIL, usage, userSigningKey);
+    String wrongJson = request.getJsonEncoding().replace(',', '.');
+    ValidationReport<Eip712AttestationUsage> report = Eip712AttestationUsage.validate(DOMAIN,
+        attestorKeys.getPublic(), Timestamp.DEFAULT_TOKEN_TIME_LIMIT, Eip712AttestationUsage.PLACEHOLDER_CHAIN_ID,
+        wrongJson);
+    assertEquals(ValidationStage.PARSE, report.getRejectedStage());
+  }
+
   @Test
   public void invalidNonceDomain() {
     byte[] wrongNonce = Nonce.makeNonce(userAddress, "http://www.notTheRightHotel.com", new Timestamp());
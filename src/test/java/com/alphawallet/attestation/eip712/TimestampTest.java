@@ -5,6 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 
 public class TimestampTest {
@@ -23,6 +29,58 @@ public class TimestampTest {
     assertEquals(9000, otherTimestamp.getTime());
   }
 
+  @Test
+  public void knownEncoding() {
+    assertEquals("Thu Jan 1 1970 00:00:09 GMT+0000", new Timestamp(9999).getTimeAsString());
+    assertEquals("Fri Dec 31 9999 22:59:59 GMT+0000", new Timestamp(Timestamp.UNLIMITED).getTimeAsString());
+    assertEquals(Timestamp.UNLIMITED, Timestamp.stringTimestampToLong("Fri Dec 31 9999 22:59:59 GMT+0000"));
+    // Years beyond 9999 are written without a sign
+    assertEquals("Wed Jul 5 10051 14:34:50 GMT+0000", new Timestamp(255027796490000L).getTimeAsString());
+    assertEquals(255027796490000L, Timestamp.stringTimestampToLong("Wed Jul 5 10051 14:34:50 GMT+0000"));
+  }
+
+  @Test
+  public void lenientParsing() {
+    // Other offsets, two digit days, a wrong day of the week and trailing text are accepted
+    assertEquals(9000 - 3600000, Timestamp.stringTimestampToLong("Thu Jan 1 1970 00:00:09 GMT+0100"));
+    assertEquals(9000, Timestamp.stringTimestampToLong("Mon Jan 01 1970 00:00:09 GMT+0000"));
+    assertEquals(9000, Timestamp.stringTimestampToLong("Thu Jan 1 1970 00:00:09 GMT+0000 (Coordinated Universal Time)"));
+  }
+
+  @Test
+  public void invalidDate() {
+    assertThrows(RuntimeException.class, () -> Timestamp.stringTimestampToLong("Tue Feb 30 2021 00:00:09 GMT+0000"));
+    assertThrows(RuntimeException.class, () -> Timestamp.stringTimestampToLong("Thu Jan 1 1970 24:00:09 GMT+0000"));
+  }
+
+  @Test
+  public void concurrentEncoding() throws Exception {
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        long seed = i;
+        results.add(executor.submit(() -> {
+          Random rand = new Random(seed);
+          for (int j = 0; j < 5000; j++) {
+            long time = (rand.nextLong() & Long.MAX_VALUE) % Timestamp.UNLIMITED;
+            Timestamp timestamp = new Timestamp(time);
+            if (new Timestamp(timestamp.getTimeAsString()).getTime() != timestamp.getTime()) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   public void slackConsistency() {
     Timestamp time = new Timestamp(9999);
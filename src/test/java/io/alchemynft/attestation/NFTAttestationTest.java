@@ -1,6 +1,8 @@
 package io.alchemynft.attestation;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.alphawallet.attestation.HelperTest;
@@ -9,9 +11,11 @@ import com.alphawallet.attestation.SignedIdentityAttestation;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.demo.SmartContract;
 import com.alphawallet.ethereum.ERC721Token;
+import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -96,4 +100,16 @@ public class NFTAttestationTest {
         SignedIdentityAttestation newSigned = new SignedIdentityAttestation(signedEncoded, issuerKeys.getPublic());
         assertArrayEquals(signed.getDerEncoding(), newSigned.getDerEncoding());
     }
+
+    @Test
+    public void tokenEncodingMemoized() {
+        ERC721Token token = new ERC721Token("0xa567f5A165545Fa2639bBdA79991F105EADF8522", "25");
+        byte[] encoding = token.getDerEncoding();
+        assertSame(encoding, token.getDerEncoding());
+        // Changing a public field yields the encoding of the new value
+        token.tokenId = BigInteger.valueOf(26);
+        assertArrayEquals(new ERC721Token("0xa567f5A165545Fa2639bBdA79991F105EADF8522", "26").getDerEncoding(),
+            token.getDerEncoding());
+        assertFalse(Arrays.equals(encoding, token.getDerEncoding()));
+    }
 }
@@ -3,9 +3,15 @@ package org.devcon.ticket;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.alphawallet.attestation.core.AttestationCrypto;
+import com.alphawallet.attestation.core.DecodeResult;
+import com.alphawallet.attestation.core.RejectionReason;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.core.URLUtility;
 import java.io.File;
@@ -22,6 +28,7 @@ import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.util.SubjectPublicKeyInfoFactory;
+import org.bouncycastle.math.ec.ECPoint;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -57,6 +64,35 @@ public class TicketTest {
     assertArrayEquals(senderSpki.getEncoded(), ticketSpki.getEncoded());
   }
 
+  @Test
+  public void testEncodingsMemoized() throws IOException {
+    Ticket ticket = new Ticket(MAIL, CONFERENCE_ID, TICKET_ID, TICKET_CLASS, senderKeys, SECRET);
+    assertSame(ticket.getDerEncoding(), ticket.getDerEncoding());
+    assertSame(ticket.getDerEncodingWithPK(), ticket.getDerEncodingWithPK());
+    assertSame(ticket.getUrlEncoding(), ticket.getUrlEncoding());
+    Ticket decoded = (new TicketDecoder(senderKeys.getPublic())).decode(ticket.getDerEncoding());
+    assertArrayEquals(ticket.getDerEncodingWithPK(), decoded.getDerEncodingWithPK());
+    assertEquals(ticket.getUrlEncoding(), decoded.getUrlEncoding());
+  }
+
+  @Test
+  public void testTryDecode() throws IOException {
+    Ticket ticket = new Ticket(MAIL, CONFERENCE_ID, TICKET_ID, TICKET_CLASS, senderKeys, SECRET);
+    DecodeResult<Ticket> result = Ticket.tryDecode(ticket.getDerEncoding(), senderKeys.getPublic());
+    assertTrue(result.isAccepted());
+    assertArrayEquals(ticket.getDerEncoding(), result.getResult().getDerEncoding());
+    assertTrue(Ticket.tryDecode(ticket.getDerEncodingWithPK(), null).isAccepted());
+
+    long signatureRejections = Ticket.getRejections(RejectionReason.INVALID_SIGNATURE);
+    result = Ticket.tryDecode(ticket.getDerEncoding(), otherKeys.getPublic());
+    assertEquals(RejectionReason.INVALID_SIGNATURE, result.getReason());
+    assertEquals(signatureRejections + 1, Ticket.getRejections(RejectionReason.INVALID_SIGNATURE));
+    // The included public key is not the expected one
+    result = Ticket.tryDecode(ticket.getDerEncodingWithPK(), otherKeys.getPublic());
+    assertEquals(RejectionReason.MALFORMED, result.getReason());
+    assertNull(new TicketDecoder(otherKeys.getPublic()).decodeUnverified(ticket.getDerEncodingWithPK()));
+  }
+
   @Test
   public void testTicketURLSunshine() throws IOException  {
     BigInteger ticketID = new BigInteger("417541561854");
@@ -197,6 +233,19 @@ public class TicketTest {
     }
   }
 
+  @Test
+  public void testDecoderReuse() throws Exception {
+    Ticket ticket = new Ticket(MAIL, CONFERENCE_ID, TICKET_ID, TICKET_CLASS, senderKeys, SECRET);
+    Ticket otherTicket = new Ticket(MAIL, CONFERENCE_ID, TICKET_ID, TICKET_CLASS, otherKeys, SECRET);
+    TicketDecoder decoder = new TicketDecoder(senderKeys.getPublic());
+    Ticket first = decoder.decode(ticket.getDerEncodingWithPK());
+    Ticket second = decoder.decode(ticket.getDerEncodingWithPK());
+    // The decoded key is interned, so the decoder keeps decoding the very same key
+    assertSame(first.getPublicKey(), second.getPublicKey());
+    assertTrue(second.verify());
+    assertThrows(IllegalArgumentException.class, () -> decoder.decode(otherTicket.getDerEncodingWithPK()));
+  }
+
   @Test
   public void testWrongKeyNoPKArgument() throws Exception {
     Ticket ticket = new Ticket(MAIL, CONFERENCE_ID, TICKET_ID, TICKET_CLASS, senderKeys, SECRET);
@@ -208,4 +257,12 @@ public class TicketTest {
       // Expected
     }
   }
+
+  @Test
+  public void commitmentPointMemoized() {
+    Ticket ticket = new Ticket(MAIL, CONFERENCE_ID, TICKET_ID, TICKET_CLASS, senderKeys, SECRET);
+    ECPoint point = ticket.getCommitmentPoint();
+    assertSame(point, ticket.getCommitmentPoint());
+    assertEquals(AttestationCrypto.curve.decodePoint(ticket.getCommitment()), point);
+  }
 }
@@ -1,14 +1,18 @@
 package org.tokenscript.eip712;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.alphawallet.attestation.core.EthereumAddress;
 import com.alphawallet.attestation.core.SignatureUtility;
 import com.alphawallet.attestation.eip712.Timestamp;
 import com.alphawallet.token.web.Ethereum.web3j.StructuredData.Entry;
+import com.alphawallet.token.web.Ethereum.web3j.StructuredDataEncoder;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.InvalidObjectException;
@@ -63,6 +67,7 @@ public class Eip712Test {
   public void testSunshine() throws Exception {
     String token = issuer.buildSignedTokenFromJsonObject(testObject, testDomain);
     checkEquality(validator.retrieveUnderlyingObject(token, FullEip712InternalData.class));
+    assertTrue(validator.verifyDomain(validator.parseToken(token, FullEip712InternalData.class)));
     assertTrue(validator.verifySignature(token, SignatureUtility.addressFromKey(userKeys.getPublic()), FullEip712InternalData.class));
   }
 
@@ -107,6 +112,31 @@ public class Eip712Test {
     assertFalse(validator.verifySignature(token, SignatureUtility.addressFromKey(userKeys.getPublic()), FullEip712InternalData.class));
   }
 
+  @Test
+  public void parseTokenOnce() throws Exception {
+    String token = issuer.buildSignedTokenFromJsonObject(testObject, testDomain);
+    Eip712ValidationContext<FullEip712InternalData> context = validator.parseToken(token, FullEip712InternalData.class);
+    checkEquality(context.getUnderlyingObject());
+    assertTrue(validator.verifyDomain(context));
+    assertTrue(validator.verifySignature(context, EthereumAddress.parse(SignatureUtility.addressFromKey(userKeys.getPublic()))));
+    assertEquals(validator.retrieveUserPublicKey(token, FullEip712InternalData.class).getQ(),
+        validator.recoverUserPublicKey(context).getQ());
+    // The signed data derived from the parsed token is the data of the signable version
+    String signableToken = issuer.buildSignedTokenFromJsonObject(testObject.getSignableVersion(), testDomain);
+    String signableJson = mapper.readValue(signableToken, Eip712ExternalData.class).getJsonSigned();
+    assertArrayEquals(new StructuredDataEncoder(signableJson).getStructuredData(), context.getSignedPrehash());
+  }
+
+  @Test
+  public void parseTokenOtherDomain() throws Exception {
+    String token = issuer.buildSignedTokenFromJsonObject(testObject, "http://www.not-test.com");
+    Eip712ValidationContext<FullEip712InternalData> context = validator.parseToken(token, FullEip712InternalData.class);
+    checkEquality(context.getUnderlyingObject());
+    assertFalse(validator.verifyDomain(context));
+    assertNull(validator.recoverUserPublicKey(context));
+    assertThrows(InvalidObjectException.class, () -> validator.retrieveUserPublicKey(context));
+  }
+
   @Test
   public void testConsistency() throws Exception {
     String token = issuer.buildSignedTokenFromJsonObject(testObject, testDomain);
@@ -151,9 +181,7 @@ public class Eip712Test {
   @Test
   public void incorrectDomain() throws Exception {
     String token = issuer.buildSignedTokenFromJsonObject(testObject, "http://www.not-test.com");
-    Eip712ExternalData data = mapper.readValue(token, Eip712ExternalData.class);
-    JsonNode rootNode = mapper.readTree(data.getJsonSigned());
-    assertThrows(InvalidObjectException.class, () -> validator.getDomainFromJson(rootNode));
+    assertFalse(validator.verifyDomain(validator.parseToken(token, FullEip712InternalData.class)));
   }
 
   @Test
@@ -170,18 +198,14 @@ public class Eip712Test {
   public void invalidVersionIssuer() throws Exception {
     Eip712Issuer newIssuer = new Eip712Issuer(userKeys.getPrivate(), new TestEncoder("2.0", 1));
     String token = newIssuer.buildSignedTokenFromJsonObject(testObject, testDomain);
-    Eip712ExternalData data = mapper.readValue(token, Eip712ExternalData.class);
-    JsonNode rootNode = mapper.readTree(data.getJsonSigned());
-    assertThrows(InvalidObjectException.class, () -> validator.getDomainFromJson(rootNode));
+    assertFalse(validator.verifyDomain(validator.parseToken(token, FullEip712InternalData.class)));
   }
 
   @Test
   public void invalidVersionValidator() throws Exception {
     Eip712Validator newValidator = new Eip712Validator(testDomain, new TestEncoder("2.0", 1));
     String token = issuer.buildSignedTokenFromJsonObject(testObject, testDomain);
-    Eip712ExternalData data = mapper.readValue(token, Eip712ExternalData.class);
-    JsonNode rootNode = mapper.readTree(data.getJsonSigned());
-    assertThrows(InvalidObjectException.class, () -> newValidator.getDomainFromJson(rootNode));
+    assertFalse(newValidator.verifyDomain(newValidator.parseToken(token, FullEip712InternalData.class)));
   }
 
 